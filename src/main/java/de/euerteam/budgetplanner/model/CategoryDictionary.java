@@ -0,0 +1,121 @@
+package de.euerteam.budgetplanner.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wörterbuch der Kategorienamen eines Haushaltsbuchs. Jeder Name bekommt eine int-ID, über
+ * die Speicher, Indizes und Aggregate ihre Kategorie referenzieren. Gruppieren nach Kategorie
+ * wird damit zu Array-Indizierung, und ein Umbenennen ändert nur den Eintrag im Wörterbuch.
+ *
+ * Eine Instanz gehört dem {@link de.euerteam.budgetplanner.service.CategoryManager} und wird
+ * an Service und Repository weitergegeben. Einträge werden gezählt ({@link #retain(int)},
+ * {@link #release(int)}); wird ein Name nirgends mehr verwendet, wird seine ID frei und
+ * später wiederverwendet.
+ */
+public final class CategoryDictionary {
+    /** ID für Transaktionen ohne Kategorie (null). */
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    // Copy-on-write, damit nameOf ohne Sperre gelesen werden kann; freie IDs sind null
+    private volatile String[] names = new String[0];
+    private int[] references = new int[0];
+    // Freie IDs als Stapel
+    private int[] freeIds = new int[0];
+    private int freeCount;
+    // Wird bei jedem Umbenennen erhöht
+    private volatile int renameCount;
+
+    /**
+     * Liefert die ID zu einem Namen und legt sie bei Bedarf an. Ein neuer Eintrag wird erst
+     * durch {@link #retain(int)} dauerhaft; wer nur nachschlagen will, nimmt {@link #find(String)}.
+     */
+    public synchronized int idOf(String name) {
+        if (name == null) return NONE;
+        Integer id = idsByName.get(name);
+        if (id != null) return id;
+        int newId;
+        String[] copy;
+        if (freeCount > 0) {
+            newId = freeIds[--freeCount];
+            copy = names.clone();
+        } else {
+            newId = names.length;
+            copy = Arrays.copyOf(names, newId + 1);
+            references = Arrays.copyOf(references, newId + 1);
+        }
+        copy[newId] = name;
+        names = copy;
+        idsByName.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * Liefert die ID zu einem Namen oder {@link #NONE}, ohne einen Eintrag anzulegen.
+     */
+    public synchronized int find(String name) {
+        if (name == null) return NONE;
+        Integer id = idsByName.get(name);
+        return id == null ? NONE : id;
+    }
+
+    /** Name zur ID; null für {@link #NONE} und freie IDs. */
+    public String nameOf(int id) {
+        String[] current = names;
+        return id < 0 || id >= current.length ? null : current[id];
+    }
+
+    /**
+     * Aktuelle Namen, indiziert mit der ID. Das Array wird nie mehr verändert und kann
+     * in einem anderen Thread gelesen werden; spätere Änderungen sieht es nicht.
+     */
+    public String[] snapshotNames() {
+        return names;
+    }
+
+    /** Obergrenze der IDs; alle vergebenen IDs liegen in [0, size()). */
+    public int size() {
+        return names.length;
+    }
+
+    /** Ein weiterer Verwender der ID (Buchungen, Budgets, Daueraufträge, Kategorieliste). */
+    public synchronized void retain(int id) {
+        if (id != NONE) references[id]++;
+    }
+
+    /** Gibt eine Verwendung frei; ohne Verwender wird die ID frei. */
+    public synchronized void release(int id) {
+        if (id == NONE || --references[id] > 0) return;
+        String[] copy = names.clone();
+        idsByName.remove(copy[id]);
+        copy[id] = null;
+        names = copy;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, Math.max(8, freeCount * 2));
+        freeIds[freeCount++] = id;
+    }
+
+    /** Zähler der Umbenennungen; ändert er sich, sind zwischengespeicherte Namen veraltet. */
+    public int renameCount() {
+        return renameCount;
+    }
+
+    /**
+     * Benennt eine Kategorie um. Alle Verwender dieser ID sehen danach den neuen Namen.
+     *
+     * @return false, wenn die ID frei oder der neue Name schon für eine andere Kategorie vergeben ist
+     */
+    public synchronized boolean rename(int id, String newName) {
+        if (newName == null || newName.isBlank() || nameOf(id) == null) return false;
+        Integer existing = idsByName.get(newName);
+        if (existing != null) return existing == id;
+        String[] copy = names.clone();
+        idsByName.remove(copy[id]);
+        copy[id] = newName;
+        idsByName.put(newName, id);
+        names = copy;
+        renameCount++;
+        return true;
+    }
+}
@@ -0,0 +1,214 @@
+package de.euerteam.budgetplanner.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Geldbetrag in Euro, intern als ganze Cent in einem long.
+ * Rechnen und Vergleichen kommt ohne BigDecimal aus; BigDecimal wird nur an den
+ * Rändern (Eingabe, Anzeige) verwendet.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Übernimmt einen BigDecimal-Betrag; mehr als zwei Nachkommastellen werden kaufmännisch gerundet.
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) return ZERO;
+        return ofCents(toCents(amount));
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parst einen Betrag im CSV-Format ("1234.56", "-7", "0.5") exakt, ohne Umweg über double.
+     * Mehr als zwei Nachkommastellen werden kaufmännisch gerundet.
+     */
+    public static Money parse(CharSequence text) {
+        try {
+            return ofCents(parseCents(text, 0, text.length()));
+        } catch (NumberFormatException e) {
+            // Ältere Exporte können BigDecimal-Schreibweisen wie "1.0E+7" enthalten
+            return of(new BigDecimal(text.toString()));
+        }
+    }
+
+    /**
+     * Parst einen Betrag in deutscher Schreibweise, z.B. "1.234,56 €" oder "-12,5".
+     * Ohne Komma gilt ein einzelner Punkt mit ein oder zwei Nachkommastellen als
+     * Dezimaltrenner ("12.50"), sonst als Tausendertrenner.
+     */
+    public static Money parseGerman(String text) {
+        if (text == null) throw new NumberFormatException("Kein Betrag angegeben");
+        char decimalSeparator = ',';
+        if (text.indexOf(',') < 0) {
+            int dot = text.indexOf('.');
+            if (dot >= 0 && dot == text.lastIndexOf('.')) {
+                int digitsAfter = 0;
+                for (int i = dot + 1; i < text.length() && Character.isDigit(text.charAt(i)); i++) {
+                    digitsAfter++;
+                }
+                if (digitsAfter <= 2) decimalSeparator = '.';
+            }
+        }
+        return ofCents(parseCents(text, 0, text.length(), decimalSeparator, true));
+    }
+
+    /**
+     * Liest Cent aus einem Textbereich im CSV-Format, ohne einen String anzulegen.
+     */
+    public static long parseCents(CharSequence text, int start, int end) {
+        return parseCents(text, start, end, '.', false);
+    }
+
+    /**
+     * Liest Cent aus einem Textbereich. Im lenient-Modus werden alle Zeichen außer Ziffern,
+     * Minus und dem Dezimaltrenner ignoriert (Tausenderpunkte, Leerzeichen, Währungssymbol),
+     * sonst führen sie zu einer NumberFormatException.
+     */
+    private static long parseCents(CharSequence text, int start, int end, char decimalSeparator, boolean lenient) {
+        boolean negative = false;
+        boolean inFraction = false;
+        boolean anyDigit = false;
+        long whole = 0;
+        int fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                int digit = c - '0';
+                if (!inFraction) {
+                    whole = Math.addExact(Math.multiplyExact(whole, 10), digit);
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + digit;
+                    fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    roundUp = digit >= 5;
+                    fractionDigits++;
+                }
+            } else if (c == '-' && !anyDigit && !negative) {
+                negative = true;
+            } else if (c == decimalSeparator) {
+                if (inFraction) throw new NumberFormatException("Ungültiger Betrag: " + text.subSequence(start, end));
+                inFraction = true;
+            } else if (!lenient && !(c == '+' && i == start)) {
+                throw new NumberFormatException("Ungültiger Betrag: " + text.subSequence(start, end));
+            }
+        }
+        if (!anyDigit) throw new NumberFormatException("Ungültiger Betrag: " + text.subSequence(start, end));
+
+        if (fractionDigits == 1) fraction *= 10;
+        long cents = Math.addExact(Math.multiplyExact(whole, 100), fraction + (roundUp ? 1 : 0));
+        return negative ? -cents : cents;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(-cents);
+    }
+
+    public Money max(Money other) {
+        return cents >= other.cents ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    /** Betrag als double, nur für Diagramme. */
+    public double toDouble() {
+        return cents / 100.0;
+    }
+
+    /** Format der CSV-Datei, z.B. "1234.56". */
+    public String toPlainString() {
+        StringBuilder sb = new StringBuilder(20);
+        appendPlain(sb, cents);
+        return sb.toString();
+    }
+
+    /** Deutsches Währungsformat wie {@code NumberFormat.getCurrencyInstance(Locale.GERMANY)}, z.B. "1.234,56 €". */
+    public String format() {
+        return format(cents);
+    }
+
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(24);
+        if (cents < 0) sb.append('-');
+        long abs = Math.abs(cents);
+        String whole = Long.toString(abs / 100);
+        int firstGroup = whole.length() % 3;
+        if (firstGroup == 0) firstGroup = 3;
+        sb.append(whole, 0, firstGroup);
+        for (int i = firstGroup; i < whole.length(); i += 3) {
+            sb.append('.').append(whole, i, i + 3);
+        }
+        int fraction = (int) (abs % 100);
+        sb.append(',').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        sb.append('\u00A0').append('€');
+        return sb.toString();
+    }
+
+    public static void appendPlain(StringBuilder sb, long cents) {
+        if (cents < 0) sb.append('-');
+        long abs = Math.abs(cents);
+        sb.append(abs / 100).append('.');
+        int fraction = (int) (abs % 100);
+        sb.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString();
+    }
+}
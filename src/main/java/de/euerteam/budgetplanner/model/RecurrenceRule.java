@@ -0,0 +1,203 @@
+package de.euerteam.budgetplanner.model;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dauerauftrag als Regel statt als Kopien: Vorlage (Beschreibung, Betrag, Typ, Kategorie),
+ * Startdatum, Intervall und optional Enddatum und/oder Anzahl der Ausführungen.
+ *
+ * Die k-te Ausführung liegt am Start plus k Intervalle (vom Start aus gerechnet, damit z.B.
+ * der 31. nicht dauerhaft auf den 28. rutscht). Ausführungen werden nur für einen gefragten
+ * Zeitraum erzeugt. Alles bis einschließlich {@link #getMaterializedUntil()} ist bereits als
+ * echte Buchung gespeichert und wird nicht mehr expandiert. Jede Ausführung hat eine feste ID,
+ * ein erneutes Materialisieren überschreibt also statt zu verdoppeln.
+ */
+public final class RecurrenceRule {
+
+    public enum Frequency {
+        MONTHLY(1), YEARLY(12);
+
+        private final int months;
+
+        Frequency(int months) {
+            this.months = months;
+        }
+    }
+
+    private final UUID id;
+    private final String description;
+    private final Money amount;
+    private final TransactionType type;
+    private final String category;
+    private final LocalDate start;
+    private final Frequency frequency;
+    // null = ohne Enddatum
+    private final LocalDate end;
+    // 0 = ohne Begrenzung der Anzahl
+    private final int count;
+    // null = noch nichts materialisiert
+    private final LocalDate materializedUntil;
+
+    public RecurrenceRule(String description, Money amount, TransactionType type, String category,
+            LocalDate start, Frequency frequency, LocalDate end, int count) {
+        this(UUID.randomUUID(), description, amount, type, category, start, frequency, end, count, null);
+    }
+
+    public RecurrenceRule(UUID id, String description, Money amount, TransactionType type, String category,
+            LocalDate start, Frequency frequency, LocalDate end, int count, LocalDate materializedUntil) {
+        if (count < 0) throw new IllegalArgumentException("Anzahl darf nicht negativ sein: " + count);
+        this.id = id;
+        this.description = description;
+        this.amount = amount;
+        this.type = type;
+        this.category = category;
+        this.start = start;
+        this.frequency = frequency;
+        this.end = end;
+        this.count = count;
+        this.materializedUntil = materializedUntil;
+    }
+
+    /** Gleiche Regel, bei der alles bis einschließlich date als gebucht gilt. */
+    public RecurrenceRule withMaterializedUntil(LocalDate date) {
+        return new RecurrenceRule(id, description, amount, type, category, start, frequency, end, count, date);
+    }
+
+    /** Gleiche Regel mit anderer Kategorie, z.B. nach einem Umbenennen. */
+    public RecurrenceRule withCategory(String newCategory) {
+        return new RecurrenceRule(id, description, amount, type, newCategory, start, frequency, end, count,
+                materializedUntil);
+    }
+
+    /** Gleiche Regel mit anderem Enddatum, z.B. um sie zu beenden. */
+    public RecurrenceRule withEnd(LocalDate newEnd) {
+        return new RecurrenceRule(id, description, amount, type, category, start, frequency, newEnd, count,
+                materializedUntil);
+    }
+
+    /** Hat die Regel weder Enddatum noch Anzahl, läuft sie unbegrenzt. */
+    public boolean isUnbounded() {
+        return end == null && count == 0;
+    }
+
+    /** Datum der index-ten Ausführung (0 = Start). */
+    public LocalDate occurrenceDate(int index) {
+        return start.plusMonths((long) index * frequency.months);
+    }
+
+    /** Die index-te Ausführung als Buchung mit fester, aus Regel und Index abgeleiteter ID. */
+    public Transaction occurrence(int index) {
+        ByteBuffer key = ByteBuffer.allocate(20)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putInt(index);
+        return new Transaction(UUID.nameUUIDFromBytes(key.array()), description, amount, type,
+                occurrenceDate(index), category);
+    }
+
+    /**
+     * Noch nicht materialisierte Ausführungen von from bis to (jeweils einschließlich, null = offen),
+     * aufsteigend nach Datum.
+     *
+     * @throws IllegalArgumentException wenn weder to noch die Regel selbst ein Ende hat
+     */
+    public List<Transaction> expand(LocalDate from, LocalDate to) {
+        int first = firstIndex(from);
+        int last = lastIndex(to);
+        List<Transaction> occurrences = new ArrayList<>(Math.max(0, last - first + 1));
+        for (int index = first; index <= last; index++) {
+            occurrences.add(occurrence(index));
+        }
+        return occurrences;
+    }
+
+    /** Anzahl der noch nicht materialisierten Ausführungen von from bis to, in O(1). */
+    public int countBetween(LocalDate from, LocalDate to) {
+        return Math.max(0, lastIndex(to) - firstIndex(from) + 1);
+    }
+
+    /** Gibt es nach date keine weiteren Ausführungen mehr? */
+    public boolean endsBefore(LocalDate date) {
+        return !isUnbounded() && lastIndex(null) < firstIndexFrom(date);
+    }
+
+    /** Erste nicht materialisierte Ausführung ab from (null = ab Start). */
+    private int firstIndex(LocalDate from) {
+        int first = from == null ? 0 : firstIndexFrom(from);
+        return materializedUntil == null ? first : Math.max(first, firstIndexFrom(materializedUntil.plusDays(1)));
+    }
+
+    /** Letzte Ausführung bis to (null = bis zum Ende der Regel). */
+    private int lastIndex(LocalDate to) {
+        if (to == null && isUnbounded()) {
+            throw new IllegalArgumentException("Unbegrenzter Dauerauftrag braucht ein Ende des Zeitraums");
+        }
+        int last = Integer.MAX_VALUE - 1;
+        if (count > 0) last = count - 1;
+        if (end != null) last = Math.min(last, firstIndexFrom(end.plusDays(1)) - 1);
+        if (to != null) last = Math.min(last, firstIndexFrom(to.plusDays(1)) - 1);
+        return last;
+    }
+
+    /** Index der ersten Ausführung am oder nach date. */
+    private int firstIndexFrom(LocalDate date) {
+        if (!date.isAfter(start)) return 0;
+        // Volle Monate abrunden; wegen Monatsenden (31. → 30.) höchstens wenige Schritte nachkorrigieren
+        long months = ChronoUnit.MONTHS.between(start, date);
+        long index = Math.max(0, months / frequency.months);
+        while (occurrenceDate((int) index).isBefore(date)) {
+            index++;
+        }
+        return (int) Math.min(index, Integer.MAX_VALUE - 1);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    /** Betrag mit Vorzeichen: Einnahmen positiv, Ausgaben negativ. */
+    public long getSignedAmountCents() {
+        return type == TransactionType.Einnahmen ? amount.getCents() : -amount.getCents();
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public LocalDate getMaterializedUntil() {
+        return materializedUntil;
+    }
+}
@@ -7,21 +7,24 @@ import java.util.UUID;
 public class Transaction {
     private final UUID id;
     private final String description;
-    private final BigDecimal amount;
+    private final Money amount;
     private final TransactionType type;
     private final LocalDate date;
     private final String category;
 
     public Transaction(String description, BigDecimal amount, TransactionType type, LocalDate date, String category) {
-        this.id = UUID.randomUUID();
-        this.description = description;
-        this.amount = amount;
-        this.type = type;
-        this.date = date;
-        this.category = category;
+        this(UUID.randomUUID(), description, Money.of(amount), type, date, category);
+    }
+
+    public Transaction(String description, Money amount, TransactionType type, LocalDate date, String category) {
+        this(UUID.randomUUID(), description, amount, type, date, category);
     }
 
     public Transaction(UUID id, String description, BigDecimal amount, TransactionType type, LocalDate date, String category) {
+        this(id, description, Money.of(amount), type, date, category);
+    }
+
+    public Transaction(UUID id, String description, Money amount, TransactionType type, LocalDate date, String category) {
         this.id = id;
         this.description = description;
         this.amount = amount;
@@ -30,6 +33,11 @@ public class Transaction {
         this.category = category;
     }
 
+    /** Gleiche Transaktion mit anderer Kategorie, z.B. nach einem Umbenennen. */
+    public Transaction withCategory(String newCategory) {
+        return new Transaction(id, description, amount, type, date, newCategory);
+    }
+
     public UUID getId() {
         return id;
     }
@@ -39,9 +47,22 @@ public class Transaction {
     }
 
     public BigDecimal getAmount() {
+        return amount.toBigDecimal();
+    }
+
+    public Money getMoney() {
         return amount;
     }
 
+    public long getAmountCents() {
+        return amount.getCents();
+    }
+
+    /** Betrag mit Vorzeichen: Einnahmen positiv, Ausgaben negativ. */
+    public long getSignedAmountCents() {
+        return type == TransactionType.Einnahmen ? amount.getCents() : -amount.getCents();
+    }
+
     public TransactionType getType() {
         return type;
     }
@@ -0,0 +1,360 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Spaltenorientierter Speicher für große Datenmengen.
+ * Jede Transaktion belegt nur eine Zeile in parallelen primitiven Arrays
+ * (Betrag in Cent, Datum als Epoch-Day, Typ als byte, Kategorie-ID aus dem
+ * {@link CategoryDictionary}). Transaction-Objekte werden erst beim Zugriff erzeugt.
+ * Beschreibungen sind meist Freitext und fast alle verschieden; sie liegen direkt als String in
+ * einer eigenen Spalte, ein Wörterbuch würde nur zusätzlich kosten und beim Ändern alte Texte behalten.
+ * Alle Abfragen laufen indiziert.
+ *
+ * {@link #frozenView()} teilt die Spalten mit der Sicht, statt sie zu kopieren (Copy-on-Write):
+ * erst die nächste Änderung an einer bestehenden Zeile kopiert die Arrays. Angehängte Zeilen
+ * liegen hinter dem Ende der Sicht und brauchen keine Kopie.
+ */
+public class ColumnarTransactionRepository implements TransactionRepository {
+    private static final byte REMOVED = -1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final CategoryDictionary categories;
+    private long[] idMostBits;
+    private long[] idLeastBits;
+    private long[] amountCents;
+    private int[] epochDays;
+    private byte[] types;
+    private int[] categoryIds;
+    private String[] descriptions;
+    private int slotCount;
+    private int size;
+    // Die Spalten gehören auch einer FrozenView und dürfen nur hinter deren Ende beschrieben werden
+    private boolean shared;
+
+    // Offene Adressierung: Slot + 1, 0 = frei, -1 = gelöscht
+    private int[] idTable;
+    private int idTableUsed;
+
+    public ColumnarTransactionRepository() {
+        this(new CategoryDictionary());
+    }
+
+    public ColumnarTransactionRepository(CategoryDictionary categories) {
+        this(categories, 1024);
+    }
+
+    public ColumnarTransactionRepository(CategoryDictionary categories, int initialCapacity) {
+        this.categories = categories;
+        allocate(Math.max(initialCapacity, 16));
+        idTable = new int[tableSizeFor(initialCapacity)];
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount++;
+        UUID id = transaction.getId();
+        idMostBits[slot] = id.getMostSignificantBits();
+        idLeastBits[slot] = id.getLeastSignificantBits();
+        write(slot, transaction);
+        size++;
+        insertId(slot);
+        return slot;
+    }
+
+    @Override
+    public void set(int slot, Transaction transaction) {
+        unshare();
+        write(slot, transaction);
+    }
+
+    @Override
+    public void remove(int slot) {
+        if (types[slot] == REMOVED) return;
+        unshare();
+        deleteId(slot);
+        types[slot] = REMOVED;
+        descriptions[slot] = null;
+        size--;
+    }
+
+    @Override
+    public Transaction get(int slot) {
+        if (types[slot] == REMOVED) return null;
+        return new Transaction(
+                new UUID(idMostBits[slot], idLeastBits[slot]),
+                descriptions[slot],
+                Money.ofCents(amountCents[slot]),
+                TYPES[types[slot]],
+                LocalDate.ofEpochDay(epochDays[slot]),
+                categories.nameOf(categoryIds[slot]));
+    }
+
+    @Override
+    public int findSlot(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int mask = idTable.length - 1;
+        for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+            int entry = idTable[i];
+            if (entry == 0) return -1;
+            if (entry > 0) {
+                int slot = entry - 1;
+                if (idMostBits[slot] == msb && idLeastBits[slot] == lsb) return slot;
+            }
+        }
+    }
+
+    @Override
+    public int epochDay(int slot) {
+        return epochDays[slot];
+    }
+
+    @Override
+    public long amountCents(int slot) {
+        return amountCents[slot];
+    }
+
+    @Override
+    public TransactionType type(int slot) {
+        return TYPES[types[slot]];
+    }
+
+    @Override
+    public String description(int slot) {
+        return descriptions[slot];
+    }
+
+    @Override
+    public CategoryDictionary categories() {
+        return categories;
+    }
+
+    @Override
+    public int categoryId(int slot) {
+        return categoryIds[slot];
+    }
+
+    @Override
+    public List<Transaction> frozenView() {
+        if (size != slotCount) throw new IllegalStateException("Sicht nur nach compact()");
+        shared = true;
+        return new FrozenView(idMostBits, idLeastBits, amountCents, epochDays, types, categoryIds, descriptions,
+                categories.snapshotNames(), slotCount);
+    }
+
+    @Override
+    public Set<IndexedQuery> indexedQueries() {
+        return EnumSet.allOf(IndexedQuery.class);
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return types[slot] != REMOVED;
+    }
+
+    @Override
+    public int slotCount() {
+        return slotCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void compact() {
+        if (size == slotCount) return;
+        unshare();
+        int target = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (types[i] == REMOVED) continue;
+            if (target != i) {
+                idMostBits[target] = idMostBits[i];
+                idLeastBits[target] = idLeastBits[i];
+                amountCents[target] = amountCents[i];
+                epochDays[target] = epochDays[i];
+                types[target] = types[i];
+                categoryIds[target] = categoryIds[i];
+                descriptions[target] = descriptions[i];
+            }
+            target++;
+        }
+        // Verschobene Texte nicht doppelt festhalten
+        Arrays.fill(descriptions, target, slotCount, null);
+        slotCount = target;
+        rebuildIdTable(idTable.length);
+    }
+
+    @Override
+    public void clear() {
+        if (shared) {
+            // Die Sicht behält die alten Spalten; neu anfangen ist billiger als kopieren
+            allocate(idMostBits.length);
+            shared = false;
+        }
+        Arrays.fill(descriptions, 0, slotCount, null);
+        slotCount = 0;
+        size = 0;
+        Arrays.fill(idTable, 0);
+        idTableUsed = 0;
+    }
+
+    private void write(int slot, Transaction transaction) {
+        amountCents[slot] = transaction.getAmountCents();
+        epochDays[slot] = (int) transaction.getDate().toEpochDay();
+        types[slot] = (byte) transaction.getType().ordinal();
+        categoryIds[slot] = categories.idOf(transaction.getCategory());
+        descriptions[slot] = transaction.getDescription();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= idMostBits.length) return;
+        int newCapacity = Math.max(capacity, idMostBits.length + (idMostBits.length >> 1));
+        idMostBits = Arrays.copyOf(idMostBits, newCapacity);
+        idLeastBits = Arrays.copyOf(idLeastBits, newCapacity);
+        amountCents = Arrays.copyOf(amountCents, newCapacity);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+        shared = false;
+    }
+
+    /** Kopiert die Spalten, bevor eine bestehende Zeile überschrieben wird, die eine Sicht noch liest. */
+    private void unshare() {
+        if (!shared) return;
+        int capacity = idMostBits.length;
+        idMostBits = idMostBits.clone();
+        idLeastBits = idLeastBits.clone();
+        amountCents = amountCents.clone();
+        epochDays = epochDays.clone();
+        types = types.clone();
+        categoryIds = categoryIds.clone();
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        shared = false;
+    }
+
+    private void allocate(int capacity) {
+        idMostBits = new long[capacity];
+        idLeastBits = new long[capacity];
+        amountCents = new long[capacity];
+        epochDays = new int[capacity];
+        types = new byte[capacity];
+        categoryIds = new int[capacity];
+        descriptions = new String[capacity];
+    }
+
+    private void insertId(int slot) {
+        // Füllgrad inklusive gelöschter Einträge unter 50 % halten
+        if ((idTableUsed + 1) * 2 > idTable.length) {
+            // Der Neuaufbau übernimmt auch den gerade angehängten Slot
+            rebuildIdTable(tableSizeFor(size * 2));
+            return;
+        }
+        int mask = idTable.length - 1;
+        int i = hash(idMostBits[slot], idLeastBits[slot]) & mask;
+        while (idTable[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        idTable[i] = slot + 1;
+        idTableUsed++;
+    }
+
+    private void deleteId(int slot) {
+        int mask = idTable.length - 1;
+        for (int i = hash(idMostBits[slot], idLeastBits[slot]) & mask; idTable[i] != 0; i = (i + 1) & mask) {
+            if (idTable[i] == slot + 1) {
+                idTable[i] = -1;
+                return;
+            }
+        }
+    }
+
+    private void rebuildIdTable(int tableSize) {
+        idTable = new int[tableSize];
+        idTableUsed = 0;
+        int mask = tableSize - 1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (types[slot] == REMOVED) continue;
+            int i = hash(idMostBits[slot], idLeastBits[slot]) & mask;
+            while (idTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            idTable[i] = slot + 1;
+            idTableUsed++;
+        }
+    }
+
+    private static int tableSizeFor(int entries) {
+        int n = Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+        return Math.max(n, 16);
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Liest die geteilten Spalten bis zum Ende zum Zeitpunkt des Erzeugens. Kategorienamen kommen
+     * aus dem Stand des Wörterbuchs von damals, damit später freigegebene IDs nicht fehlen.
+     */
+    private static final class FrozenView extends AbstractList<Transaction> implements RandomAccess {
+        private final long[] idMostBits;
+        private final long[] idLeastBits;
+        private final long[] amountCents;
+        private final int[] epochDays;
+        private final byte[] types;
+        private final int[] categoryIds;
+        private final String[] descriptions;
+        private final String[] categoryNames;
+        private final int size;
+
+        FrozenView(long[] idMostBits, long[] idLeastBits, long[] amountCents, int[] epochDays, byte[] types,
+                int[] categoryIds, String[] descriptions, String[] categoryNames, int size) {
+            this.idMostBits = idMostBits;
+            this.idLeastBits = idLeastBits;
+            this.amountCents = amountCents;
+            this.epochDays = epochDays;
+            this.types = types;
+            this.categoryIds = categoryIds;
+            this.descriptions = descriptions;
+            this.categoryNames = categoryNames;
+            this.size = size;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            Objects.checkIndex(index, size);
+            int category = categoryIds[index];
+            return new Transaction(
+                    new UUID(idMostBits[index], idLeastBits[index]),
+                    descriptions[index],
+                    Money.ofCents(amountCents[index]),
+                    TYPES[types[index]],
+                    LocalDate.ofEpochDay(epochDays[index]),
+                    category == CategoryDictionary.NONE ? null : categoryNames[category]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
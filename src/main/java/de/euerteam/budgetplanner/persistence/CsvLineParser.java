@@ -0,0 +1,215 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Zerlegt CSV-Zeilen ohne Zwischen-Strings: Feldgrenzen landen in wiederverwendeten
+ * int-Arrays, UUID, Betrag, Typ und Datum werden direkt aus dem Textbereich gelesen.
+ * Pro Zeile entstehen nur die Objekte der fertigen Transaktion.
+ *
+ * Anführungszeichen werden wie im bisherigen parseCSVLine behandelt: jedes '"' schaltet
+ * den Quote-Modus um und wird verworfen. Jedes Feld wird wie mit trim() beschnitten.
+ *
+ * Nicht threadsicher; jeder Thread braucht eine eigene Instanz.
+ */
+final class CsvLineParser {
+    private static final int FIELD_COUNT = 6;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int CATEGORY_CACHE_SIZE = 256;
+
+    // Rohbereiche der Felder (inklusive Anführungszeichen), nur die ersten sechs werden gebraucht
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    private final boolean[] fieldQuoted = new boolean[FIELD_COUNT];
+    private final StringBuilder unquoted = new StringBuilder(64);
+
+    // Direkt abgebildeter Cache der Kategorienamen, damit wiederkehrende Kategorien keinen neuen String erzeugen
+    private final String[] cachedNames = new String[CATEGORY_CACHE_SIZE];
+
+    Transaction parse(CharSequence text, int start, int end) {
+        int fields = split(text, start, end);
+        if (fields < FIELD_COUNT) {
+            throw new IllegalArgumentException("Ungültige CSV-Zeile: Zu wenige Felder");
+        }
+
+        UUID id = parseUuid(text, 0);
+        String description = fieldString(text, 1);
+        Money amount = parseAmount(text, 2);
+        TransactionType type = parseType(text, 3);
+        LocalDate date = parseDate(text, 4);
+        String category = category(text, 5);
+
+        return new Transaction(id, description, amount, type, date, category);
+    }
+
+    /**
+     * Bestimmt die Feldgrenzen und liefert die Anzahl der Felder.
+     */
+    private int split(CharSequence text, int start, int end) {
+        int field = 0;
+        boolean inQuotes = false;
+        boolean quoted = false;
+        int fieldBegin = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                quoted = true;
+            } else if (c == ';' && !inQuotes) {
+                if (field < FIELD_COUNT) {
+                    setField(field, fieldBegin, i, quoted);
+                }
+                field++;
+                fieldBegin = i + 1;
+                quoted = false;
+            }
+        }
+        if (field < FIELD_COUNT) {
+            setField(field, fieldBegin, end, quoted);
+        }
+        return field + 1;
+    }
+
+    private void setField(int field, int start, int end, boolean quoted) {
+        fieldStart[field] = start;
+        fieldEnd[field] = end;
+        fieldQuoted[field] = quoted;
+    }
+
+    /**
+     * Beschneidet ein Feld ohne Anführungszeichen wie trim() und speichert den Bereich zurück.
+     * Felder mit Anführungszeichen liefern false und müssen über {@link #fieldString} gelesen werden.
+     */
+    private boolean trimPlain(CharSequence text, int field) {
+        if (fieldQuoted[field]) return false;
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        while (s < e && text.charAt(s) <= ' ') s++;
+        while (e > s && text.charAt(e - 1) <= ' ') e--;
+        fieldStart[field] = s;
+        fieldEnd[field] = e;
+        return true;
+    }
+
+    private String fieldString(CharSequence text, int field) {
+        if (trimPlain(text, field)) {
+            return text.subSequence(fieldStart[field], fieldEnd[field]).toString();
+        }
+        unquoted.setLength(0);
+        for (int i = fieldStart[field]; i < fieldEnd[field]; i++) {
+            char c = text.charAt(i);
+            if (c != '"') unquoted.append(c);
+        }
+        int s = 0;
+        int e = unquoted.length();
+        while (s < e && unquoted.charAt(s) <= ' ') s++;
+        while (e > s && unquoted.charAt(e - 1) <= ' ') e--;
+        return unquoted.substring(s, e);
+    }
+
+    private UUID parseUuid(CharSequence text, int field) {
+        if (!trimPlain(text, field) || fieldEnd[field] - fieldStart[field] != 36) {
+            return UUID.fromString(fieldString(text, field));
+        }
+        int s = fieldStart[field];
+        if (text.charAt(s + 8) != '-' || text.charAt(s + 13) != '-'
+                || text.charAt(s + 18) != '-' || text.charAt(s + 23) != '-') {
+            return UUID.fromString(fieldString(text, field));
+        }
+        long msb = hex(text, s, s + 8) << 32 | hex(text, s + 9, s + 13) << 16 | hex(text, s + 14, s + 18);
+        long lsb = hex(text, s + 19, s + 23) << 48 | hex(text, s + 24, s + 36);
+        return new UUID(msb, lsb);
+    }
+
+    private static long hex(CharSequence text, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Ungültige UUID: " + text.subSequence(start, end));
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private Money parseAmount(CharSequence text, int field) {
+        if (!trimPlain(text, field)) {
+            return Money.parse(fieldString(text, field));
+        }
+        try {
+            return Money.ofCents(Money.parseCents(text, fieldStart[field], fieldEnd[field]));
+        } catch (NumberFormatException e) {
+            // Sonderschreibweisen wie "1.0E+7" über den langsamen Weg
+            return Money.parse(text.subSequence(fieldStart[field], fieldEnd[field]).toString());
+        }
+    }
+
+    private TransactionType parseType(CharSequence text, int field) {
+        if (trimPlain(text, field)) {
+            for (TransactionType type : TYPES) {
+                if (regionEquals(text, fieldStart[field], fieldEnd[field], type.name())) return type;
+            }
+        }
+        return TransactionType.valueOf(fieldString(text, field));
+    }
+
+    private LocalDate parseDate(CharSequence text, int field) {
+        if (trimPlain(text, field) && fieldEnd[field] - fieldStart[field] == 10) {
+            int s = fieldStart[field];
+            if (text.charAt(s + 4) == '-' && text.charAt(s + 7) == '-') {
+                int year = digits(text, s, s + 4);
+                int month = digits(text, s + 5, s + 7);
+                int day = digits(text, s + 8, s + 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+        }
+        return LocalDate.parse(fieldString(text, field), DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private String category(CharSequence text, int field) {
+        if (!trimPlain(text, field)) {
+            return fieldString(text, field);
+        }
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        int hash = 0;
+        for (int i = s; i < e; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int bucket = (hash ^ (hash >>> 16)) & (CATEGORY_CACHE_SIZE - 1);
+        String cached = cachedNames[bucket];
+        if (cached != null && regionEquals(text, s, e, cached)) {
+            return cached;
+        }
+        String name = text.subSequence(s, e).toString();
+        cachedNames[bucket] = name;
+        return name;
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, String value) {
+        if (end - start != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(start + i) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -2,45 +2,88 @@ package de.euerteam.budgetplanner.persistence;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.math.BigDecimal;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import de.euerteam.budgetplanner.model.Transaction;
-import de.euerteam.budgetplanner.model.TransactionType;
 
 public class CsvPersistence {
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
     
     // CSV Header
     private static final String HEADER = "ID;Description;Amount;Type;Date;Category";
 
+    // Standard-Blockgröße für den blockweisen Import
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    // Abschnittsgröße in Bytes für den parallelen Import
+    private static final int PARALLEL_CHUNK_SIZE = 8 * 1024 * 1024;
+    // Alle so viele Zeilen meldet der Export seinen Fortschritt und prüft auf Abbruch
+    private static final int EXPORT_PROGRESS_INTERVAL = 4096;
+    // Ein Zeilen-Parser pro Thread, damit seine Puffer wiederverwendet werden können
+    private static final ThreadLocal<CsvLineParser> PARSER = ThreadLocal.withInitial(CsvLineParser::new);
+
     /**
      *  Exportiert Transaktionen in eine CSV-Datei
      */
-    public static void exportToCSV(List<Transaction> transactions, String filePath) throws IOException {
-        try (PrintWriter writer = new PrintWriter(
-                new OutputStreamWriter(
-                        new FileOutputStream(filePath),
-                        StandardCharsets.UTF_8))) {
-            
+    public static void exportToCSV(Iterable<Transaction> transactions, String filePath) throws IOException {
+        exportToCSV(transactions, filePath, CsvProgress.NONE);
+    }
+
+    /**
+     * Exportiert Transaktionen in eine CSV-Datei und meldet den Fortschritt.
+     * Wird der Thread unterbrochen, bricht der Export mit einer {@link InterruptedIOException} ab;
+     * die Datei ist dann unvollständig.
+     */
+    public static void exportToCSV(Iterable<Transaction> transactions, String filePath, CsvProgress progress)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            export(transactions, channel, progress);
+        }
+    }
+
+    /**
+     * Exportiert Transaktionen als CSV in einen Stream. Der Stream wird nicht geschlossen.
+     */
+    public static void exportToCSV(Iterable<Transaction> transactions, OutputStream out) throws IOException {
+        export(transactions, new NonClosingChannel(Channels.newChannel(out)), CsvProgress.NONE);
+        out.flush();
+    }
+
+    private static void export(Iterable<Transaction> transactions, WritableByteChannel channel, CsvProgress progress)
+            throws IOException {
+        try (CsvWriter writer = new CsvWriter(channel)) {
             // Schreibe Header
-            writer.println(HEADER);
-            
+            writer.writeLine(HEADER);
+
             // Schreibe Transaktionen
+            long rows = 0;
             for (Transaction transaction : transactions) {
-                String line = formatTransactionForCSV(transaction);
-                writer.println(line);
+                writer.write(transaction);
+                if (++rows % EXPORT_PROGRESS_INTERVAL == 0) {
+                    checkInterrupted();
+                    progress.update(rows, writer.bytesWritten(), -1);
+                }
             }
+            progress.update(rows, writer.bytesWritten(), -1);
         }
     }
 
@@ -49,106 +92,285 @@ public class CsvPersistence {
      */
     public static List<Transaction> importFromCSV(String filePath) throws IOException {
         List<Transaction> transactions = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(
-                        new FileInputStream(filePath),
-                        StandardCharsets.UTF_8))) {
-            
-            String line;
-            boolean isFirstLine = true;
-            
-            while ((line = reader.readLine()) != null) {
-                // Überspringe Header
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                
-                try {
-                    Transaction transaction = parseTransactionFromCSV(line);
-                    transactions.add(transaction);
-                } catch (Exception e) {
-                    System.err.println("Fehler beim Parsing der Zeile: " + line);
-                    System.err.println("Grund: " + e.getMessage());
-                }
+        importFromCSV(filePath, DEFAULT_BATCH_SIZE, transactions::addAll);
+        return transactions;
+    }
+
+    /**
+     * Importiert Transaktionen aus einer CSV-Datei und übergibt sie blockweise an den Consumer,
+     * ohne die ganze Datei im Speicher zu halten. Die übergebene Liste wird danach
+     * wiederverwendet und darf nicht aufbewahrt werden.
+     *
+     * @return Anzahl der gelesenen Transaktionen
+     */
+    public static int importFromCSV(String filePath, int batchSize, Consumer<List<Transaction>> batchConsumer)
+            throws IOException {
+        try (BufferedReader reader = openReader(filePath)) {
+            return importFromCSV(reader, batchSize, batchConsumer);
+        }
+    }
+
+    /**
+     * Wie {@link #importFromCSV(String, int, Consumer)}, liest aber aus einem bereits geöffneten Reader.
+     */
+    public static int importFromCSV(BufferedReader reader, int batchSize, Consumer<List<Transaction>> batchConsumer)
+            throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batchgröße muss positiv sein: " + batchSize);
+        }
+        List<Transaction> batch = new ArrayList<>(batchSize);
+        int count = 0;
+
+        String line;
+        boolean isFirstLine = true;
+
+        while ((line = reader.readLine()) != null) {
+            // Überspringe Header
+            if (isFirstLine) {
+                isFirstLine = false;
+                continue;
+            }
+
+            Transaction transaction = parseLine(line);
+            if (transaction == null) {
+                continue;
+            }
+            batch.add(transaction);
+            count++;
+            if (batch.size() == batchSize) {
+                batchConsumer.accept(batch);
+                batch.clear();
             }
         }
-        
-        return transactions;
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return count;
     }
 
     /**
-     * Formatiert eine Transaktion als CSV-Zeile
+     * Liefert die Transaktionen einer CSV-Datei als Stream, der die Datei Zeile für Zeile liest.
+     * Der Stream muss geschlossen werden (try-with-resources), damit die Datei freigegeben wird.
      */
-    private static String formatTransactionForCSV(Transaction transaction) {
-        return String.format("%s;%s;%s;%s;%s;%s",
-                transaction.getId(),
-                escapeCSVField(transaction.getDescription()),
-                transaction.getAmount(),
-                transaction.getType(),
-                transaction.getDate().format(DATE_FORMATTER),
-                escapeCSVField(transaction.getCategory())
-        );
+    public static Stream<Transaction> streamFromCSV(String filePath) throws IOException {
+        BufferedReader reader = openReader(filePath);
+        try {
+            return reader.lines()
+                    .skip(1)
+                    .map(CsvPersistence::parseLine)
+                    .filter(Objects::nonNull)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
     }
 
     /**
-     * Parst eine CSV-Zeile zu einer Transaktion
+     * Importiert eine CSV-Datei parallel: Die Datei wird per Memory-Mapping gelesen, an
+     * Zeilenumbrüchen in Abschnitte geteilt und die Abschnitte im Fork-Join-Pool geparst.
+     * Der Consumer erhält die Ergebnisse der Abschnitte im aufrufenden Thread und in
+     * Dateireihenfolge. Es sind höchstens einige Abschnitte gleichzeitig im Speicher.
+     *
+     * Datensätze enden wie bei {@link #importFromCSV(String)} an jedem Zeilenumbruch.
+     *
+     * @return Anzahl der gelesenen Transaktionen
      */
-    private static Transaction parseTransactionFromCSV(String line) {
-        String[] parts = parseCSVLine(line);
-        
-        if (parts.length < 6) {
-            throw new IllegalArgumentException("Ungültige CSV-Zeile: Zu wenige Felder");
-        }
-        
-        UUID id = UUID.fromString(parts[0].trim());
-        String description = parts[1].trim();
-        BigDecimal amount = new BigDecimal(parts[2].trim());
-        TransactionType type = TransactionType.valueOf(parts[3].trim());
-        LocalDate date = LocalDate.parse(parts[4].trim(), DATE_FORMATTER);
-        String category = parts[5].trim();
-        
-        return new Transaction(id, description, amount, type, date, category);
+    public static int importFromCSVParallel(String filePath, Consumer<List<Transaction>> chunkConsumer)
+            throws IOException {
+        return importFromCSVParallel(filePath, chunkConsumer, CsvProgress.NONE);
     }
 
     /**
-     * Parst eine CSV-Zeile unter Beachtung von Anführungszeichen
+     * Wie {@link #importFromCSVParallel(String, Consumer)}, meldet aber nach jedem Abschnitt
+     * den Fortschritt. Wird der aufrufende Thread unterbrochen, bricht der Import vor dem
+     * nächsten Abschnitt mit einer {@link InterruptedIOException} ab.
      */
-    private static String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder field = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ';' && !inQuotes) {
-                fields.add(field.toString());
-                field = new StringBuilder();
+    public static int importFromCSVParallel(String filePath, Consumer<List<Transaction>> chunkConsumer,
+            CsvProgress progress) throws IOException {
+        return importFromCSVParallel(Path.of(filePath), PARALLEL_CHUNK_SIZE, ForkJoinPool.commonPool(),
+                chunkConsumer, progress);
+    }
+
+    static int importFromCSVParallel(Path file, int chunkSize, ForkJoinPool pool,
+            Consumer<List<Transaction>> chunkConsumer) throws IOException {
+        return importFromCSVParallel(file, chunkSize, pool, chunkConsumer, CsvProgress.NONE);
+    }
+
+    static int importFromCSVParallel(Path file, int chunkSize, ForkJoinPool pool,
+            Consumer<List<Transaction>> chunkConsumer, CsvProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, chunkSize);
+            long totalBytes = bounds[bounds.length - 1];
+            int consumed = 0;
+            int chunkCount = bounds.length - 1;
+            // Nur ein begrenztes Fenster an Abschnitten gleichzeitig parsen, damit der Speicher
+            // unabhängig von der Dateigröße bleibt
+            int window = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<ForkJoinTask<List<Transaction>>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            int count = 0;
+            try {
+                while (next < chunkCount || !inFlight.isEmpty()) {
+                    // Vor dem Mappen prüfen: ein unterbrochener Thread würde sonst den Channel schließen
+                    checkInterrupted();
+                    while (next < chunkCount && inFlight.size() < window) {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                bounds[next], bounds[next + 1] - bounds[next]);
+                        boolean skipHeader = next == 0;
+                        inFlight.add(pool.submit(() -> parseChunk(buffer, skipHeader)));
+                        next++;
+                    }
+                    List<Transaction> chunk = inFlight.poll().join();
+                    count += chunk.size();
+                    if (!chunk.isEmpty()) {
+                        chunkConsumer.accept(chunk);
+                    }
+                    consumed++;
+                    progress.update(count, bounds[consumed], totalBytes);
+                }
+            } finally {
+                for (ForkJoinTask<?> task : inFlight) {
+                    task.cancel(false);
+                }
+            }
+            return count;
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("CSV-Verarbeitung abgebrochen");
+        }
+    }
+
+    /**
+     * Bestimmt die Abschnittsgrenzen: jede Grenze liegt direkt hinter einem '\n'. Da '\n'
+     * in UTF-8 nie Teil eines Mehrbyte-Zeichens ist, wird kein Zeichen zerschnitten.
+     */
+    private static long[] chunkBounds(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long position = 0;
+        while (position + chunkSize < size) {
+            long boundary = nextLineStart(channel, position + chunkSize, probe);
+            if (boundary >= size) break;
+            bounds.add(boundary);
+            position = boundary;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long position = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    private static List<Transaction> parseChunk(MappedByteBuffer buffer, boolean skipHeader) {
+        String text = StandardCharsets.UTF_8.decode(buffer).toString();
+        List<Transaction> transactions = new ArrayList<>();
+        int start = 0;
+        boolean isFirstLine = skipHeader;
+        int length = text.length();
+        while (start < length) {
+            // Zeilenenden wie BufferedReader.readLine(): \n, \r oder \r\n
+            int end = start;
+            while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+                end++;
+            }
+            if (isFirstLine) {
+                isFirstLine = false;
             } else {
-                field.append(c);
+                Transaction transaction = parseLine(text, start, end);
+                if (transaction != null) {
+                    transactions.add(transaction);
+                }
+            }
+            if (end < length && text.charAt(end) == '\r' && end + 1 < length && text.charAt(end + 1) == '\n') {
+                end++;
             }
+            start = end + 1;
         }
-        
-        fields.add(field.toString());
-        return fields.toArray(new String[0]);
+        return transactions;
+    }
+
+    private static BufferedReader openReader(String filePath) throws IOException {
+        return new BufferedReader(
+                new InputStreamReader(
+                        new FileInputStream(filePath),
+                        StandardCharsets.UTF_8));
     }
 
     /**
-     * Escaped CSV-Felder mit Semikolon oder Anführungszeichen
+     * Parst eine Datenzeile; leere und fehlerhafte Zeilen ergeben null.
      */
-    private static String escapeCSVField(String field) {
-        if (field.contains(";") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    private static Transaction parseLine(String line) {
+        return parseLine(line, 0, line.length());
+    }
+
+    private static Transaction parseLine(CharSequence text, int start, int end) {
+        if (isBlank(text, start, end)) {
+            return null;
+        }
+        try {
+            return PARSER.get().parse(text, start, end);
+        } catch (Exception e) {
+            System.err.println("Fehler beim Parsing der Zeile: " + text.subSequence(start, end));
+            System.err.println("Grund: " + e.getMessage());
+            return null;
         }
-        return field;
     }
-}
 
+    private static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reicht Schreibzugriffe durch, schließt aber den darunterliegenden Stream nicht.
+     */
+    private static final class NonClosingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+
+        NonClosingChannel(WritableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
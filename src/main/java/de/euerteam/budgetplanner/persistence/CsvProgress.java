@@ -0,0 +1,17 @@
+package de.euerteam.budgetplanner.persistence;
+
+/**
+ * Fortschritt eines CSV-Imports oder -Exports. Wird im arbeitenden Thread aufgerufen,
+ * beim Import nach jedem Abschnitt, beim Export alle paar tausend Zeilen und am Ende.
+ */
+@FunctionalInterface
+public interface CsvProgress {
+    CsvProgress NONE = (rows, bytes, totalBytes) -> { };
+
+    /**
+     * @param rows bisher verarbeitete Transaktionen
+     * @param bytes bisher gelesene bzw. geschriebene Bytes
+     * @param totalBytes Größe der Datei beim Import, -1 beim Export
+     */
+    void update(long rows, long bytes, long totalBytes);
+}
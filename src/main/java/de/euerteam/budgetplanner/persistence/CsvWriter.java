@@ -0,0 +1,218 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.Transaction;
+
+/**
+ * Schreibt Transaktionen als CSV direkt als UTF-8 in einen wiederverwendeten Byte-Puffer,
+ * der blockweise in einen Channel geleert wird. Pro Zeile entstehen keine Strings;
+ * Format und Escaping entsprechen dem bisherigen String.format-Export.
+ *
+ * Nicht threadsicher.
+ */
+final class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+    private int position;
+    private long flushed;
+
+    CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    void writeLine(String line) throws IOException {
+        writeText(line);
+        newLine();
+    }
+
+    void write(Transaction transaction) throws IOException {
+        writeUuid(transaction.getId());
+        writeByte(';');
+        writeField(transaction.getDescription());
+        writeByte(';');
+        writeAmount(transaction.getAmountCents());
+        writeByte(';');
+        writeText(transaction.getType().name());
+        writeByte(';');
+        writeDate(transaction.getDate());
+        writeByte(';');
+        writeField(transaction.getCategory());
+        newLine();
+    }
+
+    void flush() throws IOException {
+        byteBuffer.clear().limit(position);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        flushed += position;
+        position = 0;
+    }
+
+    /** Anzahl bisher geschriebener Bytes, einschließlich des noch gepufferten Teils. */
+    long bytesWritten() {
+        return flushed + position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Felder mit Semikolon, Anführungszeichen oder Zeilenumbruch werden
+     * in Anführungszeichen gesetzt, enthaltene Anführungszeichen verdoppelt.
+     */
+    private void writeField(String field) throws IOException {
+        if (field == null) return;
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ';' || c == '"' || c == '\n';
+        }
+        if (!quote) {
+            writeText(field);
+            return;
+        }
+        writeByte('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') writeByte('"');
+            i = writeChar(field, i);
+        }
+        writeByte('"');
+    }
+
+    private void writeText(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            i = writeChar(text, i);
+        }
+    }
+
+    /**
+     * Kodiert das Zeichen an Position i als UTF-8 und liefert den Index des letzten
+     * verbrauchten Zeichens (bei Surrogatpaaren i + 1). Ungepaarte Surrogate werden wie
+     * beim Standard-Encoder durch '?' ersetzt.
+     */
+    private int writeChar(String text, int i) throws IOException {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            writeByte(c);
+        } else if (c < 0x800) {
+            ensure(2);
+            buffer[position++] = (byte) (0xC0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, text.charAt(i + 1));
+            ensure(4);
+            buffer[position++] = (byte) (0xF0 | cp >> 18);
+            buffer[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            buffer[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | cp & 0x3F);
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            writeByte('?');
+        } else {
+            ensure(3);
+            buffer[position++] = (byte) (0xE0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return i;
+    }
+
+    private void writeUuid(UUID id) throws IOException {
+        ensure(36);
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        writeHex(msb >>> 32, 8);
+        buffer[position++] = '-';
+        writeHex(msb >>> 16, 4);
+        buffer[position++] = '-';
+        writeHex(msb, 4);
+        buffer[position++] = '-';
+        writeHex(lsb >>> 48, 4);
+        buffer[position++] = '-';
+        writeHex(lsb, 12);
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        position += digits;
+    }
+
+    /** Wie Money.toPlainString(), z.B. "-1234.56". */
+    private void writeAmount(long cents) throws IOException {
+        ensure(24);
+        if (cents < 0) buffer[position++] = '-';
+        long abs = Math.abs(cents);
+        writeDigits(abs / 100, 1);
+        buffer[position++] = '.';
+        writeDigits(abs % 100, 2);
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            // ISO-Sonderformate wie "+10000-01-01" über den Formatter
+            writeText(date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+            return;
+        }
+        ensure(10);
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(date.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(date.getDayOfMonth(), 2);
+    }
+
+    /** Schreibt eine nicht negative Zahl mit mindestens minDigits Stellen; Platz muss reserviert sein. */
+    private void writeDigits(long value, int minDigits) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void newLine() throws IOException {
+        ensure(LINE_SEPARATOR.length);
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, position, LINE_SEPARATOR.length);
+        position += LINE_SEPARATOR.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package de.euerteam.budgetplanner.persistence;
+
+/**
+ * Abfragen, die ein {@link TransactionRepository} über einen Index beantworten kann,
+ * statt alle Slots zu durchlaufen.
+ */
+public enum IndexedQuery {
+    /** Zugriff über die Transaktions-ID. */
+    BY_ID,
+    /** Alle Transaktionen eines Monats. */
+    BY_MONTH,
+    /** Alle Transaktionen einer Kategorie. */
+    BY_CATEGORY,
+    /** Teilstring-Suche in Beschreibung und Kategorie. */
+    TEXT
+}
@@ -0,0 +1,293 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.service.CategoryManager;
+import de.euerteam.budgetplanner.service.TransactionListener;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Dauerhafte Ablage des Haushaltsbuchs in einem Verzeichnis: ein {@link SnapshotPersistence Snapshot}
+ * plus ein {@link TransactionJournal Journal} aller Änderungen seitdem.
+ *
+ * Beim Öffnen wird der Snapshot geladen und das Journal darauf wiederholt. Wird das Journal
+ * zu groß, wird es in ledger.journal.old umbenannt und im Hintergrund ein neuer Snapshot
+ * geschrieben; danach wird die alte Datei gelöscht. Stürzt das Programm dazwischen ab, werden
+ * beim nächsten Start beide Journale wiederholt. Das ist unschädlich, weil jeder Eintrag
+ * einen Zustand setzt statt ihn zu verändern; ein Umbenennen, dessen Ziel es schon gibt,
+ * führt die Kategorien zusammen.
+ *
+ * Schlägt ein Snapshot fehl, bleibt ledger.journal.old liegen und der Fehler geht an den
+ * {@link #setFailureListener Fehler-Listener}. Nach einer wachsenden Wartezeit versucht es die
+ * nächste Änderung erneut; das laufende Journal wird dabei an ledger.journal.old angehängt,
+ * sodass nach dem Snapshot keines mehr übrig ist, das er schon enthält. Scheitert schon das
+ * Rotieren, gilt dieselbe Wartezeit.
+ *
+ * Kann das Journal nicht mehr geschrieben werden, wird das einmal gemeldet; die Änderungen
+ * sind dann erst mit dem Snapshot beim Schließen gesichert.
+ *
+ * Liegen die Buchungen in einem persistenten Speicher (Datei-Speicher), enthält der Snapshot
+ * nur Budgets, Daueraufträge und Kategorien. Der Speicher wird vor jedem Rotieren des Journals
+ * und beim Schließen auf die Platte geschrieben, sodass das Journal danach entfallen kann.
+ */
+public class LedgerStorage implements Closeable {
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 32L * 1024 * 1024;
+    private static final long INITIAL_RETRY_DELAY = TimeUnit.SECONDS.toNanos(30);
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toNanos(30);
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path rotatedJournalFile;
+    private final TransactionService transactionService;
+    private final CategoryManager categoryManager;
+    private final TransactionJournal journal;
+    private final CompactionTrigger compactionTrigger = new CompactionTrigger();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long compactionThreshold;
+    private volatile boolean compacting;
+    // Nach einem fehlgeschlagenen Snapshot: frühester Zeitpunkt (System.nanoTime) für den nächsten Versuch
+    private volatile boolean retryPending;
+    private volatile long retryAt;
+    // Geschützt durch this; gesetzt im Compaction-Thread oder, wenn schon das Rotieren scheitert, im Aufrufer
+    private long retryDelay = INITIAL_RETRY_DELAY;
+    private volatile Consumer<IOException> failureListener =
+            e -> System.err.println("Snapshot konnte nicht geschrieben werden: " + e.getMessage());
+
+    private LedgerStorage(Path directory, TransactionService transactionService, CategoryManager categoryManager,
+            long compactionThreshold) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("ledger.bpsnap");
+        this.journalFile = directory.resolve("ledger.journal");
+        this.rotatedJournalFile = directory.resolve("ledger.journal.old");
+        this.transactionService = transactionService;
+        this.categoryManager = categoryManager;
+        this.compactionThreshold = compactionThreshold;
+
+        if (Files.exists(snapshotFile)) {
+            SnapshotPersistence.load(snapshotFile, transactionService, categoryManager);
+        }
+        boolean unfinishedCompaction = Files.exists(rotatedJournalFile);
+        if (unfinishedCompaction) {
+            TransactionJournal.replay(rotatedJournalFile, transactionService, categoryManager);
+        }
+        this.journal = TransactionJournal.open(journalFile, transactionService, categoryManager);
+        if (unfinishedCompaction) {
+            // Den abgebrochenen Snapshot nachholen, damit das alte Journal wegfallen kann
+            transactionService.forceStore();
+            SnapshotPersistence.save(snapshotFile, transactionService, categoryManager);
+            Files.delete(rotatedJournalFile);
+        }
+        journal.setFailureListener(e -> failureListener.accept(new IOException(
+                "Journal konnte nicht geschrieben werden, Änderungen werden erst beim Beenden gesichert: "
+                        + e.getMessage(), e)));
+        transactionService.addListener(journal);
+        transactionService.addListener(compactionTrigger);
+        categoryManager.addChangeListener(journal);
+        // Nach dem Journal, damit der neue Eintrag schon mitzählt
+        categoryManager.addChangeListener(compactionTrigger);
+    }
+
+    public static LedgerStorage open(Path directory, TransactionService transactionService,
+            CategoryManager categoryManager) throws IOException {
+        return new LedgerStorage(directory, transactionService, categoryManager, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    static LedgerStorage open(Path directory, TransactionService transactionService,
+            CategoryManager categoryManager, long compactionThreshold) throws IOException {
+        return new LedgerStorage(directory, transactionService, categoryManager, compactionThreshold);
+    }
+
+    /**
+     * Empfängt Fehler beim Schreiben eines Snapshots oder Rotieren des Journals, im Thread,
+     * in dem sie auftreten. Ohne Listener werden sie auf System.err ausgegeben.
+     */
+    public void setFailureListener(Consumer<IOException> listener) {
+        this.failureListener = listener;
+    }
+
+    /**
+     * Schreibt einen neuen Snapshot im Hintergrund und beginnt ein leeres Journal.
+     * Muss im Thread aufgerufen werden, der den Service verändert.
+     *
+     * Liegt noch das alte Journal eines fehlgeschlagenen Snapshots, wird das laufende daran
+     * angehängt; der Snapshot ersetzt dann beide.
+     */
+    public void compact() throws IOException {
+        if (compacting) return;
+        boolean inStore = transactionService.isStorePersistent();
+        if (inStore) {
+            // Alles bis hier steht danach im Speicher; das rotierte Journal wird dafür nicht mehr gebraucht
+            transactionService.forceStore();
+        }
+        // Stand jetzt festhalten; die Buchungen werden erst im Hintergrund gelesen
+        List<Transaction> transactions = inStore ? List.of() : transactionService.getTransactionsSnapshot();
+        Map<YearMonth, Map<String, Money>> budgets = transactionService.getAllBudgets();
+        List<RecurrenceRule> rules = new ArrayList<>(transactionService.getRecurrenceRules());
+        List<String> categories = new ArrayList<>(categoryManager.getCategories());
+        journal.rotate(rotatedJournalFile);
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                SnapshotPersistence.save(snapshotFile, transactions, inStore, budgets, rules, categories);
+                Files.delete(rotatedJournalFile);
+                synchronized (this) {
+                    retryPending = false;
+                    retryDelay = INITIAL_RETRY_DELAY;
+                }
+            } catch (IOException e) {
+                retryLater(new IOException("Snapshot konnte nicht geschrieben werden, es wird später erneut versucht: "
+                        + e.getMessage(), e));
+            } finally {
+                compacting = false;
+            }
+        });
+    }
+
+    /** Wartet, bis ein laufender Snapshot fertig ist. */
+    void awaitCompaction() throws IOException {
+        try {
+            compactor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Warten auf den Snapshot unterbrochen", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** Wartet, bis alle bisherigen Änderungen dauerhaft im Journal stehen. */
+    public void flush() throws IOException {
+        journal.flush();
+    }
+
+    /**
+     * Schreibt einen vollständigen Snapshot und leert das Journal. Ein persistenter Speicher
+     * wird dabei auf die Platte geschrieben, aber nicht geschlossen; das übernimmt sein Besitzer.
+     */
+    @Override
+    public void close() throws IOException {
+        transactionService.removeListener(compactionTrigger);
+        transactionService.removeListener(journal);
+        categoryManager.removeChangeListener(journal);
+        categoryManager.removeChangeListener(compactionTrigger);
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException journalFailure = null;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            // Der Snapshot sichert auch, was das Journal nicht mehr schreiben konnte
+            journalFailure = e;
+        }
+        try {
+            transactionService.forceStore();
+            SnapshotPersistence.save(snapshotFile, transactionService, categoryManager);
+        } catch (IOException e) {
+            if (journalFailure != null) e.addSuppressed(journalFailure);
+            throw e;
+        }
+        Files.deleteIfExists(rotatedJournalFile);
+        Files.deleteIfExists(journalFile);
+    }
+
+    private void compactIfNeeded() {
+        if (compacting || journal.size() < compactionThreshold) return;
+        if (retryPending && System.nanoTime() - retryAt < 0) return;
+        try {
+            compact();
+        } catch (IOException e) {
+            retryLater(e);
+        }
+    }
+
+    /** Verschiebt den nächsten Versuch um eine wachsende Wartezeit und meldet den Fehler. */
+    private void retryLater(IOException e) {
+        synchronized (this) {
+            retryAt = System.nanoTime() + retryDelay;
+            retryPending = true;
+            retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+        }
+        failureListener.accept(e);
+    }
+
+    /** Prüft nach jeder Änderung, die das Journal festhält, ob ein Snapshot fällig ist. */
+    private final class CompactionTrigger implements TransactionListener, CategoryManager.ChangeListener {
+        @Override
+        public void transactionAdded(Transaction transaction) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void transactionsAdded(List<Transaction> transactions) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void transactionRemoved(Transaction transaction) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void budgetChanged(YearMonth month, String category, Money budget) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void transactionsCleared() {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void budgetsCleared() {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void recurrenceRuleChanged(RecurrenceRule rule) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void recurrenceRuleRemoved(RecurrenceRule rule) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void categoriesChanged(List<String> categories) {
+            compactIfNeeded();
+        }
+
+        @Override
+        public void categoryRenamed(String oldName, String newName) {
+            compactIfNeeded();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Transaction;
+
+/**
+ * Einfacher Speicher: eine Liste von Transaction-Objekten mit ID-Index.
+ * Ohne weitere Indizes braucht er am wenigsten Speicher und reicht für kleine Haushaltsbücher.
+ */
+public class ListTransactionRepository implements TransactionRepository {
+    private final CategoryDictionary categories;
+    // Gelöschte Einträge bleiben bis zum nächsten Kompaktieren als null stehen
+    private final List<Transaction> transactions = new ArrayList<>();
+    // Kategorie-ID je Slot; nach einem Umbenennen wird die Transaktion beim Lesen angepasst
+    private int[] categoryIds = new int[16];
+    private final Map<UUID, Integer> slotById = new HashMap<>();
+
+    public ListTransactionRepository() {
+        this(new CategoryDictionary());
+    }
+
+    public ListTransactionRepository(CategoryDictionary categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        int slot = transactions.size();
+        transactions.add(transaction);
+        if (slot == categoryIds.length) categoryIds = Arrays.copyOf(categoryIds, slot * 2);
+        categoryIds[slot] = categories.idOf(transaction.getCategory());
+        slotById.put(transaction.getId(), slot);
+        return slot;
+    }
+
+    @Override
+    public void set(int slot, Transaction transaction) {
+        transactions.set(slot, transaction);
+        categoryIds[slot] = categories.idOf(transaction.getCategory());
+    }
+
+    @Override
+    public void remove(int slot) {
+        Transaction old = transactions.set(slot, null);
+        if (old != null) {
+            slotById.remove(old.getId());
+        }
+    }
+
+    @Override
+    public Transaction get(int slot) {
+        Transaction t = transactions.get(slot);
+        if (t == null) return null;
+        String category = categories.nameOf(categoryIds[slot]);
+        if (!Objects.equals(category, t.getCategory())) {
+            t = t.withCategory(category);
+            transactions.set(slot, t);
+        }
+        return t;
+    }
+
+    @Override
+    public int findSlot(UUID id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public CategoryDictionary categories() {
+        return categories;
+    }
+
+    @Override
+    public int categoryId(int slot) {
+        return categoryIds[slot];
+    }
+
+    /** Kopiert nur die Referenzen; Transaktionen sind unveränderlich. */
+    @Override
+    public List<Transaction> frozenView() {
+        if (slotById.size() != transactions.size()) throw new IllegalStateException("Sicht nur nach compact()");
+        Transaction[] rows = transactions.toArray(new Transaction[0]);
+        int[] ids = Arrays.copyOf(categoryIds, rows.length);
+        String[] names = categories.snapshotNames();
+        return new AbstractList<>() {
+            @Override
+            public Transaction get(int index) {
+                Transaction t = rows[index];
+                String category = ids[index] == CategoryDictionary.NONE ? null : names[ids[index]];
+                return Objects.equals(category, t.getCategory()) ? t : t.withCategory(category);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    @Override
+    public Set<IndexedQuery> indexedQueries() {
+        return EnumSet.of(IndexedQuery.BY_ID);
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return transactions.get(slot) != null;
+    }
+
+    @Override
+    public int slotCount() {
+        return transactions.size();
+    }
+
+    @Override
+    public int size() {
+        return slotById.size();
+    }
+
+    @Override
+    public void compact() {
+        if (slotById.size() == transactions.size()) return;
+        int target = 0;
+        for (int slot = 0; slot < transactions.size(); slot++) {
+            Transaction t = transactions.get(slot);
+            if (t == null) continue;
+            transactions.set(target, t);
+            categoryIds[target] = categoryIds[slot];
+            slotById.put(t.getId(), target);
+            target++;
+        }
+        transactions.subList(target, transactions.size()).clear();
+    }
+
+    @Override
+    public void clear() {
+        transactions.clear();
+        slotById.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datei, die in Segmenten fester Größe in den Speicher gemappt wird und über long-Offsets
+ * adressiert werden kann. Ein einzelner MappedByteBuffer ist auf 2 GB begrenzt; die
+ * Segmentierung hebt diese Grenze auf. Werte dürfen keine Segmentgrenze überschreiten.
+ */
+final class MappedFile implements Closeable {
+    static final int SEGMENT_SHIFT = 26;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    MappedFile(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ensureCapacity(Math.max(channel.size(), 1));
+    }
+
+    /**
+     * Stellt sicher, dass alle Offsets unter {@code bytes} gemappt sind; die Datei wächst dabei.
+     */
+    void ensureCapacity(long bytes) {
+        try {
+            while ((long) segments.size() << SEGMENT_SHIFT < bytes) {
+                long position = (long) segments.size() << SEGMENT_SHIFT;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_SIZE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Speicherdatei konnte nicht vergrößert werden", e);
+        }
+    }
+
+    long getLong(long position) {
+        return segment(position).getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        segment(position).putLong(offset(position), value);
+    }
+
+    int getInt(long position) {
+        return segment(position).getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        segment(position).putInt(offset(position), value);
+    }
+
+    byte get(long position) {
+        return segment(position).get(offset(position));
+    }
+
+    void put(long position, byte value) {
+        segment(position).put(offset(position), value);
+    }
+
+    void get(long position, byte[] target) {
+        segment(position).get(offset(position), target);
+    }
+
+    void put(long position, byte[] source) {
+        segment(position).put(offset(position), source);
+    }
+
+    /** Setzt einen Bereich auf 0; Start und Länge müssen durch 8 teilbar sein. */
+    void zero(long position, long length) {
+        for (long p = position; p < position + length; p += 8) {
+            putLong(p, 0L);
+        }
+    }
+
+    /**
+     * Lesender Zugriff auf die bis jetzt gemappten Segmente, der in einem anderen Thread benutzt
+     * werden darf; spätere Segmente sieht er nicht.
+     */
+    Reader reader() {
+        return new Reader(segments.toArray(new MappedByteBuffer[0]));
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments.get((int) (position >>> SEGMENT_SHIFT));
+    }
+
+    private static int offset(long position) {
+        return (int) (position & SEGMENT_MASK);
+    }
+
+    /** Siehe {@link #reader()}. Liest nur absolut, verändert also keinen Puffer-Zustand. */
+    static final class Reader {
+        private final MappedByteBuffer[] segments;
+
+        private Reader(MappedByteBuffer[] segments) {
+            this.segments = segments;
+        }
+
+        long getLong(long position) {
+            return segment(position).getLong(offset(position));
+        }
+
+        int getInt(long position) {
+            return segment(position).getInt(offset(position));
+        }
+
+        byte get(long position) {
+            return segment(position).get(offset(position));
+        }
+
+        void get(long position, byte[] target) {
+            segment(position).get(offset(position), target);
+        }
+
+        private MappedByteBuffer segment(long position) {
+            return segments[(int) (position >>> SEGMENT_SHIFT)];
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Speicher außerhalb des Java-Heaps in gemappten Dateien. Die Transaktionen liegen als
+ * Datensätze fester Breite in {@code <name>.records}, Beschreibungen und Kategorienamen in
+ * einem String-Heap {@code <name>.strings}, die Kategorie-Tabelle in {@code <name>.categories}
+ * und der ID-Index als offene Hash-Tabelle in {@code <name>.ids}. Die Datenmenge ist damit
+ * nicht durch den Heap begrenzt, der GC sieht nur wenige Puffer-Objekte, und ein erneutes
+ * Öffnen liest nur den Header. Der Speicher ist {@link #isPersistent() persistent}: er ist
+ * beim Öffnen maßgeblich und wird nicht aus einem Snapshot neu befüllt.
+ *
+ * Datensatz (64 Bytes): long UUID-High, long UUID-Low, long Cent, long Beschreibung (Heap-Offset),
+ * long Kategorie (Nummer in der Kategorie-Tabelle, -1 = keine), int Epoch-Day, byte Typ (-1 = gelöscht).
+ *
+ * Die Kategorie-Tabelle hält je Nummer den Heap-Offset des Namens. Ein Umbenennen ändert nur
+ * diesen Eintrag; er wird bei {@link #force()} und {@link #close()} nachgeführt.
+ *
+ * Monats- und Kategorie-Index hält der Service als kleine int-Listen im Heap; die Textsuche
+ * liest dagegen die Beschreibungen direkt aus der Datei, damit kein Index über alle Texte
+ * im Heap entsteht.
+ *
+ * {@link #frozenView()} liest direkt aus den gemappten Dateien, statt die Buchungen in den Heap
+ * zu kopieren. Solange eine Sicht lebt, wird ein Datensatz aus ihrem Bereich vor dem ersten
+ * Überschreiben für sie gesichert; Texte bleiben stehen, weil der String-Heap dann nur wächst.
+ */
+public class MappedTransactionRepository implements TransactionRepository, Closeable {
+    private static final int MAGIC = 0x4250534D; // "BPSM"
+    private static final int VERSION = 2;
+    // Version 1 speicherte im Datensatz den Heap-Offset des Kategorienamens
+    private static final int VERSION_WITH_CATEGORY_OFFSETS = 1;
+    private static final int RECORD_SIZE = 64;
+    private static final long HEADER_SIZE = 64;
+    private static final byte REMOVED = -1;
+    private static final long NO_STRING = -1;
+    private static final int NO_CATEGORY = -1;
+    // Nummer der Kategorie-Tabelle, deren Name noch nicht ins Wörterbuch aufgelöst wurde
+    private static final int UNRESOLVED = -2;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int DESCRIPTION_CACHE_SIZE = 4096;
+
+    // Header-Felder in der Datensatz-Datei
+    private static final long H_MAGIC = 0;
+    private static final long H_VERSION = 4;
+    private static final long H_SLOT_COUNT = 8;
+    private static final long H_SIZE = 16;
+    private static final long H_HEAP_END = 24;
+    private static final long H_ID_CAPACITY = 32;
+    private static final long H_ID_USED = 40;
+    private static final long H_CATEGORY_COUNT = 44;
+
+    private final CategoryDictionary categories;
+    private final MappedFile records;
+    private final MappedFile strings;
+    private final MappedFile ids;
+    private final MappedFile categoryTable;
+
+    private int slotCount;
+    private int size;
+    private long heapEnd;
+    private int idCapacity;
+    private int idUsed;
+    private int categoryCount;
+
+    // Kleine Caches, damit wiederkehrende Texte nur einmal im String-Heap landen
+    private final Map<String, Long> descriptionOffsets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > DESCRIPTION_CACHE_SIZE;
+        }
+    };
+    // Wörterbuch-ID je Nummer der Kategorie-Tabelle und umgekehrt
+    private int[] categoryIdsByNumber = new int[16];
+    private final Map<Integer, Integer> categoryNumbersById = new HashMap<>();
+    // Ausgegebene Sichten; schwach gehalten, damit nach ihrem Ende nichts mehr gesichert wird
+    private final List<WeakReference<FrozenView>> views = new ArrayList<>();
+
+    /**
+     * Öffnet den Speicher unter {@code base} (ohne Endung) oder legt ihn neu an.
+     */
+    public MappedTransactionRepository(Path base) throws IOException {
+        this(base, new CategoryDictionary());
+    }
+
+    public MappedTransactionRepository(Path base, CategoryDictionary categories) throws IOException {
+        this.categories = categories;
+        String name = base.getFileName().toString();
+        records = new MappedFile(base.resolveSibling(name + ".records"));
+        strings = new MappedFile(base.resolveSibling(name + ".strings"));
+        ids = new MappedFile(base.resolveSibling(name + ".ids"));
+        categoryTable = new MappedFile(base.resolveSibling(name + ".categories"));
+
+        if (records.getInt(H_MAGIC) == MAGIC) {
+            int version = records.getInt(H_VERSION);
+            if (version != VERSION && version != VERSION_WITH_CATEGORY_OFFSETS) {
+                close();
+                throw new IOException("Nicht unterstützte Version des Speichers: " + base);
+            }
+            slotCount = (int) records.getLong(H_SLOT_COUNT);
+            size = (int) records.getLong(H_SIZE);
+            heapEnd = records.getLong(H_HEAP_END);
+            idCapacity = records.getInt(H_ID_CAPACITY);
+            idUsed = records.getInt(H_ID_USED);
+            records.ensureCapacity(recordOffset(slotCount));
+            strings.ensureCapacity(heapEnd);
+            ids.ensureCapacity(4L * idCapacity);
+            if (version == VERSION_WITH_CATEGORY_OFFSETS) {
+                migrateCategoryOffsets();
+            } else {
+                categoryCount = records.getInt(H_CATEGORY_COUNT);
+                categoryTable.ensureCapacity(8L * categoryCount);
+            }
+        } else {
+            records.putInt(H_MAGIC, MAGIC);
+            records.putInt(H_VERSION, VERSION);
+            heapEnd = 8;
+            resetIdTable(1024);
+            writeHeader();
+        }
+        categoryIdsByNumber = new int[Math.max(16, categoryCount)];
+        Arrays.fill(categoryIdsByNumber, UNRESOLVED);
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        int slot = slotCount;
+        // Nach clear() oder compact() kann ein neuer Datensatz in den Bereich einer Sicht fallen
+        preserve(slot);
+        records.ensureCapacity(recordOffset(slot + 1));
+        long offset = recordOffset(slot);
+        records.putLong(offset, transaction.getId().getMostSignificantBits());
+        records.putLong(offset + 8, transaction.getId().getLeastSignificantBits());
+        write(slot, transaction);
+        slotCount++;
+        size++;
+        insertId(slot);
+        writeHeader();
+        return slot;
+    }
+
+    @Override
+    public void set(int slot, Transaction transaction) {
+        preserve(slot);
+        write(slot, transaction);
+    }
+
+    @Override
+    public void remove(int slot) {
+        if (!isLive(slot)) return;
+        preserve(slot);
+        deleteId(slot);
+        records.put(recordOffset(slot) + 44, REMOVED);
+        size--;
+        writeHeader();
+    }
+
+    @Override
+    public Transaction get(int slot) {
+        long offset = recordOffset(slot);
+        byte type = records.get(offset + 44);
+        if (type == REMOVED) return null;
+        return new Transaction(
+                new UUID(records.getLong(offset), records.getLong(offset + 8)),
+                readString(records.getLong(offset + 24)),
+                Money.ofCents(records.getLong(offset + 16)),
+                TYPES[type],
+                LocalDate.ofEpochDay(records.getInt(offset + 40)),
+                categories.nameOf(resolveCategory((int) records.getLong(offset + 32))));
+    }
+
+    @Override
+    public int findSlot(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int mask = idCapacity - 1;
+        for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+            int entry = ids.getInt(4L * i);
+            if (entry == 0) return -1;
+            if (entry > 0) {
+                long offset = recordOffset(entry - 1);
+                if (records.getLong(offset) == msb && records.getLong(offset + 8) == lsb) return entry - 1;
+            }
+        }
+    }
+
+    @Override
+    public int epochDay(int slot) {
+        return records.getInt(recordOffset(slot) + 40);
+    }
+
+    @Override
+    public CategoryDictionary categories() {
+        return categories;
+    }
+
+    @Override
+    public int categoryId(int slot) {
+        return resolveCategory((int) records.getLong(recordOffset(slot) + 32));
+    }
+
+    @Override
+    public long amountCents(int slot) {
+        return records.getLong(recordOffset(slot) + 16);
+    }
+
+    @Override
+    public TransactionType type(int slot) {
+        return TYPES[records.get(recordOffset(slot) + 44)];
+    }
+
+    @Override
+    public String description(int slot) {
+        return readString(records.getLong(recordOffset(slot) + 24));
+    }
+
+    /** Liest aus den gemappten Dateien; kopiert nur die Kategorienamen. */
+    @Override
+    public List<Transaction> frozenView() {
+        if (size != slotCount) throw new IllegalStateException("Sicht nur nach compact()");
+        String[] categoryNames = new String[categoryCount];
+        for (int number = 0; number < categoryCount; number++) {
+            categoryNames[number] = categories.nameOf(resolveCategory(number));
+        }
+        FrozenView view = new FrozenView(records.reader(), strings.reader(), categoryNames, slotCount);
+        views.add(new WeakReference<>(view));
+        return view;
+    }
+
+    @Override
+    public Set<IndexedQuery> indexedQueries() {
+        return EnumSet.of(IndexedQuery.BY_ID, IndexedQuery.BY_MONTH, IndexedQuery.BY_CATEGORY);
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return records.get(recordOffset(slot) + 44) != REMOVED;
+    }
+
+    @Override
+    public int slotCount() {
+        return slotCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void compact() {
+        if (size == slotCount) return;
+        byte[] record = new byte[RECORD_SIZE];
+        int target = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!isLive(slot)) continue;
+            if (target != slot) {
+                preserve(target);
+                records.get(recordOffset(slot), record);
+                records.put(recordOffset(target), record);
+            }
+            target++;
+        }
+        slotCount = target;
+        rebuildIdTable(idCapacity);
+        writeHeader();
+    }
+
+    @Override
+    public void clear() {
+        slotCount = 0;
+        size = 0;
+        // Der String-Heap wird nicht geschrumpft, aber ab dem Anfang überschrieben; nicht, solange
+        // eine Sicht seine Texte noch liest
+        if (!hasViews()) heapEnd = 8;
+        descriptionOffsets.clear();
+        categoryCount = 0;
+        Arrays.fill(categoryIdsByNumber, UNRESOLVED);
+        categoryNumbersById.clear();
+        resetIdTable(Math.min(idCapacity, 1024));
+        writeHeader();
+    }
+
+    /** Führt umbenannte Kategorien nach und schreibt alle Änderungen auf die Platte. */
+    @Override
+    public void force() {
+        syncCategoryNames();
+        records.force();
+        strings.force();
+        ids.force();
+        categoryTable.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            syncCategoryNames();
+            records.close();
+        } finally {
+            try {
+                strings.close();
+            } finally {
+                try {
+                    ids.close();
+                } finally {
+                    categoryTable.close();
+                }
+            }
+        }
+    }
+
+    /** Sichert den Datensatz für jede lebende Sicht, die ihn enthält, bevor er überschrieben wird. */
+    private void preserve(int slot) {
+        for (Iterator<WeakReference<FrozenView>> it = views.iterator(); it.hasNext(); ) {
+            FrozenView view = it.next().get();
+            if (view == null) {
+                it.remove();
+            } else {
+                view.preserve(slot);
+            }
+        }
+    }
+
+    private boolean hasViews() {
+        views.removeIf(view -> view.get() == null);
+        return !views.isEmpty();
+    }
+
+    private void write(int slot, Transaction transaction) {
+        long offset = recordOffset(slot);
+        records.putLong(offset + 16, transaction.getAmountCents());
+        records.putLong(offset + 24, descriptionOffset(transaction.getDescription()));
+        records.putLong(offset + 32, categoryNumber(transaction.getCategory()));
+        records.putInt(offset + 40, (int) transaction.getDate().toEpochDay());
+        records.put(offset + 44, (byte) transaction.getType().ordinal());
+    }
+
+    private void writeHeader() {
+        records.putLong(H_SLOT_COUNT, slotCount);
+        records.putLong(H_SIZE, size);
+        records.putLong(H_HEAP_END, heapEnd);
+        records.putInt(H_ID_CAPACITY, idCapacity);
+        records.putInt(H_ID_USED, idUsed);
+        records.putInt(H_CATEGORY_COUNT, categoryCount);
+    }
+
+    private static long recordOffset(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+
+    private long descriptionOffset(String description) {
+        if (description == null) return NO_STRING;
+        Long cached = descriptionOffsets.get(description);
+        if (cached != null) return cached;
+        long offset = appendString(description);
+        descriptionOffsets.put(description, offset);
+        return offset;
+    }
+
+    /**
+     * Nummer der Kategorie in der Tabelle; ein neuer Name bekommt eine neue Nummer. Eine
+     * Nummer, deren ID inzwischen frei und neu vergeben wurde, gehört ohnehin keinem lebenden
+     * Datensatz mehr (der Service zählt jede ID) und wird mit dem neuen Namen weiterverwendet.
+     */
+    private int categoryNumber(String category) {
+        if (category == null) return NO_CATEGORY;
+        int id = categories.idOf(category);
+        Integer known = categoryNumbersById.get(id);
+        if (known != null && categoryIdsByNumber[known] == id) return known;
+        int number = categoryCount;
+        addCategoryEntry(appendString(category));
+        categoryIdsByNumber[number] = id;
+        categoryNumbersById.put(id, number);
+        return number;
+    }
+
+    /**
+     * Löst eine Nummer der Kategorie-Tabelle in eine Wörterbuch-ID auf. Die ID wird je Nummer
+     * gemerkt, sodass ein späteres Umbenennen der Kategorie sofort sichtbar ist.
+     */
+    private int resolveCategory(int number) {
+        if (number == NO_CATEGORY) return CategoryDictionary.NONE;
+        int id = categoryIdsByNumber[number];
+        if (id == UNRESOLVED) {
+            id = categories.idOf(readString(categoryTable.getLong(8L * number)));
+            categoryIdsByNumber[number] = id;
+            categoryNumbersById.putIfAbsent(id, number);
+        }
+        return id;
+    }
+
+    private void addCategoryEntry(long nameOffset) {
+        int number = categoryCount++;
+        if (number == categoryIdsByNumber.length) {
+            categoryIdsByNumber = Arrays.copyOf(categoryIdsByNumber, number * 2);
+            Arrays.fill(categoryIdsByNumber, number, categoryIdsByNumber.length, UNRESOLVED);
+        }
+        categoryTable.ensureCapacity(8L * categoryCount);
+        categoryTable.putLong(8L * number, nameOffset);
+        writeHeader();
+    }
+
+    /**
+     * Schreibt den aktuellen Namen jeder aufgelösten Kategorie in die Tabelle, damit ein
+     * Umbenennen auch nach dem erneuten Öffnen gilt. Der alte Name bleibt als toter Text im Heap.
+     */
+    private void syncCategoryNames() {
+        boolean changed = false;
+        for (int number = 0; number < categoryCount; number++) {
+            int id = categoryIdsByNumber[number];
+            if (id == UNRESOLVED) continue;
+            String name = categories.nameOf(id);
+            if (name == null || name.equals(readString(categoryTable.getLong(8L * number)))) continue;
+            categoryTable.putLong(8L * number, appendString(name));
+            changed = true;
+        }
+        if (changed) writeHeader();
+    }
+
+    /**
+     * Version 1 hatte im Datensatz den Heap-Offset des Namens. Jeder Offset wird zu einem Eintrag
+     * der Kategorie-Tabelle; die Texte bleiben, wo sie sind.
+     */
+    private void migrateCategoryOffsets() {
+        Map<Long, Integer> numbersByOffset = new HashMap<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            long position = recordOffset(slot) + 32;
+            long nameOffset = records.getLong(position);
+            if (nameOffset == NO_STRING) continue;
+            Integer number = numbersByOffset.get(nameOffset);
+            if (number == null) {
+                number = categoryCount;
+                numbersByOffset.put(nameOffset, number);
+                addCategoryEntry(nameOffset);
+            }
+            records.putLong(position, number);
+        }
+        records.putInt(H_VERSION, VERSION);
+        writeHeader();
+    }
+
+    /**
+     * Hängt einen Text (int Länge + UTF-8) an den String-Heap an. Texte überschreiten nie
+     * eine Segmentgrenze; passt einer nicht mehr ins aktuelle Segment, beginnt er im nächsten.
+     */
+    private long appendString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long length = 4L + bytes.length;
+        if (length > MappedFile.SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Text zu lang für den Speicher: " + bytes.length + " Bytes");
+        }
+        long offset = heapEnd;
+        if ((offset >>> MappedFile.SEGMENT_SHIFT) != ((offset + length - 1) >>> MappedFile.SEGMENT_SHIFT)) {
+            offset = ((offset >>> MappedFile.SEGMENT_SHIFT) + 1) << MappedFile.SEGMENT_SHIFT;
+        }
+        strings.ensureCapacity(offset + length);
+        strings.putInt(offset, bytes.length);
+        strings.put(offset + 4, bytes);
+        heapEnd = offset + length;
+        return offset;
+    }
+
+    private String readString(long offset) {
+        if (offset == NO_STRING) return null;
+        byte[] bytes = new byte[strings.getInt(offset)];
+        strings.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void insertId(int slot) {
+        // Füllgrad inklusive gelöschter Einträge unter 50 % halten
+        if ((idUsed + 1) * 2 > idCapacity) {
+            // Der Neuaufbau übernimmt auch den gerade angehängten Slot
+            rebuildIdTable(tableSizeFor(size * 2));
+            return;
+        }
+        long offset = recordOffset(slot);
+        int mask = idCapacity - 1;
+        int i = hash(records.getLong(offset), records.getLong(offset + 8)) & mask;
+        while (ids.getInt(4L * i) != 0) {
+            i = (i + 1) & mask;
+        }
+        ids.putInt(4L * i, slot + 1);
+        idUsed++;
+    }
+
+    private void deleteId(int slot) {
+        long offset = recordOffset(slot);
+        int mask = idCapacity - 1;
+        for (int i = hash(records.getLong(offset), records.getLong(offset + 8)) & mask;
+                ids.getInt(4L * i) != 0; i = (i + 1) & mask) {
+            if (ids.getInt(4L * i) == slot + 1) {
+                ids.putInt(4L * i, -1);
+                return;
+            }
+        }
+    }
+
+    /** Baut die Tabelle direkt aus den Datensätzen neu auf; die alte Tabelle wird nicht gelesen. */
+    private void rebuildIdTable(int capacity) {
+        resetIdTable(capacity);
+        int mask = capacity - 1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!isLive(slot)) continue;
+            long offset = recordOffset(slot);
+            int i = hash(records.getLong(offset), records.getLong(offset + 8)) & mask;
+            while (ids.getInt(4L * i) != 0) {
+                i = (i + 1) & mask;
+            }
+            ids.putInt(4L * i, slot + 1);
+            idUsed++;
+        }
+    }
+
+    private void resetIdTable(int capacity) {
+        idCapacity = capacity;
+        idUsed = 0;
+        ids.ensureCapacity(4L * capacity);
+        ids.zero(0, 4L * capacity);
+    }
+
+    private static int tableSizeFor(int entries) {
+        int n = Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+        return Math.max(n, 16);
+    }
+
+    /**
+     * Stand der Datensätze zum Zeitpunkt des Erzeugens. Liest über eigene Segment-Verweise;
+     * ein Datensatz, den der Speicher überschreiben will, wird vorher hier abgelegt. Lesen und
+     * Sichern sind über die Sicht synchronisiert, ein Datensatz wird also nie halb geändert gelesen.
+     */
+    private static final class FrozenView extends AbstractList<Transaction> implements RandomAccess {
+        private final MappedFile.Reader records;
+        private final MappedFile.Reader strings;
+        private final String[] categoryNames;
+        private final int size;
+        private final Map<Integer, Transaction> preserved = new HashMap<>();
+
+        FrozenView(MappedFile.Reader records, MappedFile.Reader strings, String[] categoryNames, int size) {
+            this.records = records;
+            this.strings = strings;
+            this.categoryNames = categoryNames;
+            this.size = size;
+        }
+
+        synchronized void preserve(int slot) {
+            if (slot < size && !preserved.containsKey(slot)) preserved.put(slot, read(slot));
+        }
+
+        @Override
+        public synchronized Transaction get(int index) {
+            Objects.checkIndex(index, size);
+            Transaction saved = preserved.get(index);
+            return saved != null ? saved : read(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private Transaction read(int slot) {
+            long offset = recordOffset(slot);
+            int number = (int) records.getLong(offset + 32);
+            return new Transaction(
+                    new UUID(records.getLong(offset), records.getLong(offset + 8)),
+                    readString(records.getLong(offset + 24)),
+                    Money.ofCents(records.getLong(offset + 16)),
+                    TYPES[records.get(offset + 44)],
+                    LocalDate.ofEpochDay(records.getInt(offset + 40)),
+                    number == NO_CATEGORY ? null : categoryNames[number]);
+        }
+
+        private String readString(long offset) {
+            if (offset == NO_STRING) return null;
+            byte[] bytes = new byte[strings.getInt(offset)];
+            strings.get(offset + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,399 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.CategoryManager;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Binärer Snapshot des gesamten Haushaltsbuchs: Transaktionen, Budgets und Kategorien.
+ *
+ * Aufbau (Big-Endian):
+ * <pre>
+ * Header       int Magic "BPSN", short Version, short Flags (Bit 0: Buchungen liegen im persistenten Speicher)
+ * Strings      int Anzahl, je Eintrag int Länge in Bytes + UTF-8
+ * Kategorien   int Anzahl, je Eintrag int String-Index
+ * Buchungen    int Anzahl, je 40 Bytes: long UUID-High, long UUID-Low, long Cent,
+ *              int Epoch-Day, int Beschreibung, int Kategorie (-1 = keine), byte Typ, 3 Bytes frei
+ * Budgets      int Anzahl, je 16 Bytes: int Monat (Jahr * 12 + Monat - 1), int Kategorie, long Cent
+ * Aufträge     int Anzahl, je 52 Bytes: long UUID-High, long UUID-Low, long Cent, int Start,
+ *              int Ende, int Anzahl, int materialisiert bis (Epoch-Days, fehlend = Integer.MIN_VALUE),
+ *              int Beschreibung, int Kategorie, byte Typ, byte Intervall, 2 Bytes frei (ab Version 2)
+ * Prüfsumme    int CRC32 über alle vorherigen Bytes
+ * </pre>
+ * Bei einem {@link TransactionRepository#isPersistent() persistenten} Speicher enthält der
+ * Snapshot keine Buchungen; sie liegen dort und werden beim Laden nicht angefasst.
+ * Texte stehen nur einmal in der String-Tabelle; die Datensätze haben feste Breite und
+ * werden beim Laden direkt aus einem einzigen, am Stück gelesenen Puffer dekodiert.
+ */
+public class SnapshotPersistence {
+    private static final int MAGIC = 0x4250534E; // "BPSN"
+    private static final short VERSION = 2;
+    // Version 1 kannte noch keine Daueraufträge
+    private static final short VERSION_WITHOUT_RULES = 1;
+    private static final short TRANSACTIONS_IN_STORE = 1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final RecurrenceRule.Frequency[] FREQUENCIES = RecurrenceRule.Frequency.values();
+
+    /**
+     * Speichert den Snapshot. Es wird zuerst in eine temporäre Datei geschrieben und diese
+     * dann ersetzt, damit ein Abbruch keinen halben Snapshot hinterlässt.
+     */
+    public static void save(Path file, TransactionService transactionService, CategoryManager categoryManager)
+            throws IOException {
+        boolean inStore = transactionService.isStorePersistent();
+        save(file, inStore ? List.of() : transactionService.getTransactions(), inStore,
+                transactionService.getAllBudgets(), transactionService.getRecurrenceRules(),
+                categoryManager.getCategories());
+    }
+
+    /**
+     * Speichert einen Snapshot aus bereits kopierten Daten, z.B. in einem Hintergrund-Thread.
+     */
+    public static void save(Path file, List<Transaction> transactions, Map<YearMonth, Map<String, Money>> budgets,
+            Collection<RecurrenceRule> rules, List<String> categories) throws IOException {
+        save(file, transactions, false, budgets, rules, categories);
+    }
+
+    /**
+     * @param transactionsInStore true, wenn die Buchungen im persistenten Speicher liegen;
+     *                            {@code transactions} ist dann leer
+     */
+    public static void save(Path file, List<Transaction> transactions, boolean transactionsInStore,
+            Map<YearMonth, Map<String, Money>> budgets, Collection<RecurrenceRule> rules, List<String> categories)
+            throws IOException {
+        StringTable strings = new StringTable();
+        int[] categoryRefs = new int[categories.size()];
+        for (int i = 0; i < categoryRefs.length; i++) {
+            categoryRefs[i] = strings.indexOf(categories.get(i));
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 BlockWriter out = new BlockWriter(channel)) {
+                out.ensure(8);
+                out.buffer.putInt(MAGIC).putShort(VERSION).putShort(transactionsInStore ? TRANSACTIONS_IN_STORE : 0);
+
+                // Die String-Tabelle steht vorne, wird aber erst beim Durchlauf über die Buchungen
+                // vollständig; deshalb die Verweise vorab sammeln
+                int[] descriptionRefs = new int[transactions.size()];
+                int[] transactionCategoryRefs = new int[transactions.size()];
+                for (int i = 0; i < transactions.size(); i++) {
+                    Transaction t = transactions.get(i);
+                    descriptionRefs[i] = strings.indexOf(t.getDescription());
+                    transactionCategoryRefs[i] = strings.indexOf(t.getCategory());
+                }
+                List<BudgetRecord> budgetRecords = new ArrayList<>();
+                budgets.forEach((month, byCategory) -> byCategory.forEach((category, amount) ->
+                        budgetRecords.add(new BudgetRecord(month, strings.indexOf(category), amount.getCents()))));
+                List<RecurrenceRule> ruleList = new ArrayList<>(rules);
+                int[] ruleDescriptionRefs = new int[ruleList.size()];
+                int[] ruleCategoryRefs = new int[ruleList.size()];
+                for (int i = 0; i < ruleList.size(); i++) {
+                    ruleDescriptionRefs[i] = strings.indexOf(ruleList.get(i).getDescription());
+                    ruleCategoryRefs[i] = strings.indexOf(ruleList.get(i).getCategory());
+                }
+
+                out.ensure(4);
+                out.buffer.putInt(strings.values.size());
+                for (String value : strings.values) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.ensure(4);
+                    out.buffer.putInt(bytes.length);
+                    out.put(bytes);
+                }
+
+                out.ensure(4);
+                out.buffer.putInt(categoryRefs.length);
+                for (int ref : categoryRefs) {
+                    out.ensure(4);
+                    out.buffer.putInt(ref);
+                }
+
+                out.ensure(4);
+                out.buffer.putInt(transactions.size());
+                for (int i = 0; i < transactions.size(); i++) {
+                    Transaction t = transactions.get(i);
+                    out.ensure(40);
+                    out.buffer.putLong(t.getId().getMostSignificantBits())
+                            .putLong(t.getId().getLeastSignificantBits())
+                            .putLong(t.getAmountCents())
+                            .putInt((int) t.getDate().toEpochDay())
+                            .putInt(descriptionRefs[i])
+                            .putInt(transactionCategoryRefs[i])
+                            .put((byte) t.getType().ordinal())
+                            .put((byte) 0).put((byte) 0).put((byte) 0);
+                }
+
+                out.ensure(4);
+                out.buffer.putInt(budgetRecords.size());
+                for (BudgetRecord record : budgetRecords) {
+                    out.ensure(16);
+                    out.buffer.putInt(record.month().getYear() * 12 + record.month().getMonthValue() - 1)
+                            .putInt(record.category())
+                            .putLong(record.cents());
+                }
+
+                out.ensure(4);
+                out.buffer.putInt(ruleList.size());
+                for (int i = 0; i < ruleList.size(); i++) {
+                    RecurrenceRule rule = ruleList.get(i);
+                    out.ensure(52);
+                    out.buffer.putLong(rule.getId().getMostSignificantBits())
+                            .putLong(rule.getId().getLeastSignificantBits())
+                            .putLong(rule.getAmount().getCents())
+                            .putInt((int) rule.getStart().toEpochDay())
+                            .putInt(epochDay(rule.getEnd()))
+                            .putInt(rule.getCount())
+                            .putInt(epochDay(rule.getMaterializedUntil()))
+                            .putInt(ruleDescriptionRefs[i])
+                            .putInt(ruleCategoryRefs[i])
+                            .put((byte) rule.getType().ordinal())
+                            .put((byte) rule.getFrequency().ordinal())
+                            .put((byte) 0).put((byte) 0);
+                }
+                out.writeChecksum();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Lädt einen Snapshot und ersetzt damit Transaktionen, Budgets und Kategorien.
+     * Ist die Datei beschädigt oder von einer unbekannten Version, bleibt alles unverändert.
+     *
+     * Bei einem persistenten Speicher bleiben die Buchungen darin maßgeblich. Nur wenn er
+     * noch leer ist, werden die Buchungen eines älteren Snapshots einmalig übernommen.
+     */
+    public static void load(Path file, TransactionService transactionService, CategoryManager categoryManager)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 12 || size > Integer.MAX_VALUE) {
+                throw new IOException("Ungültige Snapshot-Datei: " + file);
+            }
+            // Die ganze Datei in einem Stück lesen; die Datensätze werden dann direkt aus dem Puffer dekodiert
+            ByteBuffer in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) throw new IOException("Snapshot-Datei unvollständig: " + file);
+            }
+            in.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate().limit((int) size - 4));
+            if ((int) crc.getValue() != in.getInt((int) size - 4)) {
+                throw new IOException("Snapshot-Datei ist beschädigt (Prüfsumme): " + file);
+            }
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Keine Snapshot-Datei: " + file);
+            }
+            short version = in.getShort();
+            if (version != VERSION && version != VERSION_WITHOUT_RULES) {
+                throw new IOException("Nicht unterstützte Snapshot-Version " + version + ": " + file);
+            }
+            boolean transactionsInStore = (in.getShort() & TRANSACTIONS_IN_STORE) != 0;
+            if (transactionsInStore && !transactionService.isStorePersistent()) {
+                throw new IOException("Die Buchungen liegen im Datei-Speicher (-Dbudgetplanner.store=file): " + file);
+            }
+            boolean loadTransactions = !transactionsInStore
+                    && (!transactionService.isStorePersistent() || transactionService.getTransactions().isEmpty());
+
+            String[] strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = in.getInt();
+                strings[i] = StandardCharsets.UTF_8.decode(in.slice().limit(length)).toString();
+                in.position(in.position() + length);
+            }
+
+            List<String> categories = new ArrayList<>();
+            int categoryCount = in.getInt();
+            for (int i = 0; i < categoryCount; i++) {
+                categories.add(string(strings, in.getInt()));
+            }
+
+            int transactionCount = in.getInt();
+            List<Transaction> transactions = new ArrayList<>(loadTransactions ? transactionCount : 0);
+            if (!loadTransactions) {
+                in.position(in.position() + 40 * transactionCount);
+                transactionCount = 0;
+            }
+            for (int i = 0; i < transactionCount; i++) {
+                long msb = in.getLong();
+                long lsb = in.getLong();
+                long cents = in.getLong();
+                int epochDay = in.getInt();
+                int description = in.getInt();
+                int category = in.getInt();
+                byte type = in.get();
+                in.position(in.position() + 3);
+
+                // Gleiche Kategorien teilen sich den String aus der Tabelle
+                transactions.add(new Transaction(new UUID(msb, lsb), string(strings, description),
+                        Money.ofCents(cents), TYPES[type], LocalDate.ofEpochDay(epochDay), string(strings, category)));
+            }
+
+            Map<YearMonth, Map<String, Money>> budgets = new HashMap<>();
+            int budgetCount = in.getInt();
+            for (int i = 0; i < budgetCount; i++) {
+                int month = in.getInt();
+                String category = string(strings, in.getInt());
+                long cents = in.getLong();
+                budgets.computeIfAbsent(YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1),
+                        m -> new HashMap<>()).put(category, Money.ofCents(cents));
+            }
+
+            List<RecurrenceRule> rules = new ArrayList<>();
+            int ruleCount = version == VERSION_WITHOUT_RULES ? 0 : in.getInt();
+            for (int i = 0; i < ruleCount; i++) {
+                UUID id = new UUID(in.getLong(), in.getLong());
+                long cents = in.getLong();
+                LocalDate start = LocalDate.ofEpochDay(in.getInt());
+                LocalDate end = date(in.getInt());
+                int count = in.getInt();
+                LocalDate materializedUntil = date(in.getInt());
+                String description = string(strings, in.getInt());
+                String category = string(strings, in.getInt());
+                TransactionType type = TYPES[in.get()];
+                RecurrenceRule.Frequency frequency = FREQUENCIES[in.get()];
+                in.position(in.position() + 2);
+                rules.add(new RecurrenceRule(id, description, Money.ofCents(cents), type,
+                        category, start, frequency, end, count, materializedUntil));
+            }
+
+            // Erst übernehmen, wenn die ganze Datei gelesen ist
+            categoryManager.setCategories(categories);
+            if (loadTransactions) {
+                transactionService.setTransactions(transactions);
+            }
+            transactionService.clearBudgets();
+            budgets.forEach((month, byCategory) -> byCategory.forEach((category, amount) ->
+                    transactionService.setMonthlyBudget(month, category, amount)));
+            for (RecurrenceRule rule : new ArrayList<>(transactionService.getRecurrenceRules())) {
+                transactionService.removeRecurrenceRule(rule.getId());
+            }
+            rules.forEach(transactionService::putRecurrenceRule);
+        } catch (RuntimeException e) {
+            // Abgeschnittene oder manipulierte Dateien äußern sich als Puffer- oder Indexfehler
+            throw new IOException("Ungültige Snapshot-Datei: " + file, e);
+        }
+    }
+
+    private record BudgetRecord(YearMonth month, int category, long cents) {
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    /**
+     * Sammelt Texte und vergibt jedem eindeutigen Text einen Index.
+     */
+    private static final class StringTable {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        int indexOf(String value) {
+            if (value == null) return NO_STRING;
+            Integer index = indexes.get(value);
+            if (index != null) return index;
+            int newIndex = values.size();
+            values.add(value);
+            indexes.put(value, newIndex);
+            return newIndex;
+        }
+    }
+
+    /**
+     * Schreibt über einen festen Puffer in den Channel und führt dabei die CRC32 mit.
+     */
+    private static final class BlockWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void writeChecksum() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.force(false);
+        }
+    }
+}
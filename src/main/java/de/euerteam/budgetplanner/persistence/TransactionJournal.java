@@ -0,0 +1,545 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.CategoryManager;
+import de.euerteam.budgetplanner.service.TransactionListener;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Append-only-Journal aller Änderungen am {@link TransactionService} und am {@link CategoryManager}.
+ *
+ * Als Listener registriert, wird jede Änderung im Thread des Aufrufers nur in einen Puffer
+ * kodiert; ein Schreib-Thread schreibt alle bis dahin gesammelten Einträge gemeinsam und
+ * macht sie mit einem einzigen fsync dauerhaft (Group Commit). {@link #flush()} wartet,
+ * bis alle bisherigen Einträge auf der Platte sind.
+ *
+ * Scheitert das Schreiben, wird der Fehler einmal an den {@link #setFailureListener Fehler-Listener}
+ * gemeldet; danach puffert das Journal nichts mehr, und {@link #flush()} wirft den Fehler.
+ *
+ * Jeder Eintrag ist als int Länge, int CRC32 und Nutzdaten abgelegt. Beim Wiederholen
+ * endet das Journal am ersten unvollständigen oder beschädigten Eintrag (abgebrochener Schreibvorgang).
+ */
+public class TransactionJournal implements TransactionListener, CategoryManager.ChangeListener, Closeable {
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    private static final byte BUDGET = 4;
+    private static final byte BUDGETS_CLEARED = 5;
+    private static final byte RULE = 6;
+    private static final byte RULE_REMOVED = 7;
+    private static final byte CATEGORIES = 8;
+    private static final byte CATEGORY_RENAMED = 9;
+    private static final RecurrenceRule.Frequency[] FREQUENCIES = RecurrenceRule.Frequency.values();
+    // Platzhalter für fehlende Datumswerte (Epoch-Day)
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int HEADER_SIZE = 8;
+
+    private final Path file;
+    // Schützt Puffer und Zähler
+    private final Object lock = new Object();
+    // Schützt den Channel; wird immer vor lock genommen
+    private final Object channelLock = new Object();
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private long durable;
+    private long size;
+    private IOException failure;
+    private boolean closed;
+    private final Thread writer;
+    private volatile Consumer<IOException> failureListener =
+            e -> System.err.println("Journal konnte nicht geschrieben werden: " + e.getMessage());
+
+    private TransactionJournal(Path file, long validLength) throws IOException {
+        this.file = file;
+        this.channel = openChannel(file);
+        // Einen abgebrochenen letzten Eintrag abschneiden, sonst wären alle folgenden unlesbar
+        channel.truncate(validLength);
+        this.size = validLength;
+        this.writer = new Thread(this::writeLoop, "transaction-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Spielt ein vorhandenes Journal in Service und Kategorien ein und öffnet es zum Anhängen.
+     * Das Journal wird dabei nicht als Listener registriert.
+     */
+    public static TransactionJournal open(Path file, TransactionService transactionService,
+            CategoryManager categoryManager) throws IOException {
+        long validLength = Files.exists(file) ? replay(file, transactionService, categoryManager) : 0;
+        return new TransactionJournal(file, validLength);
+    }
+
+    /**
+     * Wendet alle vollständigen Einträge eines Journals auf den Service an.
+     *
+     * @return Länge des gültigen Teils der Datei in Bytes
+     */
+    public static long replay(Path file, TransactionService transactionService, CategoryManager categoryManager)
+            throws IOException {
+        long validLength = 0;
+        CRC32 crc = new CRC32();
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > 1 << 24) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) break;
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload), transactionService, categoryManager);
+                validLength += HEADER_SIZE + payload.length;
+            }
+        }
+        return validLength;
+    }
+
+    private static void apply(ByteBuffer in, TransactionService transactionService, CategoryManager categoryManager) {
+        switch (in.get()) {
+            case PUT -> {
+                UUID id = new UUID(in.getLong(), in.getLong());
+                long cents = in.getLong();
+                LocalDate date = LocalDate.ofEpochDay(in.getInt());
+                TransactionType type = TYPES[in.get()];
+                String description = getString(in);
+                String category = getString(in);
+                // addTransaction überschreibt eine vorhandene ID, deckt also auch Updates ab
+                transactionService.addTransaction(
+                        new Transaction(id, description, Money.ofCents(cents), type, date, category));
+            }
+            case REMOVE -> transactionService.removeTransactionById(new UUID(in.getLong(), in.getLong()));
+            case CLEAR -> transactionService.setTransactions(List.of());
+            case BUDGET -> {
+                int month = in.getInt();
+                String category = getString(in);
+                transactionService.setMonthlyBudget(
+                        YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1),
+                        category, Money.ofCents(in.getLong()));
+            }
+            case BUDGETS_CLEARED -> transactionService.clearBudgets();
+            case RULE -> {
+                UUID id = new UUID(in.getLong(), in.getLong());
+                long cents = in.getLong();
+                TransactionType type = TYPES[in.get()];
+                RecurrenceRule.Frequency frequency = FREQUENCIES[in.get()];
+                LocalDate start = LocalDate.ofEpochDay(in.getInt());
+                LocalDate end = date(in.getInt());
+                int count = in.getInt();
+                LocalDate materializedUntil = date(in.getInt());
+                String description = getString(in);
+                String category = getString(in);
+                transactionService.putRecurrenceRule(new RecurrenceRule(id, description, Money.ofCents(cents), type,
+                        category, start, frequency, end, count, materializedUntil));
+            }
+            case RULE_REMOVED -> transactionService.removeRecurrenceRule(new UUID(in.getLong(), in.getLong()));
+            case CATEGORIES -> {
+                List<String> categories = new ArrayList<>();
+                for (int count = in.getInt(); count > 0; count--) {
+                    categories.add(getString(in));
+                }
+                categoryManager.setCategories(categories);
+            }
+            case CATEGORY_RENAMED -> {
+                String oldName = getString(in);
+                String newName = getString(in);
+                if (categoryManager.renameCategory(oldName, newName)) return;
+                // Ist der alte Name schon weg, enthält der Snapshot das Umbenennen. Gibt es beide
+                // (frühere Einträge haben den alten Namen zurückgebracht), wird zusammengeführt.
+                if (categoryManager.idOf(oldName) == CategoryDictionary.NONE
+                        || categoryManager.idOf(newName) == CategoryDictionary.NONE) return;
+                transactionService.mergeCategory(oldName, newName);
+                categoryManager.addCategory(newName);
+                categoryManager.removeCategory(oldName);
+            }
+            default -> {
+                // Unbekannte Einträge einer neueren Version überspringen
+            }
+        }
+    }
+
+    @Override
+    public void transactionAdded(Transaction transaction) {
+        appendPut(transaction);
+    }
+
+    @Override
+    public void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        appendPut(newTransaction);
+    }
+
+    @Override
+    public void transactionRemoved(Transaction transaction) {
+        synchronized (lock) {
+            int start = begin(17);
+            pending.put(REMOVE)
+                    .putLong(transaction.getId().getMostSignificantBits())
+                    .putLong(transaction.getId().getLeastSignificantBits());
+            end(start);
+        }
+    }
+
+    @Override
+    public void transactionsCleared() {
+        synchronized (lock) {
+            int start = begin(1);
+            pending.put(CLEAR);
+            end(start);
+        }
+    }
+
+    @Override
+    public void budgetChanged(YearMonth month, String category, Money budget) {
+        byte[] name = bytes(category);
+        synchronized (lock) {
+            int start = begin(17 + length(name));
+            pending.put(BUDGET).putInt(month.getYear() * 12 + month.getMonthValue() - 1);
+            putString(name);
+            pending.putLong(budget.getCents());
+            end(start);
+        }
+    }
+
+    @Override
+    public void budgetsCleared() {
+        synchronized (lock) {
+            int start = begin(1);
+            pending.put(BUDGETS_CLEARED);
+            end(start);
+        }
+    }
+
+    @Override
+    public void recurrenceRuleChanged(RecurrenceRule rule) {
+        byte[] description = bytes(rule.getDescription());
+        byte[] category = bytes(rule.getCategory());
+        synchronized (lock) {
+            int start = begin(51 + length(description) + length(category));
+            pending.put(RULE)
+                    .putLong(rule.getId().getMostSignificantBits())
+                    .putLong(rule.getId().getLeastSignificantBits())
+                    .putLong(rule.getAmount().getCents())
+                    .put((byte) rule.getType().ordinal())
+                    .put((byte) rule.getFrequency().ordinal())
+                    .putInt((int) rule.getStart().toEpochDay())
+                    .putInt(epochDay(rule.getEnd()))
+                    .putInt(rule.getCount())
+                    .putInt(epochDay(rule.getMaterializedUntil()));
+            putString(description);
+            putString(category);
+            end(start);
+        }
+    }
+
+    @Override
+    public void recurrenceRuleRemoved(RecurrenceRule rule) {
+        synchronized (lock) {
+            int start = begin(17);
+            pending.put(RULE_REMOVED)
+                    .putLong(rule.getId().getMostSignificantBits())
+                    .putLong(rule.getId().getLeastSignificantBits());
+            end(start);
+        }
+    }
+
+    @Override
+    public void categoriesChanged(List<String> categories) {
+        byte[][] names = new byte[categories.size()][];
+        int payloadSize = 5;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = bytes(categories.get(i));
+            payloadSize += 4 + length(names[i]);
+        }
+        synchronized (lock) {
+            int start = begin(payloadSize);
+            pending.put(CATEGORIES).putInt(names.length);
+            for (byte[] name : names) {
+                putString(name);
+            }
+            end(start);
+        }
+    }
+
+    @Override
+    public void categoryRenamed(String oldName, String newName) {
+        byte[] previous = bytes(oldName);
+        byte[] current = bytes(newName);
+        synchronized (lock) {
+            int start = begin(9 + length(previous) + length(current));
+            pending.put(CATEGORY_RENAMED);
+            putString(previous);
+            putString(current);
+            end(start);
+        }
+    }
+
+    @Override
+    public void transactionsAdded(List<Transaction> transactions) {
+        // Ein Import legt den ganzen Block unter einer einzigen Sperre ab
+        synchronized (lock) {
+            for (Transaction t : transactions) {
+                putTransaction(t);
+            }
+        }
+    }
+
+    private void appendPut(Transaction t) {
+        synchronized (lock) {
+            putTransaction(t);
+        }
+    }
+
+    /** Kodiert einen PUT-Eintrag. Aufrufer halten lock. */
+    private void putTransaction(Transaction t) {
+        byte[] description = bytes(t.getDescription());
+        byte[] category = bytes(t.getCategory());
+        int start = begin(38 + length(description) + length(category));
+        pending.put(PUT)
+                .putLong(t.getId().getMostSignificantBits())
+                .putLong(t.getId().getLeastSignificantBits())
+                .putLong(t.getAmountCents())
+                .putInt((int) t.getDate().toEpochDay())
+                .put((byte) t.getType().ordinal());
+        putString(description);
+        putString(category);
+        end(start);
+    }
+
+    /** Empfängt einen Schreibfehler des Journals, einmal und im Schreib-Thread. */
+    public void setFailureListener(Consumer<IOException> listener) {
+        this.failureListener = listener;
+    }
+
+    /** Größe des Journals in Bytes, inklusive noch nicht geschriebener Einträge. */
+    public long size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * Wartet, bis alle bisher angehängten Einträge dauerhaft geschrieben sind.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            while (durable < target && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Warten auf das Journal unterbrochen", e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * Schreibt alle offenen Einträge, benennt die Datei in {@code target} um und beginnt
+     * ein neues, leeres Journal unter dem alten Namen. Gibt es {@code target} schon (ein
+     * Snapshot ist fehlgeschlagen), wird das Journal daran angehängt; Einträge sind in sich
+     * abgeschlossen, die Verkettung ist also wieder ein gültiges Journal.
+     */
+    public void rotate(Path target) throws IOException {
+        synchronized (channelLock) {
+            writePending();
+            channel.close();
+            try {
+                if (Files.exists(target)) {
+                    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                         FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        long length = in.size();
+                        for (long position = 0; position < length; ) {
+                            position += in.transferTo(position, length - position, out);
+                        }
+                        out.force(false);
+                    }
+                    Files.delete(file);
+                } else {
+                    Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // Auch nach einem Fehler weiter anhängen können; bleibt die Datei, geht nichts verloren
+                channel = openChannel(file);
+            }
+            synchronized (lock) {
+                size = pending.position();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (channelLock) {
+                channel.close();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed && pending.position() == 0) return;
+            }
+            try {
+                synchronized (channelLock) {
+                    writePending();
+                }
+            } catch (IOException e) {
+                // Erst melden, dann wecken: wer in flush() den Fehler sieht, weiß, dass er gemeldet ist
+                failureListener.accept(e);
+                synchronized (lock) {
+                    failure = e;
+                    pending.clear();
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle bis jetzt gesammelten Einträge gemeinsam und synchronisiert einmal.
+     * Aufrufer halten channelLock.
+     */
+    private void writePending() throws IOException {
+        long target;
+        synchronized (lock) {
+            if (failure != null) throw failure;
+            ByteBuffer full = pending;
+            pending = writing;
+            writing = full;
+            target = appended;
+        }
+        writing.flip();
+        while (writing.hasRemaining()) {
+            channel.write(writing);
+        }
+        channel.force(false);
+        writing.clear();
+        synchronized (lock) {
+            durable = target;
+            lock.notifyAll();
+        }
+    }
+
+    /** Reserviert Platz für einen Eintrag und liefert seinen Anfang. Aufrufer halten lock. */
+    private int begin(int payloadSize) {
+        if (closed) throw new IllegalStateException("Journal ist geschlossen");
+        // Nach einem Schreibfehler schreibt niemand mehr: den Eintrag nur kodieren und verwerfen
+        if (failure != null) pending.clear();
+        int needed = HEADER_SIZE + payloadSize;
+        if (pending.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.position(start + HEADER_SIZE);
+        return start;
+    }
+
+    /** Trägt Länge und Prüfsumme nach und weckt den Schreib-Thread. Aufrufer halten lock. */
+    private void end(int start) {
+        int length = pending.position() - start - HEADER_SIZE;
+        crc.reset();
+        crc.update(pending.array(), start + HEADER_SIZE, length);
+        pending.putInt(start, length).putInt(start + 4, (int) crc.getValue());
+        appended++;
+        if (failure == null) size += HEADER_SIZE + length;
+        lock.notifyAll();
+    }
+
+    private void putString(byte[] value) {
+        if (value == null) {
+            pending.putInt(-1);
+        } else {
+            pending.putInt(value.length).put(value);
+        }
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,51 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+
+/**
+ * Wählt die Speicher-Engine für den {@link de.euerteam.budgetplanner.service.TransactionService}:
+ * <ul>
+ *   <li>{@code list}: einfache Liste, nur nach ID indiziert; für kleine Datenmengen</li>
+ *   <li>{@code indexed}: spaltenorientiert im Heap, alle Abfragen indiziert (Standard)</li>
+ *   <li>{@code file}: gemappte Dateien außerhalb des Heaps; für Datenmengen größer als der Heap</li>
+ * </ul>
+ */
+public final class TransactionRepositories {
+    public static final String LIST = "list";
+    public static final String INDEXED = "indexed";
+    public static final String FILE = "file";
+
+    private TransactionRepositories() {
+    }
+
+    /**
+     * Legt das Repository der gewünschten Art an; null oder leer wählt {@link #INDEXED}.
+     * Die früheren Namen {@code columnar} und {@code mapped} werden weiter akzeptiert.
+     *
+     * @param directory Datenverzeichnis, wird nur von {@link #FILE} benutzt
+     * @param categories Wörterbuch der Kategorien, in der Regel das des CategoryManagers
+     */
+    public static TransactionRepository create(String kind, Path directory, CategoryDictionary categories)
+            throws IOException {
+        if (kind == null || kind.isBlank()) {
+            kind = INDEXED;
+        }
+        switch (kind.trim().toLowerCase()) {
+            case LIST:
+                return new ListTransactionRepository(categories);
+            case INDEXED:
+            case "columnar":
+                return new ColumnarTransactionRepository(categories);
+            case FILE:
+            case "mapped":
+                Files.createDirectories(directory);
+                return new MappedTransactionRepository(directory.resolve("transactions"), categories);
+            default:
+                throw new IllegalArgumentException("Unbekannte Speicher-Engine: " + kind);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Speicher-Engine hinter dem {@link de.euerteam.budgetplanner.service.TransactionService}.
+ * Transaktionen liegen in Slots; ein Slot bleibt bis zum nächsten {@link #compact()}
+ * gültig, auch wenn die Transaktion darin gelöscht wurde.
+ *
+ * Über {@link #indexedQueries()} gibt jede Implementierung an, welche Abfragen indiziert
+ * laufen sollen. Der Service baut nur für diese Abfragen Slot-Indizes auf; alle anderen
+ * beantwortet er durch einen Durchlauf über die Slots.
+ *
+ * Kategorien speichert ein Repository als ID aus {@link #categories()}; geliefert wird immer
+ * der aktuelle Name, ein Umbenennen im Wörterbuch ist also sofort sichtbar.
+ */
+public interface TransactionRepository {
+
+    /** Hängt eine Transaktion an und liefert ihren Slot. */
+    int append(Transaction transaction);
+
+    /** Ersetzt die Transaktion in einem belegten Slot (gleiche ID). */
+    void set(int slot, Transaction transaction);
+
+    /** Gibt einen Slot frei; die übrigen Slots behalten ihre Nummer. */
+    void remove(int slot);
+
+    /** Liefert die Transaktion eines Slots oder null, wenn er gelöscht ist. */
+    Transaction get(int slot);
+
+    /** Liefert den Slot zur ID oder -1. */
+    int findSlot(UUID id);
+
+    /** Datum des Slots als Epoch-Day, ohne die Transaktion zu materialisieren. */
+    default int epochDay(int slot) {
+        return (int) get(slot).getDate().toEpochDay();
+    }
+
+    /** Wörterbuch, gegen das die Kategorie-IDs aufgelöst werden. */
+    CategoryDictionary categories();
+
+    /** Kategorie-ID des Slots, ohne die Transaktion zu materialisieren. */
+    default int categoryId(int slot) {
+        return categories().find(get(slot).getCategory());
+    }
+
+    /** Betrag des Slots in Cent (ohne Vorzeichen), ohne die Transaktion zu materialisieren. */
+    default long amountCents(int slot) {
+        return get(slot).getAmountCents();
+    }
+
+    /** Typ des Slots, ohne die Transaktion zu materialisieren. */
+    default TransactionType type(int slot) {
+        return get(slot).getType();
+    }
+
+    /** Beschreibung des Slots, ohne die Transaktion zu materialisieren. */
+    default String description(int slot) {
+        return get(slot).getDescription();
+    }
+
+    /**
+     * Unveränderlicher Stand aller Buchungen, der in einem anderen Thread gelesen werden darf,
+     * während dieser Speicher weiter verändert wird. Nur nach {@link #compact()} aufrufen.
+     * Standard ist eine Kopie; Implementierungen können die Kopie auf später verschieben.
+     */
+    default List<Transaction> frozenView() {
+        List<Transaction> copy = new ArrayList<>(size());
+        for (int slot = 0; slot < slotCount(); slot++) {
+            if (isLive(slot)) copy.add(get(slot));
+        }
+        return copy;
+    }
+
+    /**
+     * true, wenn der Speicher die Buchungen selbst dauerhaft hält. Ein Snapshot enthält sie dann
+     * nicht, und beim Öffnen ist der Inhalt des Speichers maßgeblich.
+     */
+    default boolean isPersistent() {
+        return false;
+    }
+
+    /** Schreibt alle Änderungen auf die Platte; bei Speichern im Heap ohne Wirkung. */
+    default void force() {
+    }
+
+    /** Abfragen, die über einen Index statt über einen Durchlauf beantwortet werden. */
+    Set<IndexedQuery> indexedQueries();
+
+    boolean isLive(int slot);
+
+    /** Anzahl Slots einschließlich gelöschter. */
+    int slotCount();
+
+    /** Anzahl belegter Slots. */
+    int size();
+
+    /** Entfernt gelöschte Slots, die Reihenfolge der übrigen bleibt erhalten. */
+    void compact();
+
+    void clear();
+}
@@ -0,0 +1,246 @@
+package de.euerteam.budgetplanner.service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Überwacht die Budgets laufend und meldet, wenn eine Schwelle (Standard 80 % und 100 % des
+ * Budgets) erreicht wird. Die Ausgaben je (Monat, Kategorie) liest er aus den Summen des
+ * Services; selbst hält er nur Budgets und erreichte Stufen. Jede Buchung kostet O(1),
+ * unabhängig davon, woher sie kommt (Dialog, Import, Dauerauftrag).
+ *
+ * Ausführungen von Daueraufträgen zählen mit; ihr Anteil wird je Monat zwischengespeichert
+ * und nur neu berechnet, wenn sich ein Dauerauftrag ändert.
+ *
+ * Meldungen einer Sammeloperation ({@link TransactionListener#transactionsAdded(List)} oder
+ * zwischen {@link #beginBatch()} und {@link #endBatch()}) werden zu einer Liste zusammengefasst.
+ * Jede Schwelle wird nur beim Überschreiten gemeldet; sinken die Ausgaben wieder darunter,
+ * kann sie erneut gemeldet werden.
+ */
+public class BudgetMonitor implements TransactionListener {
+    private static final int[] DEFAULT_THRESHOLDS = {80, 100};
+
+    /** Eine erreichte Schwelle: percent Prozent des Budgets sind ausgegeben. */
+    public record BudgetAlert(YearMonth month, String category, int percent, Money spent, Money budget) {
+    }
+
+    /** Empfängt die Meldungen; bei Sammeloperationen alle auf einmal. */
+    public interface Listener {
+        void budgetAlerts(List<BudgetAlert> alerts);
+    }
+
+    private final TransactionService transactionService;
+    private final CategoryDictionary categories;
+    // Schwellen in Prozent, aufsteigend
+    private final int[] thresholds;
+    private final Map<YearMonth, MonthState> months = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final List<BudgetAlert> pending = new ArrayList<>();
+    private int batchDepth;
+
+    public BudgetMonitor(TransactionService transactionService) {
+        this(transactionService, DEFAULT_THRESHOLDS);
+    }
+
+    /**
+     * Übernimmt den aktuellen Stand des Services ohne Meldungen und registriert sich als Listener.
+     */
+    public BudgetMonitor(TransactionService transactionService, int... thresholds) {
+        this.transactionService = transactionService;
+        this.categories = transactionService.getCategoryDictionary();
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+        transactionService.getAllBudgets().forEach((month, budgets) -> budgets.forEach((category, budget) -> {
+            int id = categories.find(category);
+            state(month).budget(id, budget.getCents());
+            MonthState state = months.get(month);
+            state.level[id] = (byte) level(state, month, id);
+        }));
+        transactionService.addListener(this);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Meldet nichts mehr, bis {@link #endBatch()} alle gesammelten Meldungen auf einmal liefert. */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        batchDepth--;
+        flush();
+    }
+
+    @Override
+    public void transactionAdded(Transaction transaction) {
+        check(transaction);
+        flush();
+    }
+
+    @Override
+    public void transactionsAdded(List<Transaction> transactions) {
+        batchDepth++;
+        for (Transaction t : transactions) {
+            check(t);
+        }
+        endBatch();
+    }
+
+    @Override
+    public void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        check(oldTransaction);
+        check(newTransaction);
+        flush();
+    }
+
+    @Override
+    public void transactionRemoved(Transaction transaction) {
+        check(transaction);
+        flush();
+    }
+
+    @Override
+    public void transactionsCleared() {
+        pending.clear();
+        for (MonthState state : months.values()) {
+            Arrays.fill(state.level, (byte) 0);
+        }
+    }
+
+    @Override
+    public void budgetChanged(YearMonth month, String category, Money budget) {
+        int id = categories.find(category);
+        MonthState state = state(month);
+        state.budget(id, budget.getCents());
+        evaluate(state, month, id, true);
+        flush();
+    }
+
+    @Override
+    public void budgetsCleared() {
+        pending.clear();
+        for (MonthState state : months.values()) {
+            Arrays.fill(state.budget, 0);
+            Arrays.fill(state.level, (byte) 0);
+        }
+    }
+
+    /**
+     * Ein Dauerauftrag betrifft beliebig viele Monate: den zwischengespeicherten Anteil aller
+     * Monate verwerfen und nur die Monate mit Budget neu prüfen. Gesenkt werden die Stufen
+     * dabei nicht, damit das Materialisieren (Regel vorrücken, dann buchen) nicht doppelt meldet.
+     */
+    @Override
+    public void recurrenceRuleChanged(RecurrenceRule rule) {
+        recurrencesChanged();
+    }
+
+    @Override
+    public void recurrenceRuleRemoved(RecurrenceRule rule) {
+        recurrencesChanged();
+    }
+
+    private void recurrencesChanged() {
+        months.forEach((month, state) -> {
+            state.recurring = null;
+            for (int id = 0; id < state.budget.length; id++) {
+                if (state.budget[id] > 0) evaluate(state, month, id, false);
+            }
+        });
+        flush();
+    }
+
+    /** Prüft (Monat, Kategorie) einer Buchung neu; die Summen des Services sind dann schon aktuell. */
+    private void check(Transaction t) {
+        if (t.getType() != TransactionType.Ausgaben) return;
+        int id = categories.find(t.getCategory());
+        YearMonth month = YearMonth.from(t.getDate());
+        MonthState state = months.get(month);
+        // Ohne Budget in diesem Monat gibt es nichts zu melden
+        if (id == CategoryDictionary.NONE || state == null) return;
+        evaluate(state, month, id, true);
+    }
+
+    private void evaluate(MonthState state, YearMonth month, int id, boolean mayDecrease) {
+        if (id >= state.budget.length || state.budget[id] <= 0) {
+            if (id < state.level.length) state.level[id] = 0;
+            return;
+        }
+        int level = level(state, month, id);
+        if (level > state.level[id]) {
+            long spent = spent(state, month, id);
+            for (int reached = state.level[id]; reached < level; reached++) {
+                pending.add(new BudgetAlert(month, categories.nameOf(id), thresholds[reached],
+                        Money.ofCents(spent), Money.ofCents(state.budget[id])));
+            }
+            state.level[id] = (byte) level;
+        } else if (level < state.level[id] && mayDecrease) {
+            state.level[id] = (byte) level;
+        }
+    }
+
+    /** Anzahl erreichter Schwellen für (Monat, Kategorie). */
+    private int level(MonthState state, YearMonth month, int id) {
+        long budget = id < state.budget.length ? state.budget[id] : 0;
+        if (budget <= 0) return 0;
+        long spent = spent(state, month, id);
+        int level = 0;
+        while (level < thresholds.length && spent * 100 >= budget * thresholds[level]) {
+            level++;
+        }
+        return level;
+    }
+
+    private long spent(MonthState state, YearMonth month, int id) {
+        if (state.recurring == null) {
+            state.recurring = transactionService.getRecurringExpenseCents(month);
+        }
+        long recurring = id < state.recurring.length ? state.recurring[id] : 0;
+        return transactionService.expenseCents(month, id) + recurring;
+    }
+
+    private MonthState state(YearMonth month) {
+        return months.computeIfAbsent(month, m -> new MonthState());
+    }
+
+    private void flush() {
+        if (batchDepth > 0 || pending.isEmpty()) return;
+        List<BudgetAlert> alerts = List.copyOf(pending);
+        pending.clear();
+        for (Listener listener : listeners) {
+            listener.budgetAlerts(alerts);
+        }
+    }
+
+    /** Budgets und erreichte Stufen eines Monats, indiziert mit der Kategorie-ID. */
+    private static final class MonthState {
+        long[] budget = new long[0];
+        byte[] level = new byte[0];
+        // Anteil der Daueraufträge je Kategorie; null = neu berechnen
+        long[] recurring;
+
+        void budget(int id, long cents) {
+            if (id >= budget.length) {
+                budget = Arrays.copyOf(budget, id + 1);
+                level = Arrays.copyOf(level, id + 1);
+            }
+            budget[id] = cents;
+        }
+    }
+}
@@ -2,54 +2,168 @@ package de.euerteam.budgetplanner.service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+
 /**
  * Verwaltet benutzerdefinierte Kategorien dynamisch.
- * Unterstützt Hinzufügen, Löschen und Listener-Benachrichtigung.
+ * Unterstützt Hinzufügen, Löschen, Umbenennen und Listener-Benachrichtigung.
+ * Kategorien werden über ihre ID im eigenen {@link CategoryDictionary} geführt; dasselbe
+ * Wörterbuch bekommen Repository und Service, damit alle dieselben IDs verwenden.
  */
 public class CategoryManager {
-    private final List<String> categories = new ArrayList<>();
+    /** Empfängt Änderungen mit ihrem Inhalt, z.B. um sie dauerhaft festzuhalten. */
+    public interface ChangeListener {
+        /** Die Kategorieliste hat sich geändert (Hinzufügen, Löschen, Ersetzen). */
+        void categoriesChanged(List<String> categories);
+
+        void categoryRenamed(String oldName, String newName);
+    }
+
+    private final CategoryDictionary dictionary;
+    private final List<Integer> categoryIds = new ArrayList<>();
     private final List<Runnable> listeners = new ArrayList<>();
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
 
     public CategoryManager() {
+        this(new CategoryDictionary());
+    }
+
+    public CategoryManager(CategoryDictionary dictionary) {
+        this.dictionary = dictionary;
         // Standard-Kategorien
-        categories.add("Lebensmittel");
-        categories.add("Miete");
-        categories.add("Abos");
-        categories.add("Transport");
-        categories.add("Unterhaltung");
-        categories.add("Gesundheit");
-        categories.add("Bildung");
-        categories.add("Shopping");
+        for (String name : List.of("Lebensmittel", "Miete", "Abos", "Transport", "Unterhaltung", "Gesundheit",
+                "Bildung", "Shopping")) {
+            categoryIds.add(retain(name));
+        }
+    }
+
+    /** Das Wörterbuch, über das Repository und Service die Kategorie-IDs auflösen. */
+    public CategoryDictionary getDictionary() {
+        return dictionary;
     }
 
     public List<String> getCategories() {
-        return Collections.unmodifiableList(categories);
+        List<String> names = new ArrayList<>(categoryIds.size());
+        for (int id : categoryIds) {
+            names.add(dictionary.nameOf(id));
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public List<Integer> getCategoryIds() {
+        return Collections.unmodifiableList(categoryIds);
+    }
+
+    public int idOf(String name) {
+        return dictionary.find(name);
+    }
+
+    public String nameOf(int id) {
+        return dictionary.nameOf(id);
     }
 
     public void addCategory(String name) {
         if (name == null || name.isBlank()) return;
         String trimmed = name.trim();
         // Duplikate vermeiden (case-insensitive)
-        for (String cat : categories) {
-            if (cat.equalsIgnoreCase(trimmed)) return;
+        for (int id : categoryIds) {
+            if (dictionary.nameOf(id).equalsIgnoreCase(trimmed)) return;
         }
-        categories.add(trimmed);
-        Collections.sort(categories);
-        fireListeners();
+        categoryIds.add(retain(trimmed));
+        sortByName();
+        fireChanged();
+    }
+
+    /**
+     * Ersetzt die Kategorieliste, z.B. beim Laden eines Snapshots. Doppelte und leere Namen werden übergangen.
+     */
+    public void setCategories(List<String> names) {
+        List<Integer> previous = new ArrayList<>(categoryIds);
+        categoryIds.clear();
+        for (String name : names) {
+            if (name == null || name.isBlank()) continue;
+            int id = dictionary.idOf(name.trim());
+            if (categoryIds.contains(id)) continue;
+            dictionary.retain(id);
+            categoryIds.add(id);
+        }
+        // Erst danach freigeben, damit gebliebene Kategorien ihre ID behalten
+        for (int id : previous) {
+            dictionary.release(id);
+        }
+        sortByName();
+        fireChanged();
     }
 
     public void removeCategory(String name) {
         if (name == null) return;
-        categories.removeIf(c -> c.equals(name));
+        int id = dictionary.find(name);
+        // Buchungen mit dieser Kategorie halten ihre ID weiter; sonst wird sie frei
+        if (categoryIds.remove(Integer.valueOf(id))) {
+            dictionary.release(id);
+            fireChanged();
+            return;
+        }
+        fireListeners();
+    }
+
+    /**
+     * Benennt eine Kategorie um. Das ändert nur den Wörterbuch-Eintrag; alle Transaktionen
+     * und Budgets der Kategorie zeigen sofort den neuen Namen.
+     *
+     * @return false, wenn die Kategorie unbekannt oder der neue Name schon vergeben ist
+     */
+    public boolean renameCategory(String oldName, String newName) {
+        if (newName == null || newName.isBlank()) return false;
+        int id = dictionary.find(oldName);
+        if (id == CategoryDictionary.NONE) return false;
+        String trimmed = newName.trim();
+        for (int other : categoryIds) {
+            if (other != id && dictionary.nameOf(other).equalsIgnoreCase(trimmed)) return false;
+        }
+        String previous = dictionary.nameOf(id);
+        if (!dictionary.rename(id, trimmed)) return false;
+        sortByName();
+        for (ChangeListener listener : changeListeners) {
+            listener.categoryRenamed(previous, trimmed);
+        }
         fireListeners();
+        return true;
     }
 
     public void addListener(Runnable listener) {
         listeners.add(listener);
     }
 
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private int retain(String name) {
+        int id = dictionary.idOf(name);
+        dictionary.retain(id);
+        return id;
+    }
+
+    private void sortByName() {
+        categoryIds.sort(Comparator.comparing(dictionary::nameOf));
+    }
+
+    private void fireChanged() {
+        List<String> categories = getCategories();
+        for (ChangeListener listener : changeListeners) {
+            listener.categoriesChanged(categories);
+        }
+        fireListeners();
+    }
+
     private void fireListeners() {
         for (Runnable r : listeners) {
             r.run();
@@ -0,0 +1,147 @@
+package de.euerteam.budgetplanner.service;
+
+import java.util.Arrays;
+
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Präfixsummen je Tag für Einnahmen, Ausgaben und ihre Anzahl. Die Tage sind in Blöcke zu
+ * {@link #BLOCK_DAYS} Tagen geteilt; angelegt werden nur Blöcke, in denen gebucht wird. Jeder
+ * Block hat einen Fenwick-Baum über seine Tage, ein zweiter Fenwick-Baum läuft über die
+ * Blocksummen. Ändern eines Tages und die Summe über einen Zeitraum kosten je
+ * O(log Blöcke + log Tage je Block).
+ *
+ * Ein Ausreißer wie der 01.01.0001 kostet so nur einen Block statt eines dichten Arrays über
+ * den ganzen Zeitraum. Ein neuer Block baut den Baum über die Blöcke in O(Blöcke) neu auf.
+ */
+final class DayTotalsIndex {
+    static final int INCOME = 0;
+    static final int EXPENSE = 1;
+    static final int INCOME_COUNT = 2;
+    static final int EXPENSE_COUNT = 3;
+
+    private static final int SERIES = 4;
+    // Etwa 1,4 Jahre je Block
+    private static final int BLOCK_DAYS = 512;
+
+    // Blocknummern (Epoch-Day / BLOCK_DAYS, abgerundet), aufsteigend
+    private int[] blockKeys = new int[0];
+    private Block[] blocks = new Block[0];
+    private int blockCount;
+    // Fenwick-Baum über die Blocksummen je Reihe, 1-basiert
+    private long[][] blockTree = new long[SERIES][1];
+
+    /** Bucht einen Betrag ein (sign = 1) oder wieder aus (sign = -1). */
+    void add(int day, TransactionType type, long amountCents, int sign) {
+        int index = blockIndex(Math.floorDiv(day, BLOCK_DAYS));
+        int position = Math.floorMod(day, BLOCK_DAYS);
+        if (type == TransactionType.Einnahmen) {
+            update(INCOME, index, position, sign * amountCents);
+            update(INCOME_COUNT, index, position, sign);
+        } else {
+            update(EXPENSE, index, position, sign * amountCents);
+            update(EXPENSE_COUNT, index, position, sign);
+        }
+    }
+
+    /** Summe einer Reihe über alle Tage bis einschließlich day. */
+    long prefix(int series, long day) {
+        if (blockCount == 0) return 0;
+        long key = Math.floorDiv(day, BLOCK_DAYS);
+        if (key < blockKeys[0]) return 0;
+        if (key > blockKeys[blockCount - 1]) return blockPrefix(series, blockCount);
+        int index = Arrays.binarySearch(blockKeys, 0, blockCount, (int) key);
+        if (index < 0) return blockPrefix(series, -index - 1);
+        return blockPrefix(series, index) + blocks[index].prefix(series, Math.floorMod(day, BLOCK_DAYS));
+    }
+
+    /** Summe einer Reihe von fromDay bis toDay, jeweils einschließlich. */
+    long sum(int series, long fromDay, long toDay) {
+        return toDay < fromDay ? 0 : prefix(series, toDay) - prefix(series, fromDay - 1);
+    }
+
+    void clear() {
+        blockKeys = new int[0];
+        blocks = new Block[0];
+        blockCount = 0;
+        blockTree = new long[SERIES][1];
+    }
+
+    private void update(int series, int index, int position, long delta) {
+        blocks[index].update(series, position, delta);
+        long[] nodes = blockTree[series];
+        for (int i = index + 1; i < nodes.length; i += i & -i) {
+            nodes[i] += delta;
+        }
+    }
+
+    /** Summe der ersten count Blöcke. */
+    private long blockPrefix(int series, int count) {
+        long[] nodes = blockTree[series];
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += nodes[i];
+        }
+        return sum;
+    }
+
+    /** Index des Blocks; legt ihn bei Bedarf an. */
+    private int blockIndex(int key) {
+        int index = Arrays.binarySearch(blockKeys, 0, blockCount, key);
+        if (index >= 0) return index;
+        index = -index - 1;
+        if (blockCount == blockKeys.length) {
+            int capacity = Math.max(8, blockCount * 2);
+            blockKeys = Arrays.copyOf(blockKeys, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+        }
+        System.arraycopy(blockKeys, index, blockKeys, index + 1, blockCount - index);
+        System.arraycopy(blocks, index, blocks, index + 1, blockCount - index);
+        blockKeys[index] = key;
+        blocks[index] = new Block();
+        blockCount++;
+        // Die Positionen dahinter haben sich verschoben: Baum über die Blocksummen neu aufbauen
+        for (int series = 0; series < SERIES; series++) {
+            long[] totals = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                totals[i] = blocks[i].total[series];
+            }
+            blockTree[series] = build(totals);
+        }
+        return index;
+    }
+
+    /** Baut einen Fenwick-Baum in O(n) aus den Einzelwerten. */
+    private static long[] build(long[] values) {
+        long[] nodes = new long[values.length + 1];
+        for (int i = 1; i < nodes.length; i++) {
+            nodes[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent < nodes.length) nodes[parent] += nodes[i];
+        }
+        return nodes;
+    }
+
+    /** Tageswerte eines Blocks als Fenwick-Baum je Reihe. */
+    private static final class Block {
+        final long[][] tree = new long[SERIES][BLOCK_DAYS + 1];
+        final long[] total = new long[SERIES];
+
+        void update(int series, int position, long delta) {
+            total[series] += delta;
+            long[] nodes = tree[series];
+            for (int i = position + 1; i < nodes.length; i += i & -i) {
+                nodes[i] += delta;
+            }
+        }
+
+        long prefix(int series, int position) {
+            long[] nodes = tree[series];
+            long sum = 0;
+            for (int i = position + 1; i > 0; i -= i & -i) {
+                sum += nodes[i];
+            }
+            return sum;
+        }
+    }
+}
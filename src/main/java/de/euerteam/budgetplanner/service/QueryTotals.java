@@ -0,0 +1,57 @@
+package de.euerteam.budgetplanner.service;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Summen über die Treffer einer {@link TransactionQuery}: Anzahl sowie Einnahmen und
+ * Ausgaben getrennt in Cent. Wird beim Aggregieren fortgeschrieben und danach nur gelesen.
+ */
+public final class QueryTotals {
+    private long count;
+    private long incomeCents;
+    private long expenseCents;
+
+    void add(TransactionType type, long amountCents) {
+        add(type, 1, amountCents);
+    }
+
+    /** Fügt count Buchungen eines Typs mit zusammen amountCents hinzu. */
+    void add(TransactionType type, long count, long amountCents) {
+        this.count += count;
+        if (type == TransactionType.Einnahmen) {
+            incomeCents += amountCents;
+        } else {
+            expenseCents += amountCents;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getIncomeCents() {
+        return incomeCents;
+    }
+
+    public long getExpenseCents() {
+        return expenseCents;
+    }
+
+    /** Einnahmen minus Ausgaben in Cent. */
+    public long getBalanceCents() {
+        return incomeCents - expenseCents;
+    }
+
+    public Money getIncome() {
+        return Money.ofCents(incomeCents);
+    }
+
+    public Money getExpenses() {
+        return Money.ofCents(expenseCents);
+    }
+
+    public Money getBalance() {
+        return Money.ofCents(getBalanceCents());
+    }
+}
@@ -0,0 +1,58 @@
+package de.euerteam.budgetplanner.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+
+/**
+ * Wird vom {@link TransactionService} nach jeder Änderung benachrichtigt, im Thread des Aufrufers.
+ * Alle Methoden sind optional.
+ */
+public interface TransactionListener {
+
+    default void transactionAdded(Transaction transaction) {
+    }
+
+    /**
+     * Mehrere Transaktionen wurden auf einmal angefügt, in dieser Reihenfolge.
+     * Standardmäßig wird jede einzeln gemeldet.
+     */
+    default void transactionsAdded(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            transactionAdded(transaction);
+        }
+    }
+
+    default void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+    }
+
+    default void transactionRemoved(Transaction transaction) {
+    }
+
+    /** Alle Transaktionen wurden entfernt (z.B. vor dem Ersetzen beim Import). */
+    default void transactionsCleared() {
+    }
+
+    /**
+     * Gelöschte Slots wurden entfernt und die übrigen neu nummeriert. Buchungen und ihre
+     * Reihenfolge sind unverändert; nur gemerkte Slot-Nummern sind ungültig.
+     */
+    default void slotsCompacted() {
+    }
+
+    default void budgetChanged(YearMonth month, String category, Money budget) {
+    }
+
+    default void budgetsCleared() {
+    }
+
+    /** Ein Dauerauftrag wurde angelegt oder geändert (auch beim Materialisieren). */
+    default void recurrenceRuleChanged(RecurrenceRule rule) {
+    }
+
+    default void recurrenceRuleRemoved(RecurrenceRule rule) {
+    }
+}
@@ -0,0 +1,104 @@
+package de.euerteam.budgetplanner.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Abfrage über die Transaktionen des {@link TransactionService}: Zeitraum, Typ,
+ * Kategorien, Betragsbereich und Text, beliebig kombiniert (UND-verknüpft).
+ * Unveränderlich; jede Methode liefert eine neue Abfrage.
+ *
+ * <pre>
+ * TransactionQuery.all().inMonth(month).ofType(TransactionType.Ausgaben)
+ * </pre>
+ *
+ * Welcher Index die Kandidaten liefert, entscheidet der Service beim Ausführen.
+ */
+public final class TransactionQuery {
+    private static final TransactionQuery ALL = new TransactionQuery(
+            Integer.MIN_VALUE, Integer.MAX_VALUE, null, null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+
+    // Zeitraum als Epoch-Days, beide Grenzen einschließlich
+    final int fromDay;
+    final int toDay;
+    final TransactionType type;
+    // null = alle Kategorien; ein Name null steht für Transaktionen ohne Kategorie
+    final Set<String> categories;
+    // Betrag (ohne Vorzeichen) in Cent, beide Grenzen einschließlich
+    final long minCents;
+    final long maxCents;
+    // Teilstring in Beschreibung oder Kategorie, bereits normalisiert; null = kein Textfilter
+    final String text;
+
+    private TransactionQuery(int fromDay, int toDay, TransactionType type, Set<String> categories,
+            long minCents, long maxCents, String text) {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.type = type;
+        this.categories = categories;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+        this.text = text;
+    }
+
+    /** Abfrage ohne Einschränkung. */
+    public static TransactionQuery all() {
+        return ALL;
+    }
+
+    /** Nur Buchungen von from bis to (jeweils einschließlich); null lässt die Grenze offen. */
+    public TransactionQuery between(LocalDate from, LocalDate to) {
+        int first = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int last = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        return new TransactionQuery(first, last, type, categories, minCents, maxCents, text);
+    }
+
+    public TransactionQuery inMonth(YearMonth month) {
+        return between(month.atDay(1), month.atEndOfMonth());
+    }
+
+    public TransactionQuery ofType(TransactionType type) {
+        return new TransactionQuery(fromDay, toDay, type, categories, minCents, maxCents, text);
+    }
+
+    public TransactionQuery inCategories(String... categories) {
+        return inCategories(Arrays.asList(categories));
+    }
+
+    /** Nur Buchungen in einer der Kategorien; unbekannte Namen treffen nichts. */
+    public TransactionQuery inCategories(Collection<String> categories) {
+        return new TransactionQuery(fromDay, toDay, type, new LinkedHashSet<>(categories),
+                minCents, maxCents, text);
+    }
+
+    /** Nur Beträge von min bis max (jeweils einschließlich, ohne Vorzeichen); null lässt die Grenze offen. */
+    public TransactionQuery amountBetween(Money min, Money max) {
+        long low = min == null ? Long.MIN_VALUE : min.getCents();
+        long high = max == null ? Long.MAX_VALUE : max.getCents();
+        return new TransactionQuery(fromDay, toDay, type, categories, low, high, text);
+    }
+
+    /**
+     * Nur Buchungen, deren Beschreibung oder Kategorie den Text enthält
+     * (Groß-/Kleinschreibung egal). Ein leerer Text filtert nicht.
+     */
+    public TransactionQuery containing(String text) {
+        String needle = text == null || text.isEmpty() ? null : TrigramIndex.normalize(text);
+        return new TransactionQuery(fromDay, toDay, type, categories, minCents, maxCents, needle);
+    }
+
+    boolean hasDateRange() {
+        return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+    }
+
+    boolean hasAmountRange() {
+        return minCents != Long.MIN_VALUE || maxCents != Long.MAX_VALUE;
+    }
+}
@@ -1,116 +1,1162 @@
 package de.euerteam.budgetplanner.service;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.IntPredicate;
 
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
 import de.euerteam.budgetplanner.model.Transaction;
 import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.persistence.IndexedQuery;
+import de.euerteam.budgetplanner.persistence.ListTransactionRepository;
+import de.euerteam.budgetplanner.persistence.TransactionRepository;
 
 public class TransactionService {
-    private final List<Transaction> transactions = new ArrayList<>();
-    private final Map<YearMonth, Map<String, BigDecimal>> monthlyBudgets = new HashMap<>();
+    // Speicher-Engine; gelöschte Slots bleiben bis zum Kompaktieren stehen,
+    // damit die Slot-Nummern in den Indizes gültig bleiben und die Reihenfolge stabil ist
+    private final TransactionRepository repository;
+    // Wörterbuch des Repositorys; IDs werden hier nur aufgelöst, nie selbst vergeben
+    private final CategoryDictionary categories;
+    // Anzahl gespeicherter Transaktionen je Kategorie-ID; solange sie > 0 ist, hält der Service die ID fest
+    private int[] categoryUsage = new int[0];
+    private final List<Transaction> transactionsView = new RepositoryView();
+    // Welche Indizes gepflegt werden, bestimmt das Repository; die übrigen Abfragen durchlaufen die Slots
+    private final boolean monthIndexed;
+    private final boolean categoryIndexed;
+    private final boolean textIndexed;
+    // Slots nach Monat gruppiert (aufsteigend sortiert), damit Monatsabfragen nur die Zeilen des Monats anfassen
+    private final Map<YearMonth, IntList> slotsByMonth = new HashMap<>();
+    // Slots je Kategorie-ID (aufsteigend sortiert)
+    private final Map<Integer, IntList> slotsByCategory = new HashMap<>();
+    // Trigramm-Index über die Beschreibungen für die Textsuche
+    private final TrigramIndex descriptionIndex = new TrigramIndex();
+    // Materialisierte Monatswerte in Cent, werden bei jeder Änderung nur um das Delta angepasst
+    private final Map<YearMonth, MonthTotals> monthTotals = new HashMap<>();
+    // Präfixsummen je Tag für Kontostand und Zeitraum-Summen in O(log Tage)
+    private final DayTotalsIndex dayTotals = new DayTotalsIndex();
+    // Budgets je Monat, nach Kategorie-ID; ein Umbenennen der Kategorie berührt sie nicht
+    private final Map<YearMonth, Map<Integer, Money>> monthlyBudgets = new HashMap<>();
+    // Daueraufträge als Regeln; ihre Ausführungen werden nur für den jeweils gefragten Zeitraum
+    // erzeugt und fließen in Monatswerte, Kontostand und Abfragen ein, nicht in getTransactions()
+    private final Map<UUID, RecurrenceRule> recurrenceRules = new LinkedHashMap<>();
+    // Kategorie-ID je Dauerauftrag; darüber werden die Namen nach einem Umbenennen nachgezogen
+    private final Map<UUID, Integer> ruleCategoryIds = new HashMap<>();
+    private int ruleRenameCount;
+    private final List<TransactionListener> listeners = new ArrayList<>();
+    // Wird bei jeder Änderung erhöht, damit Sichten ihre abgeleiteten Daten wiederverwenden können
+    private long dataVersion;
+
+    public TransactionService() {
+        this(new ListTransactionRepository());
+    }
+
+    public TransactionService(TransactionRepository repository) {
+        this.repository = repository;
+        this.categories = repository.categories();
+        this.ruleRenameCount = categories.renameCount();
+        Set<IndexedQuery> indexed = repository.indexedQueries();
+        this.monthIndexed = indexed.contains(IndexedQuery.BY_MONTH);
+        this.categoryIndexed = indexed.contains(IndexedQuery.BY_CATEGORY);
+        this.textIndexed = indexed.contains(IndexedQuery.TEXT);
+        // Ein bereits befülltes Repository wird übernommen: Indizes und Aggregate daraus aufbauen
+        repository.compact();
+        for (int slot = 0; slot < repository.slotCount(); slot++) {
+            Transaction t = repository.get(slot);
+            int categoryId = repository.categoryId(slot);
+            indexSlot(slot, t, categoryId);
+            applyToAggregates(t, categoryId, true);
+        }
+    }
+
+    /** Kategorie-Wörterbuch, gegen das Buchungen, Budgets und Aggregate ihre IDs auflösen. */
+    public CategoryDictionary getCategoryDictionary() {
+        return categories;
+    }
+
+    /** true, wenn die Buchungen im Speicher selbst dauerhaft liegen (siehe {@link TransactionRepository#isPersistent()}). */
+    public boolean isStorePersistent() {
+        return repository.isPersistent();
+    }
+
+    /** Schreibt die Buchungen eines persistenten Speichers auf die Platte. */
+    public void forceStore() {
+        repository.force();
+    }
+
+    public void addListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TransactionListener listener) {
+        listeners.remove(listener);
+    }
 
     public void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
+        int existing = repository.findSlot(transaction.getId());
+        if (existing >= 0) {
+            // Gleiche ID schon vorhanden (z.B. erneuter Import): wie ein Update behandeln
+            replaceAt(existing, transaction);
+            return;
+        }
+        int slot = repository.append(transaction);
+        int categoryId = repository.categoryId(slot);
+        indexSlot(slot, transaction, categoryId);
+        applyToAggregates(transaction, categoryId, true);
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.transactionAdded(transaction);
+        }
+    }
+
+    /**
+     * Fügt mehrere Transaktionen an und meldet sie den Listenern gesammelt über
+     * {@link TransactionListener#transactionsAdded(List)}. Vorhandene IDs werden wie bei
+     * {@link #addTransaction(Transaction)} ersetzt.
+     */
+    public void addTransactions(Collection<Transaction> transactions) {
+        List<Transaction> added = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            int existing = repository.findSlot(transaction.getId());
+            if (existing >= 0) {
+                // Bisher Angefügtes zuerst melden, damit die Listener die Reihenfolge sehen
+                fireAdded(added);
+                added = new ArrayList<>();
+                replaceAt(existing, transaction);
+                continue;
+            }
+            int slot = repository.append(transaction);
+            int categoryId = repository.categoryId(slot);
+            indexSlot(slot, transaction, categoryId);
+            applyToAggregates(transaction, categoryId, true);
+            added.add(transaction);
+        }
+        dataVersion++;
+        fireAdded(added);
+    }
+
+    /**
+     * Zähler, der sich bei jeder Änderung an Buchungen oder Budgets erhöht. Solange er gleich
+     * bleibt, können daraus berechnete Werte (z.B. Diagramme) weiterverwendet werden.
+     */
+    public long getDataVersion() {
+        return dataVersion;
     }
 
     public List<Transaction> getTransactions() {
-        return Collections.unmodifiableList(transactions);
+        compact();
+        return transactionsView;
     }
 
-    public BigDecimal getMonthlyBalance(YearMonth month) {
-        BigDecimal balance = BigDecimal.ZERO;
-        for (Transaction t : transactions) {
-            if (YearMonth.from(t.getDate()).equals(month)) {
-                if (t.getType() == TransactionType.Einnahmen) {
-                    balance = balance.add(t.getAmount());
-                } else {
-                    balance = balance.subtract(t.getAmount());
-                }
-            }
+    /**
+     * Unveränderlicher Stand aller Buchungen, der in einem anderen Thread gelesen werden darf,
+     * z.B. für einen Snapshot oder Export im Hintergrund. Je nach Speicher wird dabei nichts
+     * kopiert (siehe {@link TransactionRepository#frozenView()}).
+     */
+    public List<Transaction> getTransactionsSnapshot() {
+        compact();
+        return repository.frozenView();
+    }
+
+    // Lesender Zugriff über Slot-Nummern, z.B. für Tabellenmodelle ohne eigene Kopie der Buchungen.
+    // Slots sind in Einfügereihenfolge nummeriert; eine Nummer gilt bis zum nächsten
+    // slotsCompacted() bzw. transactionsCleared() der Listener.
+
+    /** Anzahl Slots einschließlich gelöschter. */
+    public int getSlotCount() {
+        return repository.slotCount();
+    }
+
+    /** Slot der Buchung oder -1. */
+    public int slotOf(UUID id) {
+        return repository.findSlot(id);
+    }
+
+    public boolean isLiveSlot(int slot) {
+        return repository.isLive(slot);
+    }
+
+    public Transaction getTransactionAtSlot(int slot) {
+        return repository.get(slot);
+    }
+
+    public TransactionType typeAt(int slot) {
+        return repository.type(slot);
+    }
+
+    public long amountCentsAt(int slot) {
+        return repository.amountCents(slot);
+    }
+
+    public int epochDayAt(int slot) {
+        return repository.epochDay(slot);
+    }
+
+    public String descriptionAt(int slot) {
+        return repository.description(slot);
+    }
+
+    public String categoryAt(int slot) {
+        return categories.nameOf(repository.categoryId(slot));
+    }
+
+    public Transaction getTransactionById(UUID id) {
+        int slot = repository.findSlot(id);
+        return slot < 0 ? null : repository.get(slot);
+    }
+
+    /** Buchungen eines Monats in Einfügereihenfolge, danach die Ausführungen der Daueraufträge. */
+    public List<Transaction> getTransactionsForMonth(YearMonth month) {
+        List<Transaction> result;
+        if (!monthIndexed) {
+            result = materialize(scanMonth(month));
+        } else {
+            IntList slots = slotsByMonth.get(month);
+            result = slots == null ? new ArrayList<>() : materialize(slots);
         }
-        return balance; 
+        result.addAll(expandRecurrences(month.atDay(1), month.atEndOfMonth()));
+        return result;
     }
 
-    public Map<String, BigDecimal> getExpensesCategoryForMonth(YearMonth month){
-        Map<String, BigDecimal> expensesByCategory = new HashMap<>();
-        for (Transaction t : transactions) {
-            if(t.getType() != TransactionType.Ausgaben) continue;
-            if (!YearMonth.from(t.getDate()).equals(month)) continue;
-            if (t.getCategory() == null || t.getCategory().isBlank()) continue;
+    public Money getMonthlyBalance(YearMonth month) {
+        MonthTotals totals = monthTotals.get(month);
+        long cents = totals == null ? 0 : totals.balanceCents;
+        return Money.ofCents(cents + recurringBalanceCents(month.atDay(1), month.atEndOfMonth()));
+    }
 
-            BigDecimal current = expensesByCategory.getOrDefault(t.getCategory(), BigDecimal.ZERO);
-            expensesByCategory.put(t.getCategory(), current.add(t.getAmount()));
+    /**
+     * Saldo eines Monats nur aus gebuchten Transaktionen, ohne offene Ausführungen der
+     * Daueraufträge; passt also zu {@link #getTransactions()}.
+     */
+    public Money getBookedMonthlyBalance(YearMonth month) {
+        MonthTotals totals = monthTotals.get(month);
+        return Money.ofCents(totals == null ? 0 : totals.balanceCents);
+    }
+
+    /** Kontostand aus allen Buchungen bis einschließlich date. */
+    public Money getBalanceAsOf(LocalDate date) {
+        long day = date.toEpochDay();
+        return Money.ofCents(dayTotals.prefix(DayTotalsIndex.INCOME, day) - dayTotals.prefix(DayTotalsIndex.EXPENSE, day)
+                + recurringBalanceCents(null, date));
+    }
+
+    /** Einnahmen minus Ausgaben von from bis to, jeweils einschließlich. */
+    public Money getNetFlow(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        return Money.ofCents(dayTotals.sum(DayTotalsIndex.INCOME, first, last)
+                - dayTotals.sum(DayTotalsIndex.EXPENSE, first, last) + recurringBalanceCents(from, to));
+    }
+
+    public Map<String, Money> getExpensesCategoryForMonth(YearMonth month){
+        Map<String, Money> expensesByCategory = new HashMap<>();
+        long[] cents = getExpenseCentsByCategoryId(month);
+        for (int id = 0; id < cents.length; id++) {
+            if (cents[id] != 0) {
+                expensesByCategory.put(categories.nameOf(id), Money.ofCents(cents[id]));
+            }
         }
         return expensesByCategory;
     }
 
-    public void setMonthlyBudget(YearMonth month, String category, BigDecimal budget) {
+    /**
+     * Ausgaben eines Monats je Kategorie-ID in Cent (Index = ID im CategoryDictionary).
+     * Das Array ist eine Kopie und kann kürzer als {@link CategoryDictionary#size()} sein.
+     * IDs aus {@link #getCategoryDictionary()}.
+     */
+    public long[] getExpenseCentsByCategoryId(YearMonth month) {
+        MonthTotals totals = monthTotals.get(month);
+        long[] cents = totals == null ? new long[0] : totals.expenseCents.clone();
+        return addRecurringExpenseCents(month, cents);
+    }
+
+    /** Gebuchte Ausgaben eines Monats in einer Kategorie in Cent, ohne Daueraufträge; O(1). */
+    long expenseCents(YearMonth month, int categoryId) {
+        MonthTotals totals = monthTotals.get(month);
+        if (totals == null || categoryId < 0 || categoryId >= totals.expenseCents.length) return 0;
+        return totals.expenseCents[categoryId];
+    }
+
+    /** Nur der Anteil der noch nicht materialisierten Daueraufträge an den Ausgaben eines Monats, in O(Regeln). */
+    long[] getRecurringExpenseCents(YearMonth month) {
+        return addRecurringExpenseCents(month, new long[0]);
+    }
+
+    private long[] addRecurringExpenseCents(YearMonth month, long[] cents) {
+        for (RecurrenceRule rule : rules()) {
+            int id = ruleCategoryIds.get(rule.getId());
+            if (rule.getType() != TransactionType.Ausgaben || id == CategoryDictionary.NONE) continue;
+            int occurrences = rule.countBetween(month.atDay(1), month.atEndOfMonth());
+            if (occurrences == 0) continue;
+            if (id >= cents.length) cents = Arrays.copyOf(cents, Math.max(id + 1, categories.size()));
+            cents[id] += occurrences * rule.getAmount().getCents();
+        }
+        return cents;
+    }
+
+    public Money getExpenseForMonth(YearMonth month, String category) {
+        if (month == null || category == null || category.isBlank()) {
+            return Money.ZERO;
+        }
+        int id = categories.find(category);
+        long[] cents = getExpenseCentsByCategoryId(month);
+        return id < 0 || id >= cents.length ? Money.ZERO : Money.ofCents(cents[id]);
+    }
+
+    public void setMonthlyBudget(YearMonth month, String category, Money budget) {
         if (month == null || category == null || category.isBlank()) {
             return;
         }
-        Map<String, BigDecimal> monthBudgets = monthlyBudgets.computeIfAbsent(month, m -> new HashMap<>());
-        BigDecimal normalized = budget == null ? BigDecimal.ZERO : budget.max(BigDecimal.ZERO);
-        monthBudgets.put(category, normalized);
+        Map<Integer, Money> monthBudgets = monthlyBudgets.computeIfAbsent(month, m -> new HashMap<>());
+        Money normalized = budget == null ? Money.ZERO : budget.max(Money.ZERO);
+        int id = categories.idOf(category);
+        // Jedes Budget hält seine Kategorie-ID fest
+        if (monthBudgets.put(id, normalized) == null) categories.retain(id);
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.budgetChanged(month, category, normalized);
+        }
     }
 
-    public BigDecimal getBudgetForMonth(YearMonth month, String category) {
+    public Money getBudgetForMonth(YearMonth month, String category) {
         if (month == null || category == null || category.isBlank()) {
-            return BigDecimal.ZERO;
+            return Money.ZERO;
         }
         return monthlyBudgets
                 .getOrDefault(month, Map.of())
-                .getOrDefault(category, BigDecimal.ZERO);
+                .getOrDefault(categories.find(category), Money.ZERO);
     }
 
-    public Map<String, BigDecimal> getBudgetsForMonth(YearMonth month){
-        Map<String, BigDecimal> budgets = new HashMap<>();
-        budgets.putAll(monthlyBudgets.getOrDefault(month, Map.of()));
+    public Map<String, Money> getBudgetsForMonth(YearMonth month){
+        Map<String, Money> budgets = new HashMap<>();
+        monthlyBudgets.getOrDefault(month, Map.of())
+                .forEach((id, budget) -> budgets.put(categories.nameOf(id), budget));
         return budgets;
     }
 
+    /**
+     * Alle Budgets aller Monate, z.B. für das Speichern eines Snapshots.
+     */
+    public Map<YearMonth, Map<String, Money>> getAllBudgets() {
+        Map<YearMonth, Map<String, Money>> budgets = new HashMap<>();
+        for (YearMonth month : monthlyBudgets.keySet()) {
+            budgets.put(month, getBudgetsForMonth(month));
+        }
+        return budgets;
+    }
 
-    public boolean removeTransactionById(java.util.UUID id) {
-        return transactions.removeIf(t -> t.getId().equals(id));
+    /**
+     * Führt die Kategorie from in into über: Buchungen und Daueraufträge bekommen into, Budgets
+     * von from gehen an into, wo into im Monat noch keins hat. Gebraucht beim Wiederholen eines
+     * Journals, dessen Umbenennen der Snapshot schon enthält; die Kategorieliste bleibt Sache
+     * des {@link CategoryManager}.
+     */
+    public void mergeCategory(String from, String into) {
+        int fromId = categories.find(from);
+        if (fromId == CategoryDictionary.NONE || into == null || from.equals(into)) return;
+        for (Transaction t : filterByCategory(from)) {
+            updateTransaction(t.withCategory(into));
+        }
+        for (RecurrenceRule rule : new ArrayList<>(rules())) {
+            if (from.equals(rule.getCategory())) putRecurrenceRule(rule.withCategory(into));
+        }
+        Map<YearMonth, Money> moved = new HashMap<>();
+        int removed = 0;
+        for (Map.Entry<YearMonth, Map<Integer, Money>> entry : monthlyBudgets.entrySet()) {
+            Money budget = entry.getValue().remove(fromId);
+            if (budget == null) continue;
+            removed++;
+            if (!entry.getValue().containsKey(categories.find(into))) moved.put(entry.getKey(), budget);
+        }
+        moved.forEach((month, budget) -> setMonthlyBudget(month, into, budget));
+        // Erst nach dem Übertragen freigeben, damit die ID nicht vorher neu vergeben wird
+        for (; removed > 0; removed--) {
+            categories.release(fromId);
+        }
+        dataVersion++;
     }
 
-    public boolean updateTransaction(Transaction updatedTransaction) {
-        for (int i = 0; i < transactions.size(); i++) {
-            if (transactions.get(i).getId().equals(updatedTransaction.getId())) {
-                transactions.set(i, updatedTransaction);
-                return true;
-            }
+    public void clearBudgets() {
+        for (Map<Integer, Money> budgets : monthlyBudgets.values()) {
+            budgets.keySet().forEach(categories::release);
+        }
+        monthlyBudgets.clear();
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.budgetsCleared();
         }
-        return false;
+    }
+
+    public boolean removeTransactionById(UUID id) {
+        int slot = repository.findSlot(id);
+        if (slot < 0) return false;
+
+        Transaction t = repository.get(slot);
+        int categoryId = repository.categoryId(slot);
+        repository.remove(slot);
+        unindexSlot(slot, t, categoryId);
+        applyToAggregates(t, categoryId, false);
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.transactionRemoved(t);
+        }
+
+        // Erst kompaktieren, wenn mehr als die Hälfte der Slots leer ist (amortisiert O(1))
+        if (repository.slotCount() - repository.size() > repository.slotCount() / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    public boolean updateTransaction(Transaction updatedTransaction) {
+        int slot = repository.findSlot(updatedTransaction.getId());
+        if (slot < 0) return false;
+        replaceAt(slot, updatedTransaction);
+        return true;
     }
 
     public List<Transaction> filterByCategory(String category) {
-        return transactions.stream()
-                .filter(t -> category.equals(t.getCategory()))
-                .toList();
+        int categoryId = categories.find(category);
+        if (categoryId == CategoryDictionary.NONE && category != null) return List.of();
+        if (!categoryIndexed) return materialize(scanCategories(id -> id == categoryId));
+        IntList slots = slotsByCategory.get(categoryId);
+        return slots == null ? List.of() : materialize(slots);
     }
 
     public List<Transaction> filterByType(TransactionType type) {
-        return transactions.stream()
-                .filter(t -> t.getType() == type)
-                .toList();
+        return find(TransactionQuery.all().ofType(type));
     }
 
+    /**
+     * Sucht Transaktionen, deren Beschreibung den Text enthält (Groß-/Kleinschreibung egal).
+     */
     public List<Transaction> searchTransactions(String description) {
-        return transactions.stream()
-                .filter(t -> t.getDescription().toLowerCase().contains(description.toLowerCase()))
-                .toList();
+        return materialize(searchSlots(description, false));
+    }
+
+    /**
+     * Sucht Transaktionen, deren Beschreibung oder Kategorie den Text enthält
+     * (Groß-/Kleinschreibung egal). Ergebnis in Einfügereihenfolge.
+     */
+    public List<Transaction> searchText(String query) {
+        return materialize(searchSlots(query, true));
     }
     
+    /**
+     * Liefert die Treffer einer Abfrage in Einfügereihenfolge.
+     */
+    public List<Transaction> find(TransactionQuery query) {
+        List<Transaction> result = materialize(execute(query));
+        result.addAll(recurringMatches(query));
+        return result;
+    }
+
+    /**
+     * Anzahl, Einnahmen und Ausgaben über alle Treffer einer Abfrage. Liest nur die
+     * Spalten des Repositorys (Betrag, Typ), ohne Transaktionen zu materialisieren.
+     */
+    public QueryTotals aggregate(TransactionQuery query) {
+        QueryTotals totals = new QueryTotals();
+        if (query.categories == null && query.text == null && !query.hasAmountRange()) {
+            // Nur Zeitraum und Typ: direkt aus den Tages-Präfixsummen
+            if (query.type != TransactionType.Ausgaben) {
+                totals.add(TransactionType.Einnahmen,
+                        dayTotals.sum(DayTotalsIndex.INCOME_COUNT, query.fromDay, query.toDay),
+                        dayTotals.sum(DayTotalsIndex.INCOME, query.fromDay, query.toDay));
+            }
+            if (query.type != TransactionType.Einnahmen) {
+                totals.add(TransactionType.Ausgaben,
+                        dayTotals.sum(DayTotalsIndex.EXPENSE_COUNT, query.fromDay, query.toDay),
+                        dayTotals.sum(DayTotalsIndex.EXPENSE, query.fromDay, query.toDay));
+            }
+            // Daueraufträge nur zählen, nicht expandieren
+            LocalDate from = query.fromDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(query.fromDay);
+            LocalDate to = query.toDay == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(query.toDay);
+            for (RecurrenceRule rule : rules()) {
+                if ((query.type != null && rule.getType() != query.type) || (to == null && rule.isUnbounded())) continue;
+                int occurrences = rule.countBetween(from, to);
+                totals.add(rule.getType(), occurrences, occurrences * rule.getAmount().getCents());
+            }
+            return totals;
+        }
+        for (Transaction t : recurringMatches(query)) {
+            totals.add(t.getType(), t.getAmountCents());
+        }
+        IntList slots = execute(query);
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            totals.add(repository.type(slot), repository.amountCents(slot));
+        }
+        return totals;
+    }
+
+    /** Wie {@link #aggregate(TransactionQuery)}, gruppiert nach Monat (aufsteigend). */
+    public SortedMap<YearMonth, QueryTotals> aggregateByMonth(TransactionQuery query) {
+        IntList slots = execute(query);
+        SortedMap<YearMonth, QueryTotals> byMonth = new TreeMap<>();
+        // Die Treffer liegen meist monatsweise beieinander: Monatsgrenzen merken statt je Slot umzurechnen
+        int monthStart = 1;
+        int monthEnd = 0;
+        QueryTotals current = null;
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            int day = repository.epochDay(slot);
+            if (day < monthStart || day > monthEnd) {
+                YearMonth month = YearMonth.from(LocalDate.ofEpochDay(day));
+                monthStart = (int) month.atDay(1).toEpochDay();
+                monthEnd = (int) month.atEndOfMonth().toEpochDay();
+                current = byMonth.computeIfAbsent(month, m -> new QueryTotals());
+            }
+            current.add(repository.type(slot), repository.amountCents(slot));
+        }
+        for (Transaction t : recurringMatches(query)) {
+            byMonth.computeIfAbsent(YearMonth.from(t.getDate()), m -> new QueryTotals()).add(t.getType(), t.getAmountCents());
+        }
+        return byMonth;
+    }
+
+    /**
+     * Wie {@link #aggregate(TransactionQuery)}, gruppiert nach Kategoriename. Transaktionen
+     * ohne Kategorie stehen unter dem Schlüssel null. Gruppiert wird über die Kategorie-ID
+     * als Array-Index.
+     */
+    public Map<String, QueryTotals> aggregateByCategory(TransactionQuery query) {
+        IntList slots = execute(query);
+        QueryTotals[] byId = new QueryTotals[categories.size()];
+        QueryTotals none = null;
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            int id = repository.categoryId(slot);
+            QueryTotals totals;
+            if (id == CategoryDictionary.NONE) {
+                totals = none == null ? none = new QueryTotals() : none;
+            } else {
+                if (id >= byId.length) byId = Arrays.copyOf(byId, categories.size());
+                totals = byId[id] == null ? byId[id] = new QueryTotals() : byId[id];
+            }
+            totals.add(repository.type(slot), repository.amountCents(slot));
+        }
+        Map<String, QueryTotals> byCategory = new HashMap<>();
+        for (Transaction t : recurringMatches(query)) {
+            byCategory.computeIfAbsent(t.getCategory(), c -> new QueryTotals()).add(t.getType(), t.getAmountCents());
+        }
+        for (int id = 0; id < byId.length; id++) {
+            if (byId[id] != null) byCategory.put(categories.nameOf(id), byId[id]);
+        }
+        if (none != null) byCategory.put(null, none);
+        return byCategory;
+    }
+
+    /**
+     * Legt einen Dauerauftrag an oder ersetzt ihn (gleiche ID). Es werden keine Buchungen
+     * kopiert; eine Änderung der Regel kostet daher O(1), egal wie viele Ausführungen sie hat.
+     */
+    public void putRecurrenceRule(RecurrenceRule rule) {
+        syncRuleCategories();
+        int categoryId = categories.idOf(rule.getCategory());
+        categories.retain(categoryId);
+        recurrenceRules.put(rule.getId(), rule);
+        Integer previous = ruleCategoryIds.put(rule.getId(), categoryId);
+        if (previous != null) categories.release(previous);
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.recurrenceRuleChanged(rule);
+        }
+    }
+
+    /** Entfernt einen Dauerauftrag; bereits materialisierte Buchungen bleiben erhalten. */
+    public boolean removeRecurrenceRule(UUID id) {
+        syncRuleCategories();
+        RecurrenceRule rule = recurrenceRules.remove(id);
+        if (rule == null) return false;
+        categories.release(ruleCategoryIds.remove(id));
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.recurrenceRuleRemoved(rule);
+        }
+        return true;
+    }
+
+    /**
+     * Beendet einen Dauerauftrag: nach lastDay gibt es keine Ausführungen mehr. Bis dahin
+     * fällige Ausführungen bleiben offen und werden beim nächsten Periodenabschluss gebucht;
+     * bleibt keine mehr übrig, wird der Dauerauftrag entfernt.
+     *
+     * @return false, wenn es den Dauerauftrag nicht gibt
+     */
+    public boolean stopRecurrenceRule(UUID id, LocalDate lastDay) {
+        syncRuleCategories();
+        RecurrenceRule rule = recurrenceRules.get(id);
+        if (rule == null) return false;
+        LocalDate end = rule.getEnd() == null || rule.getEnd().isAfter(lastDay) ? lastDay : rule.getEnd();
+        RecurrenceRule stopped = rule.withEnd(end);
+        if (stopped.countBetween(null, null) == 0) {
+            removeRecurrenceRule(id);
+        } else {
+            putRecurrenceRule(stopped);
+        }
+        return true;
+    }
+
+    public Collection<RecurrenceRule> getRecurrenceRules() {
+        return Collections.unmodifiableCollection(rules());
+    }
+
+    /**
+     * Noch nicht materialisierte Ausführungen aller Daueraufträge von from bis to
+     * (jeweils einschließlich), aufsteigend nach Datum.
+     */
+    public List<Transaction> expandRecurrences(LocalDate from, LocalDate to) {
+        List<Transaction> occurrences = new ArrayList<>();
+        for (RecurrenceRule rule : rules()) {
+            occurrences.addAll(rule.expand(from, to));
+        }
+        occurrences.sort(Comparator.comparing(Transaction::getDate));
+        return occurrences;
+    }
+
+    /**
+     * Bucht alle Ausführungen bis einschließlich until als echte Transaktionen, z.B. beim
+     * Abschluss einer Periode. Beendete Daueraufträge werden danach entfernt.
+     *
+     * @return die neu gebuchten Transaktionen
+     */
+    public List<Transaction> materializeRecurrences(LocalDate until) {
+        List<Transaction> booked = new ArrayList<>();
+        for (RecurrenceRule rule : new ArrayList<>(rules())) {
+            booked.addAll(materializeRecurrence(rule.getId(), until));
+        }
+        return booked;
+    }
+
+    /** Wie {@link #materializeRecurrences(LocalDate)}, nur für einen Dauerauftrag. */
+    public List<Transaction> materializeRecurrence(UUID ruleId, LocalDate until) {
+        syncRuleCategories();
+        RecurrenceRule rule = recurrenceRules.get(ruleId);
+        if (rule == null) return List.of();
+        List<Transaction> due = rule.expand(null, until);
+        // Erst die Regel vorrücken, dann buchen: so zählt keine Ausführung zwischendurch doppelt
+        if (rule.endsBefore(until.plusDays(1))) {
+            removeRecurrenceRule(ruleId);
+        } else if (!due.isEmpty()) {
+            putRecurrenceRule(rule.withMaterializedUntil(until));
+        }
+        addTransactions(due);
+        return due;
+    }
+
     // Neue Methode für den Import
     public void setTransactions(List<Transaction> newTransactions) {
-        this.transactions.clear();
-        this.transactions.addAll(newTransactions);
+        this.repository.clear();
+        this.slotsByMonth.clear();
+        this.slotsByCategory.clear();
+        this.descriptionIndex.clear();
+        this.monthTotals.clear();
+        this.dayTotals.clear();
+        for (int id = 0; id < categoryUsage.length; id++) {
+            if (categoryUsage[id] > 0) categories.release(id);
+        }
+        this.categoryUsage = new int[0];
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.transactionsCleared();
+        }
+        addTransactions(newTransactions);
     }
-}
 
+    private void fireAdded(List<Transaction> added) {
+        if (added.isEmpty()) return;
+        List<Transaction> view = Collections.unmodifiableList(added);
+        for (TransactionListener listener : listeners) {
+            listener.transactionsAdded(view);
+        }
+    }
+
+    private void replaceAt(int slot, Transaction updated) {
+        Transaction old = repository.get(slot);
+        int oldCategoryId = repository.categoryId(slot);
+        repository.set(slot, updated);
+        int categoryId = repository.categoryId(slot);
+        unindexSlot(slot, old, oldCategoryId);
+        indexSlot(slot, updated, categoryId);
+        // Erst einbuchen, dann ausbuchen: bei gleicher Kategorie wird die ID so nie kurz frei
+        applyToAggregates(updated, categoryId, true);
+        applyToAggregates(old, oldCategoryId, false);
+        dataVersion++;
+        for (TransactionListener listener : listeners) {
+            listener.transactionUpdated(old, updated);
+        }
+    }
+
+    /**
+     * Entfernt die leeren Slots gelöschter Transaktionen und baut die Slot-Indizes neu auf.
+     * Die Reihenfolge der übrigen Transaktionen bleibt erhalten.
+     */
+    private void compact() {
+        if (repository.size() == repository.slotCount()) return;
+        repository.compact();
+        slotsByMonth.clear();
+        slotsByCategory.clear();
+        descriptionIndex.clear();
+        for (int slot = 0; slot < repository.slotCount(); slot++) {
+            indexSlot(slot, repository.get(slot), repository.categoryId(slot));
+        }
+        for (TransactionListener listener : listeners) {
+            listener.slotsCompacted();
+        }
+    }
+
+    private void indexSlot(int slot, Transaction t, int categoryId) {
+        if (monthIndexed) {
+            slotsByMonth.computeIfAbsent(YearMonth.from(t.getDate()), m -> new IntList()).addSorted(slot);
+        }
+        if (categoryIndexed) {
+            slotsByCategory.computeIfAbsent(categoryId, c -> new IntList()).addSorted(slot);
+        }
+        if (textIndexed) {
+            descriptionIndex.add(slot, t.getDescription());
+        }
+    }
+
+    /**
+     * Trägt einen Slot aus Monats- und Kategorie-Index aus. Der Trigramm-Index wird erst
+     * beim Kompaktieren bereinigt; veraltete Treffer fallen bei der Prüfung in searchSlots heraus.
+     */
+    private void unindexSlot(int slot, Transaction t, int categoryId) {
+        removeSlot(slotsByMonth, YearMonth.from(t.getDate()), slot);
+        removeSlot(slotsByCategory, categoryId, slot);
+    }
+
+    /** Monatsabfrage ohne Index: vergleicht nur die Epoch-Days der Slots. */
+    private IntList scanMonth(YearMonth month) {
+        int first = (int) month.atDay(1).toEpochDay();
+        int last = (int) month.atEndOfMonth().toEpochDay();
+        IntList result = new IntList();
+        for (int slot = 0; slot < repository.slotCount(); slot++) {
+            if (!repository.isLive(slot)) continue;
+            int day = repository.epochDay(slot);
+            if (day >= first && day <= last) result.add(slot);
+        }
+        return result;
+    }
+
+    /** Kategorieabfrage ohne Index: prüft die Kategorie-ID jedes belegten Slots. */
+    private IntList scanCategories(IntPredicate categoryMatches) {
+        IntList result = new IntList();
+        for (int slot = 0; slot < repository.slotCount(); slot++) {
+            if (repository.isLive(slot) && categoryMatches.test(repository.categoryId(slot))) {
+                result.add(slot);
+            }
+        }
+        return result;
+    }
+
+    private static <K> void removeSlot(Map<K, IntList> index, K key, int slot) {
+        IntList slots = index.get(key);
+        if (slots == null) return;
+        slots.removeSorted(slot);
+        if (slots.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Teilstring-Suche über den Trigramm-Index bzw. einen Durchlauf, wenn das Repository
+     * keine indizierte Textsuche anbietet. Kategorien werden direkt über das Wörterbuch
+     * geprüft (wenige Einträge) und über den Kategorie-Index auf Slots abgebildet, damit
+     * auch umbenannte Kategorien sofort gefunden werden.
+     */
+    private IntList searchSlots(String query, boolean includeCategory) {
+        compact();
+        String needle = TrigramIndex.normalize(query);
+        IntList candidates = textIndexed ? descriptionIndex.candidates(needle) : null;
+
+        boolean[] slotMatches = new boolean[repository.slotCount()];
+        if (candidates == null) {
+            for (int slot = 0; slot < repository.slotCount(); slot++) {
+                slotMatches[slot] = descriptionContains(slot, needle);
+            }
+        } else {
+            for (int i = 0; i < candidates.size(); i++) {
+                int slot = candidates.get(i);
+                slotMatches[slot] = descriptionContains(slot, needle);
+            }
+        }
+
+        if (includeCategory) {
+            boolean[] categoryMatches = new boolean[categories.size()];
+            for (int id = 0; id < categoryMatches.length; id++) {
+                String name = categories.nameOf(id);
+                categoryMatches[id] = name != null && TrigramIndex.normalize(name).contains(needle);
+            }
+            if (categoryIndexed) {
+                for (int id = 0; id < categoryMatches.length; id++) {
+                    if (categoryMatches[id]) markSlots(slotsByCategory.get(id), slotMatches);
+                }
+            } else {
+                markSlots(scanCategories(id -> id >= 0 && id < categoryMatches.length && categoryMatches[id]),
+                        slotMatches);
+            }
+        }
+
+        IntList result = new IntList();
+        for (int slot = 0; slot < slotMatches.length; slot++) {
+            if (slotMatches[slot]) result.add(slot);
+        }
+        return result;
+    }
+
+    private static void markSlots(IntList slots, boolean[] slotMatches) {
+        if (slots == null) return;
+        for (int i = 0; i < slots.size(); i++) {
+            slotMatches[slots.get(i)] = true;
+        }
+    }
+
+    private boolean descriptionContains(int slot, String needle) {
+        Transaction t = repository.get(slot);
+        return t != null && t.getDescription() != null
+                && TrigramIndex.normalize(t.getDescription()).contains(needle);
+    }
+
+    /** Saldo der noch nicht materialisierten Dauerauftrags-Ausführungen von from bis to, in O(Regeln). */
+    private long recurringBalanceCents(LocalDate from, LocalDate to) {
+        long cents = 0;
+        for (RecurrenceRule rule : rules()) {
+            cents += rule.countBetween(from, to) * rule.getSignedAmountCents();
+        }
+        return cents;
+    }
+
+    /**
+     * Ausführungen der Daueraufträge, die zur Abfrage passen, expandiert nur im Zeitraum der
+     * Abfrage. Ist der Zeitraum nach oben offen, tragen unbegrenzte Daueraufträge nichts bei.
+     */
+    private List<Transaction> recurringMatches(TransactionQuery query) {
+        if (recurrenceRules.isEmpty()) return List.of();
+        QueryFilter filter = new QueryFilter(query);
+        LocalDate from = query.fromDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(query.fromDay);
+        LocalDate to = query.toDay == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(query.toDay);
+        List<Transaction> matches = new ArrayList<>();
+        for (RecurrenceRule rule : rules()) {
+            if (to == null && rule.isUnbounded()) continue;
+            if (query.type != null && rule.getType() != query.type) continue;
+            for (Transaction t : rule.expand(from, to)) {
+                if (filter.matches(t)) matches.add(t);
+            }
+        }
+        matches.sort(Comparator.comparing(Transaction::getDate));
+        return matches;
+    }
+
+    /**
+     * Führt eine Abfrage aus: der Planer wählt die kleinste Kandidatenmenge unter den
+     * vorhandenen Indizes (Monat, Kategorie, Text) oder einen Durchlauf, danach werden die
+     * übrigen Bedingungen je Kandidat geprüft. Datum, Kategorie, Typ und Betrag kommen
+     * direkt aus dem Repository; materialisiert wird nur für die Textprüfung.
+     * Ergebnis sind die Slots in Einfügereihenfolge.
+     */
+    private IntList execute(TransactionQuery query) {
+        compact();
+        QueryFilter filter = new QueryFilter(query);
+        IntList candidates = candidates(filter, chooseIndex(filter));
+        IntList result = new IntList();
+        if (candidates == null) {
+            for (int slot = 0; slot < repository.slotCount(); slot++) {
+                if (filter.matches(slot)) result.add(slot);
+            }
+        } else {
+            for (int i = 0; i < candidates.size(); i++) {
+                int slot = candidates.get(i);
+                if (filter.matches(slot)) result.add(slot);
+            }
+        }
+        return result;
+    }
+
+    /** Index, den der Planer für die Abfrage wählen würde; null bedeutet Durchlauf. */
+    IndexedQuery chooseIndex(TransactionQuery query) {
+        compact();
+        return chooseIndex(new QueryFilter(query));
+    }
+
+    /**
+     * Schätzt für jeden nutzbaren Index die Zahl der Kandidaten und nimmt den kleinsten.
+     * Monats- und Kategorie-Index liefern die genaue Zahl, der Trigramm-Index eine Obergrenze.
+     */
+    private IndexedQuery chooseIndex(QueryFilter filter) {
+        IndexedQuery best = null;
+        long bestEstimate = repository.slotCount();
+        if (monthIndexed && filter.query.hasDateRange()) {
+            long estimate = 0;
+            for (Map.Entry<YearMonth, IntList> entry : slotsByMonth.entrySet()) {
+                if (filter.overlaps(entry.getKey())) estimate += entry.getValue().size();
+            }
+            if (estimate < bestEstimate) {
+                best = IndexedQuery.BY_MONTH;
+                bestEstimate = estimate;
+            }
+        }
+        if (categoryIndexed && filter.categoryMask != null) {
+            long estimate = categorySlotCount(filter.categoryMask, filter.noCategory);
+            if (estimate < bestEstimate) {
+                best = IndexedQuery.BY_CATEGORY;
+                bestEstimate = estimate;
+            }
+        }
+        if (textIndexed && filter.query.text != null) {
+            long estimate = descriptionIndex.estimate(filter.query.text);
+            // Treffer über den Kategorienamen stehen nicht im Trigramm-Index, nur im Kategorie-Index
+            boolean usable = estimate >= 0 && (categoryIndexed || !filter.anyTextCategory);
+            if (usable) {
+                estimate += categorySlotCount(filter.textCategories, false);
+                if (estimate < bestEstimate) {
+                    best = IndexedQuery.TEXT;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Kandidaten-Slots des gewählten Index, aufsteigend sortiert; null für einen Durchlauf. */
+    private IntList candidates(QueryFilter filter, IndexedQuery index) {
+        if (index == null) return null;
+        IntList candidates = new IntList();
+        switch (index) {
+            case BY_MONTH:
+                for (Map.Entry<YearMonth, IntList> entry : slotsByMonth.entrySet()) {
+                    if (filter.overlaps(entry.getKey())) appendAll(candidates, entry.getValue());
+                }
+                break;
+            case BY_CATEGORY:
+                appendCategorySlots(candidates, filter.categoryMask, filter.noCategory);
+                break;
+            case TEXT:
+                appendAll(candidates, descriptionIndex.candidates(filter.query.text));
+                appendCategorySlots(candidates, filter.textCategories, false);
+                break;
+            default:
+                return null;
+        }
+        candidates.sortDistinct();
+        return candidates;
+    }
+
+    private long categorySlotCount(boolean[] mask, boolean noCategory) {
+        long count = 0;
+        for (int id = 0; id < mask.length; id++) {
+            if (!mask[id]) continue;
+            IntList slots = slotsByCategory.get(id);
+            if (slots != null) count += slots.size();
+        }
+        IntList uncategorized = noCategory ? slotsByCategory.get(CategoryDictionary.NONE) : null;
+        return uncategorized == null ? count : count + uncategorized.size();
+    }
+
+    private void appendCategorySlots(IntList target, boolean[] mask, boolean noCategory) {
+        for (int id = 0; id < mask.length; id++) {
+            if (mask[id]) appendAll(target, slotsByCategory.get(id));
+        }
+        if (noCategory) appendAll(target, slotsByCategory.get(CategoryDictionary.NONE));
+    }
+
+    private static void appendAll(IntList target, IntList slots) {
+        if (slots == null) return;
+        for (int i = 0; i < slots.size(); i++) {
+            target.add(slots.get(i));
+        }
+    }
+
+    private List<Transaction> materialize(IntList slots) {
+        List<Transaction> result = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            result.add(repository.get(slots.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Bucht eine Transaktion in die Monatssalden, Kategorie-Ausgaben und Tagessummen ein (added = true)
+     * oder wieder aus (added = false). Rechnet nur mit long-Cent, ohne Objekte anzulegen.
+     */
+    private void applyToAggregates(Transaction t, int categoryId, boolean added) {
+        useCategory(categoryId, added);
+        YearMonth month = YearMonth.from(t.getDate());
+        MonthTotals totals = monthTotals.computeIfAbsent(month, m -> new MonthTotals());
+        long sign = added ? 1 : -1;
+        totals.balanceCents += sign * t.getSignedAmountCents();
+        dayTotals.add((int) t.getDate().toEpochDay(), t.getType(), t.getAmountCents(), (int) sign);
+
+        if (t.getType() != TransactionType.Ausgaben) return;
+        if (t.getCategory() == null || t.getCategory().isBlank()) return;
+
+        if (categoryId >= totals.expenseCents.length) {
+            totals.expenseCents = Arrays.copyOf(totals.expenseCents, Math.max(categoryId + 1, categories.size()));
+        }
+        totals.expenseCents[categoryId] += sign * t.getAmountCents();
+    }
+
+    /** Zählt die Buchungen je Kategorie-ID und hält die ID im Wörterbuch, solange es welche gibt. */
+    private void useCategory(int categoryId, boolean added) {
+        if (categoryId == CategoryDictionary.NONE) return;
+        if (categoryId >= categoryUsage.length) {
+            categoryUsage = Arrays.copyOf(categoryUsage, Math.max(categoryId + 1, categories.size()));
+        }
+        if (added) {
+            if (categoryUsage[categoryId]++ == 0) categories.retain(categoryId);
+        } else if (--categoryUsage[categoryId] == 0) {
+            categories.release(categoryId);
+        }
+    }
+
+    /** Daueraufträge mit aktuellen Kategorienamen. */
+    private Collection<RecurrenceRule> rules() {
+        syncRuleCategories();
+        return recurrenceRules.values();
+    }
+
+    /** Zieht nach einem Umbenennen die Kategorienamen der Daueraufträge nach, in O(Regeln). */
+    private void syncRuleCategories() {
+        if (ruleRenameCount == categories.renameCount()) return;
+        ruleRenameCount = categories.renameCount();
+        for (Map.Entry<UUID, RecurrenceRule> entry : recurrenceRules.entrySet()) {
+            String name = categories.nameOf(ruleCategoryIds.get(entry.getKey()));
+            if (!Objects.equals(name, entry.getValue().getCategory())) {
+                entry.setValue(entry.getValue().withCategory(name));
+            }
+        }
+    }
+
+    /**
+     * Laufende Summen eines Monats; die Kategorie-Ausgaben liegen in einem long-Array,
+     * indiziert mit der Kategorie-ID.
+     */
+    private static final class MonthTotals {
+        long balanceCents;
+        long[] expenseCents = new long[0];
+    }
+
+    /**
+     * Eine Abfrage, aufgelöst gegen das aktuelle Kategorie-Wörterbuch: Kategorienamen als
+     * Maske über die IDs, Texttreffer in Kategorienamen ebenfalls als Maske.
+     */
+    private final class QueryFilter {
+        final TransactionQuery query;
+        // null = keine Kategoriebedingung
+        final boolean[] categoryMask;
+        final boolean noCategory;
+        // Kategorien, deren Name den Suchtext enthält (nur bei Textbedingung)
+        final boolean[] textCategories;
+        final boolean anyTextCategory;
+
+        QueryFilter(TransactionQuery query) {
+            this.query = query;
+            int categoryCount = categories.size();
+            if (query.categories == null) {
+                categoryMask = null;
+                noCategory = false;
+            } else {
+                categoryMask = new boolean[categoryCount];
+                boolean none = false;
+                for (String category : query.categories) {
+                    int id = categories.find(category);
+                    if (category == null) {
+                        none = true;
+                    } else if (id != CategoryDictionary.NONE && id < categoryCount) {
+                        categoryMask[id] = true;
+                    }
+                }
+                noCategory = none;
+            }
+            textCategories = new boolean[query.text == null ? 0 : categoryCount];
+            boolean any = false;
+            for (int id = 0; id < textCategories.length; id++) {
+                String name = categories.nameOf(id);
+                textCategories[id] = name != null && TrigramIndex.normalize(name).contains(query.text);
+                any |= textCategories[id];
+            }
+            anyTextCategory = any;
+        }
+
+        boolean overlaps(YearMonth month) {
+            return month.atDay(1).toEpochDay() <= query.toDay && month.atEndOfMonth().toEpochDay() >= query.fromDay;
+        }
+
+        /** Prüft eine nicht gespeicherte Transaktion (z.B. Ausführung eines Dauerauftrags). */
+        boolean matches(Transaction t) {
+            int day = (int) t.getDate().toEpochDay();
+            if (day < query.fromDay || day > query.toDay) return false;
+            int categoryId = categories.find(t.getCategory());
+            if (categoryMask != null) {
+                boolean inCategory = categoryId == CategoryDictionary.NONE ? noCategory
+                        : categoryId < categoryMask.length && categoryMask[categoryId];
+                if (!inCategory) return false;
+            }
+            if (query.type != null && t.getType() != query.type) return false;
+            if (t.getAmountCents() < query.minCents || t.getAmountCents() > query.maxCents) return false;
+            if (query.text != null) {
+                boolean categoryHit = categoryId >= 0 && categoryId < textCategories.length && textCategories[categoryId];
+                return categoryHit || (t.getDescription() != null
+                        && TrigramIndex.normalize(t.getDescription()).contains(query.text));
+            }
+            return true;
+        }
+
+        boolean matches(int slot) {
+            if (!repository.isLive(slot)) return false;
+            if (query.hasDateRange()) {
+                int day = repository.epochDay(slot);
+                if (day < query.fromDay || day > query.toDay) return false;
+            }
+            int categoryId = categoryMask != null || query.text != null ? repository.categoryId(slot) : 0;
+            if (categoryMask != null) {
+                boolean inCategory = categoryId == CategoryDictionary.NONE ? noCategory
+                        : categoryId < categoryMask.length && categoryMask[categoryId];
+                if (!inCategory) return false;
+            }
+            if (query.type != null && repository.type(slot) != query.type) return false;
+            if (query.hasAmountRange()) {
+                long cents = repository.amountCents(slot);
+                if (cents < query.minCents || cents > query.maxCents) return false;
+            }
+            if (query.text != null) {
+                boolean categoryHit = categoryId >= 0 && categoryId < textCategories.length && textCategories[categoryId];
+                return categoryHit || descriptionContains(slot, query.text);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Nur-Lese-Sicht auf das Repository; wird nur nach dem Kompaktieren herausgegeben,
+     * daher entspricht jeder Index einem belegten Slot.
+     */
+    private final class RepositoryView extends AbstractList<Transaction> implements RandomAccess {
+        @Override
+        public Transaction get(int index) {
+            return repository.get(index);
+        }
+
+        @Override
+        public int size() {
+            return repository.slotCount();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.euerteam.budgetplanner.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Invertierter Trigramm-Index über Texte (Beschreibungen), adressiert über Slots.
+ * Jedes Trigramm des kleingeschriebenen Textes verweist auf eine aufsteigend sortierte
+ * Slot-Liste. Eine Teilstring-Suche schneidet die Listen der Trigramme des Suchbegriffs.
+ *
+ * Gelöschte oder geänderte Texte werden nicht sofort ausgetragen; die Treffer sind daher
+ * nur Kandidaten und müssen vom Aufrufer gegen den aktuellen Text geprüft werden.
+ * Beim Kompaktieren der Slots wird der Index neu aufgebaut.
+ */
+final class TrigramIndex {
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    void add(int slot, String text) {
+        if (text == null) return;
+        String normalized = normalize(text);
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            postings.computeIfAbsent(gram(normalized, i), g -> new IntList(4)).addSorted(slot);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Liefert die Kandidaten-Slots für einen Teilstring, aufsteigend sortiert,
+     * oder null, wenn der Suchbegriff zu kurz ist und alle Slots geprüft werden müssen.
+     */
+    IntList candidates(String query) {
+        String normalized = normalize(query);
+        if (normalized.length() < 3) return null;
+
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            IntList list = postings.get(gram(normalized, i));
+            if (list == null) return new IntList(1);
+            lists.add(list);
+        }
+        // Mit der kürzesten Liste beginnen, dann nur noch per Binärsuche prüfen
+        lists.sort(Comparator.comparingInt(IntList::size));
+
+        IntList smallest = lists.get(0);
+        IntList result = new IntList(smallest.size());
+        for (int i = 0; i < smallest.size(); i++) {
+            int slot = smallest.get(i);
+            boolean inAll = true;
+            for (int l = 1; l < lists.size() && inAll; l++) {
+                inAll = lists.get(l).containsSorted(slot);
+            }
+            if (inAll) result.add(slot);
+        }
+        return result;
+    }
+
+    /**
+     * Obergrenze für die Anzahl Kandidaten eines Teilstrings (Länge der kürzesten Liste),
+     * ohne die Listen zu schneiden; -1, wenn der Suchbegriff zu kurz ist.
+     */
+    int estimate(String query) {
+        String normalized = normalize(query);
+        if (normalized.length() < 3) return -1;
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            IntList list = postings.get(gram(normalized, i));
+            if (list == null) return 0;
+            smallest = Math.min(smallest, list.size());
+        }
+        return smallest;
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
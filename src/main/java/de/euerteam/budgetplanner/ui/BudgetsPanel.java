@@ -4,8 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.FlowLayout;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -27,6 +25,7 @@ import javax.swing.SpinnerDateModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 
+import de.euerteam.budgetplanner.model.Money;
 import de.euerteam.budgetplanner.service.CategoryManager;
 import de.euerteam.budgetplanner.service.TransactionService;
 
@@ -95,24 +94,22 @@ public class BudgetsPanel extends JPanel {
 
     public void refreshData(){
        YearMonth month = getSelectedMonth();
-        Map<String, BigDecimal> budgets = transactionService.getBudgetsForMonth(month);
-        Map<String, BigDecimal> expenses = transactionService.getExpensesCategoryForMonth(month);
+        Map<String, Money> budgets = transactionService.getBudgetsForMonth(month);
+        Map<String, Money> expenses = transactionService.getExpensesCategoryForMonth(month);
 
         tableModel.setRowCount(0);
         for (String category : categoryManager.getCategories()) {
             
-            BigDecimal budget = budgets.getOrDefault(category, BigDecimal.ZERO);
-            BigDecimal expense = expenses.getOrDefault(category, BigDecimal.ZERO);
-            BigDecimal remaining = budget.subtract(expense);
+            Money budget = budgets.getOrDefault(category, Money.ZERO);
+            Money expense = expenses.getOrDefault(category, Money.ZERO);
+            Money remaining = budget.minus(expense);
 
             int usagePercent;
-            if (budget.compareTo(BigDecimal.ZERO) <= 0) {
-                usagePercent = expense.compareTo(BigDecimal.ZERO) > 0 ? 200 : 0;
+            if (budget.signum() <= 0) {
+                usagePercent = expense.signum() > 0 ? 200 : 0;
             } else {
-                usagePercent = expense
-                        .multiply(BigDecimal.valueOf(100))
-                        .divide(budget, 0, RoundingMode.HALF_UP)
-                        .intValue();
+                // Prozent kaufmännisch gerundet, rein in Cent gerechnet
+                usagePercent = (int) ((expense.getCents() * 200 + budget.getCents()) / (budget.getCents() * 2));
             }
 
             tableModel.addRow(new Object[] {category, budget, expense, remaining, usagePercent});
@@ -126,7 +123,7 @@ public class BudgetsPanel extends JPanel {
                 throw new IllegalArgumentException("Bitte eine gültige Kategorie wählen.");
             }
 
-            BigDecimal budgetValue = parseBudgetValue();
+            Money budgetValue = parseBudgetValue();
             transactionService.setMonthlyBudget(getSelectedMonth(), category, budgetValue);
             refreshData();
         } catch (Exception ex) {
@@ -134,17 +131,12 @@ public class BudgetsPanel extends JPanel {
         }
     }
 
-    private BigDecimal parseBudgetValue() {
-        Object value = budgetAmountField.getValue();
-        if (value instanceof Number) {
-            return BigDecimal.valueOf(((Number) value).doubleValue()).max(BigDecimal.ZERO);
+    private Money parseBudgetValue() {
+        String text = budgetAmountField.getText();
+        if (text == null || text.replaceAll("[^0-9]", "").isEmpty()) {
+            return Money.ZERO;
         }
-
-        String cleaned = budgetAmountField.getText().replaceAll("[^0-9,.-]", "").replace(',', '.').trim();
-        if (cleaned.isBlank()) {
-            return BigDecimal.ZERO;
-        }
-        return new BigDecimal(cleaned).max(BigDecimal.ZERO);
+        return Money.parseGerman(text).max(Money.ZERO);
     }
 
      private YearMonth getSelectedMonth() {
@@ -158,8 +150,8 @@ public class BudgetsPanel extends JPanel {
         }
         @Override
         protected void setValue(Object value) {
-            if (value instanceof BigDecimal) {
-                setText(currencyFormat.format((BigDecimal) value));
+            if (value instanceof Money) {
+                setText(((Money) value).format());
                 return;
             }
             if (value instanceof Number) {
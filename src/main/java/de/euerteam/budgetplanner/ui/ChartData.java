@@ -0,0 +1,74 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+
+/**
+ * Alle Werte, die die Statistik-Diagramme brauchen, in einem Durchlauf über die Buchungen
+ * berechnet: Ausgaben je Kategorie und der Kontostand am Ende jedes Tages mit Buchungen.
+ * Unveränderlich, damit die Diagramme sie wiederverwenden können, bis sich die Daten ändern.
+ */
+final class ChartData {
+    /** Ausgaben je Kategoriename in Cent; ohne Kategorie unter "Unbekannt". */
+    final Map<String, Long> expensesByCategory;
+    /** Tage mit Buchungen als Epoch-Days, aufsteigend. */
+    final int[] days;
+    /** Kontostand in Cent am Ende des jeweiligen Tages aus {@link #days}. */
+    final long[] balances;
+
+    private ChartData(Map<String, Long> expensesByCategory, int[] days, long[] balances) {
+        this.expensesByCategory = expensesByCategory;
+        this.days = days;
+        this.balances = balances;
+    }
+
+    static ChartData collect(List<Transaction> transactions) {
+        int count = transactions.size();
+        // Je Kategorie ein Summenfeld; die Namen kommen aus dem Wörterbuch und haben ihren Hash schon berechnet
+        Map<String, long[]> centsByCategory = new HashMap<>();
+        // Epoch-Day in den oberen, Index in den unteren 32 Bit: Sortieren ohne Comparator und ohne Boxing
+        long[] byDay = new long[count];
+        long[] signedCents = new long[count];
+        int dated = 0;
+
+        for (int i = 0; i < count; i++) {
+            Transaction t = transactions.get(i);
+            if (t == null) continue;
+            if (t.getType() == TransactionType.Ausgaben) {
+                String category = t.getCategory() == null ? "Unbekannt" : t.getCategory();
+                centsByCategory.computeIfAbsent(category, c -> new long[1])[0] += t.getAmountCents();
+            }
+            if (t.getDate() != null) {
+                byDay[dated] = (t.getDate().toEpochDay() << 32) | dated;
+                signedCents[dated] = t.getSignedAmountCents();
+                dated++;
+            }
+        }
+
+        Map<String, Long> expensesByCategory = new HashMap<>();
+        centsByCategory.forEach((category, cents) -> expensesByCategory.put(category, cents[0]));
+
+        Arrays.sort(byDay, 0, dated);
+        int[] days = new int[dated];
+        long[] balances = new long[dated];
+        int dayCount = 0;
+        long balance = 0;
+        for (int i = 0; i < dated; i++) {
+            int day = (int) (byDay[i] >> 32);
+            balance += signedCents[(int) byDay[i]];
+            if (dayCount > 0 && days[dayCount - 1] == day) {
+                balances[dayCount - 1] = balance;
+            } else {
+                days[dayCount] = day;
+                balances[dayCount] = balance;
+                dayCount++;
+            }
+        }
+        return new ChartData(expensesByCategory, Arrays.copyOf(days, dayCount), Arrays.copyOf(balances, dayCount));
+    }
+}
@@ -0,0 +1,73 @@
+package de.euerteam.budgetplanner.ui;
+
+/**
+ * Ausdünnen von Zeitreihen für Liniendiagramme mit "Largest Triangle Three Buckets" (LTTB).
+ * Die Reihe wird in gleich große Eimer geteilt; aus jedem Eimer bleibt der Punkt, der mit
+ * dem zuletzt gewählten Punkt und dem Mittel des nächsten Eimers das größte Dreieck bildet.
+ * Spitzen und Knicke bleiben so erhalten, anders als bei einfachem Mitteln oder jedem n-ten Punkt.
+ */
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Wählt höchstens threshold Punkte aus dem Bereich [from, to) der Reihe (x aufsteigend).
+     * Erster und letzter Punkt sind immer enthalten.
+     *
+     * @return die Indizes der gewählten Punkte, aufsteigend
+     */
+    static int[] lttb(int[] x, long[] y, int from, int to, int threshold) {
+        int count = to - from;
+        if (count <= threshold || threshold < 3) {
+            int[] all = new int[Math.max(count, 0)];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int selectedCount = 0;
+        // Erster und letzter Punkt sind fest, die übrigen verteilen sich auf threshold - 2 Eimer
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = from;
+        selected[selectedCount++] = previous;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Mittelwert des nächsten Eimers als dritter Eckpunkt
+            int nextStart = from + (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(from + (int) ((bucket + 2) * bucketSize) + 1, to);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            int start = from + (int) (bucket * bucketSize) + 1;
+            int end = from + (int) ((bucket + 1) * bucketSize) + 1;
+            double previousX = x[previous];
+            double previousY = y[previous];
+            double largestArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Doppelte Dreiecksfläche genügt für den Vergleich
+                double area = Math.abs((previousX - averageX) * (y[i] - previousY)
+                        - (previousX - x[i]) * (averageY - previousY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            selected[selectedCount++] = chosen;
+            previous = chosen;
+        }
+
+        selected[selectedCount++] = to - 1;
+        return selected;
+    }
+}
@@ -4,9 +4,15 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Point;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
 import javax.swing.SwingUtilities;
@@ -14,6 +20,11 @@ import javax.swing.SwingUtilities;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLightLaf;
 
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.persistence.LedgerStorage;
+import de.euerteam.budgetplanner.persistence.ListTransactionRepository;
+import de.euerteam.budgetplanner.persistence.TransactionRepositories;
+import de.euerteam.budgetplanner.persistence.TransactionRepository;
 import de.euerteam.budgetplanner.service.CategoryManager;
 import de.euerteam.budgetplanner.service.TransactionService;
 
@@ -28,8 +39,24 @@ public class MainFrame extends JFrame {
         setSize(1000, 650);
         setLocationRelativeTo(null);
 
-        TransactionService transactionService = new TransactionService();
+        // Das Kategorie-Wörterbuch gehört dem CategoryManager; das Repository löst darüber die IDs auf
         CategoryManager categoryManager = new CategoryManager();
+        TransactionRepository repository = createRepository(categoryManager.getDictionary());
+        TransactionService transactionService = new TransactionService(repository);
+        // Jede Änderung landet sofort im Journal; beim Schließen wird ein Snapshot geschrieben
+        LedgerStorage storage = openStorage(transactionService, categoryManager);
+        if (storage != null) {
+            storage.setFailureListener(ex -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Daten konnten nicht gesichert werden:\n" + ex.getMessage(),
+                    "Fehler", JOptionPane.ERROR_MESSAGE)));
+        }
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeStorage(storage);
+                closeRepository(repository);
+            }
+        });
 
         JTabbedPane tabs = new JTabbedPane();
 
@@ -43,7 +70,7 @@ public class MainFrame extends JFrame {
 
         tabs.addChangeListener(e -> {
             if (tabs.getSelectedComponent() == statisticPanel){
-                statisticPanel.refreshCharts();
+                statisticPanel.refreshIfChanged();
             }
             if (tabs.getSelectedComponent() == budgetsPanel){
                 budgetsPanel.refreshData();
@@ -64,6 +91,62 @@ public class MainFrame extends JFrame {
         add(rightPanel, BorderLayout.EAST);
     }
 
+    /**
+     * Speicher-Engine nach -Dbudgetplanner.store (list, indexed oder file, siehe
+     * {@link TransactionRepositories}); ohne Angabe der indizierte Speicher im Heap.
+     */
+    private static TransactionRepository createRepository(CategoryDictionary categories) {
+        try {
+            return TransactionRepositories.create(System.getProperty("budgetplanner.store"), dataDirectory(), categories);
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(null, "Speicher konnte nicht geöffnet werden: " + ex.getMessage(),
+                    "Fehler", JOptionPane.ERROR_MESSAGE);
+            return new ListTransactionRepository(categories);
+        }
+    }
+
+    /** Datenverzeichnis, mit -Dbudgetplanner.dataDir änderbar. */
+    private static Path dataDirectory() {
+        String configured = System.getProperty("budgetplanner.dataDir");
+        return configured != null && !configured.isBlank()
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".budgetplanner");
+    }
+
+    /**
+     * Öffnet die Ablage mit dem zuletzt gespeicherten Stand.
+     */
+    private static LedgerStorage openStorage(TransactionService transactionService, CategoryManager categoryManager) {
+        try {
+            return LedgerStorage.open(dataDirectory(), transactionService, categoryManager);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(null, "Gespeicherte Daten konnten nicht geladen werden: " + ex.getMessage(),
+                    "Fehler", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    private void closeStorage(LedgerStorage storage) {
+        if (storage == null) return;
+        try {
+            storage.close();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Daten konnten nicht gespeichert werden: " + ex.getMessage(),
+                    "Fehler", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /** Schließt einen Datei-Speicher; seine Änderungen werden dabei auf die Platte geschrieben. */
+    private void closeRepository(TransactionRepository repository) {
+        if (!(repository instanceof Closeable closeable)) return;
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Buchungen konnten nicht gespeichert werden: " + ex.getMessage(),
+                    "Fehler", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void toggleTheme() {
         try {
             // save current window size/position/state so we can restore it
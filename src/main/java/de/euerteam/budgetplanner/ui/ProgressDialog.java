@@ -0,0 +1,108 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+
+/**
+ * Modaler Fortschrittsdialog für Import und Export mit Abbrechen-Knopf. Zeigt Zeilen,
+ * Datenmenge und Durchsatz. {@link #update(long, long, long)} darf aus jedem Thread
+ * aufgerufen werden.
+ */
+final class ProgressDialog extends JDialog {
+    private static final int SCALE = 1000;
+
+    private final JProgressBar progressBar = new JProgressBar(0, SCALE);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton cancelButton = new JButton("Abbrechen");
+    private final long startedNanos = System.nanoTime();
+    // Neuester Stand {rows, bytes, totalBytes}; null, wenn er schon angezeigt wird
+    private final AtomicReference<long[]> pending = new AtomicReference<>();
+    private long totalRows = -1;
+
+    ProgressDialog(Component owner, String title, String message, Runnable onCancel) {
+        super(SwingUtilities.getWindowAncestor(owner), title, ModalityType.APPLICATION_MODAL);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
+        JPanel content = new JPanel(new BorderLayout(8, 8));
+        content.setBorder(BorderFactory.createEmptyBorder(16, 16, 12, 16));
+        content.add(new JLabel(message), BorderLayout.NORTH);
+        content.add(progressBar, BorderLayout.CENTER);
+        content.add(statusLabel, BorderLayout.SOUTH);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        cancelButton.setFocusable(false);
+        buttons.add(cancelButton);
+
+        Runnable cancel = () -> {
+            cancelButton.setEnabled(false);
+            statusLabel.setText("Wird abgebrochen …");
+            onCancel.run();
+        };
+        cancelButton.addActionListener(e -> cancel.run());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (cancelButton.isEnabled()) cancel.run();
+            }
+        });
+
+        setLayout(new BorderLayout());
+        add(content, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        setSize(460, 170);
+        setLocationRelativeTo(owner);
+    }
+
+    /** Erwartete Zeilenzahl, falls die Dateigröße nicht bekannt ist (Export). */
+    void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * Meldet den Fortschritt. Mehrere Meldungen zwischen zwei Aktualisierungen der
+     * Anzeige werden zusammengefasst; angezeigt wird nur der neueste Stand.
+     */
+    void update(long rows, long bytes, long totalBytes) {
+        if (pending.getAndSet(new long[] {rows, bytes, totalBytes}) == null) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        long[] state = pending.getAndSet(null);
+        if (state == null || !cancelButton.isEnabled()) return;
+        long rows = state[0];
+        long bytes = state[1];
+        long totalBytes = state[2];
+
+        double fraction = totalBytes > 0 ? (double) bytes / totalBytes
+                : totalRows > 0 ? (double) rows / totalRows : -1;
+        if (fraction >= 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) Math.min(SCALE, fraction * SCALE));
+            progressBar.setString(String.format(Locale.GERMANY, "%.0f %%", fraction * 100));
+        }
+
+        double seconds = Math.max(1e-3, (System.nanoTime() - startedNanos) / 1e9);
+        double megabytes = bytes / (1024.0 * 1024.0);
+        statusLabel.setText(String.format(Locale.GERMANY, "%,d Zeilen · %.1f MB · %,.0f Zeilen/s · %.1f MB/s",
+                rows, megabytes, rows / seconds, megabytes / seconds));
+    }
+}
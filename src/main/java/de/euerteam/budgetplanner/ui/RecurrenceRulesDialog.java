@@ -0,0 +1,152 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Modaler Dialog mit allen Daueraufträgen. Ein Dauerauftrag kann beendet werden (keine
+ * Ausführungen nach heute) oder gelöscht; bereits gebuchte Ausführungen bleiben in beiden
+ * Fällen erhalten.
+ */
+final class RecurrenceRulesDialog extends JDialog {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final String[] COLUMN_NAMES = {"Beschreibung", "Betrag", "Typ", "Kategorie", "Intervall",
+            "Start", "Ende", "Gebucht bis"};
+
+    private final TransactionService transactionService;
+    private final RulesTableModel tableModel = new RulesTableModel();
+    private final JTable table = new JTable(tableModel);
+
+    RecurrenceRulesDialog(Component owner, TransactionService transactionService) {
+        super(SwingUtilities.getWindowAncestor(owner), "Daueraufträge", ModalityType.APPLICATION_MODAL);
+        this.transactionService = transactionService;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setRowHeight(24);
+        table.getTableHeader().setReorderingAllowed(false);
+
+        JButton stopButton = new JButton("Beenden");
+        stopButton.setFocusable(false);
+        stopButton.setToolTipText("Keine Ausführungen nach heute; bis heute fällige werden noch gebucht");
+        stopButton.addActionListener(e -> stopSelected());
+
+        JButton deleteButton = new JButton("Löschen");
+        deleteButton.setFocusable(false);
+        deleteButton.setToolTipText("Dauerauftrag entfernen; bereits gebuchte Ausführungen bleiben erhalten");
+        deleteButton.addActionListener(e -> deleteSelected());
+
+        JButton closeButton = new JButton("Schließen");
+        closeButton.setFocusable(false);
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(stopButton);
+        buttons.add(deleteButton);
+        buttons.add(closeButton);
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(8, 8, 0, 8));
+        setLayout(new BorderLayout());
+        add(scrollPane, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        setSize(820, 360);
+        setLocationRelativeTo(owner);
+
+        tableModel.reload();
+    }
+
+    private RecurrenceRule selectedRule() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            JOptionPane.showMessageDialog(this, "Bitte einen Dauerauftrag auswählen");
+            return null;
+        }
+        return tableModel.rules.get(table.convertRowIndexToModel(row));
+    }
+
+    private void stopSelected() {
+        RecurrenceRule rule = selectedRule();
+        if (rule == null) return;
+        transactionService.stopRecurrenceRule(rule.getId(), LocalDate.now());
+        tableModel.reload();
+    }
+
+    private void deleteSelected() {
+        RecurrenceRule rule = selectedRule();
+        if (rule == null) return;
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Dauerauftrag \"" + rule.getDescription() + "\" löschen?\nBereits gebuchte Ausführungen bleiben erhalten.",
+                "Dauerauftrag löschen", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) return;
+        transactionService.removeRecurrenceRule(rule.getId());
+        tableModel.reload();
+    }
+
+    private static String formatDate(LocalDate date) {
+        return date == null ? "" : date.format(DATE_FORMATTER);
+    }
+
+    /** Die Daueraufträge als Zeilen; wird nach jeder Änderung neu geladen (wenige Einträge). */
+    private final class RulesTableModel extends AbstractTableModel {
+        private List<RecurrenceRule> rules = List.of();
+
+        void reload() {
+            rules = new ArrayList<>(transactionService.getRecurrenceRules());
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rules.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            RecurrenceRule rule = rules.get(row);
+            switch (column) {
+                case 0: return rule.getDescription();
+                case 1: return rule.getAmount().format();
+                case 2: return rule.getType();
+                case 3: return rule.getCategory();
+                case 4: return rule.getFrequency() == RecurrenceRule.Frequency.MONTHLY ? "monatlich" : "jährlich";
+                case 5: return formatDate(rule.getStart());
+                case 6:
+                    if (rule.isUnbounded()) return "unbegrenzt";
+                    String end = formatDate(rule.getEnd());
+                    return rule.getCount() == 0 ? end : rule.getCount() + " Ausführungen" + (end.isEmpty() ? "" : ", bis " + end);
+                case 7: return formatDate(rule.getMaterializedUntil());
+                default: throw new IndexOutOfBoundsException("Spalte " + column);
+            }
+        }
+    }
+}
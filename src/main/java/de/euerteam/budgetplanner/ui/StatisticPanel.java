@@ -4,15 +4,14 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.FlowLayout;
 import java.awt.GridBagLayout;
-import java.math.BigDecimal;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import javax.swing.JButton;
 import javax.swing.JComponent;
@@ -23,25 +22,40 @@ import javax.swing.JTabbedPane;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.Range;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 import org.jfree.data.time.Day;
 import org.jfree.data.time.TimeSeries;
 import org.jfree.data.time.TimeSeriesCollection;
 
-import de.euerteam.budgetplanner.model.Transaction;
-import de.euerteam.budgetplanner.model.TransactionType;
 import de.euerteam.budgetplanner.service.TransactionService;
 
+/**
+ * Diagramme über alle Buchungen. Die Werte werden in einem Durchlauf berechnet
+ * ({@link ChartData}); ein Diagramm wird erst gebaut, wenn sein Tab sichtbar wird, und
+ * wiederverwendet, solange sich die Daten des Services nicht geändert haben.
+ */
 public class StatisticPanel extends JPanel {
+    private static final int BAR_TAB = 0;
+    private static final int PIE_TAB = 1;
+    private static final int LINE_TAB = 2;
 
     private final TransactionService transactionService;
     private final JTabbedPane chartsTabs = new JTabbedPane();
+    // Je Tab die Daten, aus denen sein Diagramm gebaut wurde
+    private final ChartData[] builtFrom = new ChartData[3];
+    private ChartData data;
+    private long dataVersion;
+    private int renameCount;
 
     public StatisticPanel(TransactionService transactionService) {
         this.transactionService = Objects.requireNonNull(transactionService);
@@ -54,52 +68,62 @@ public class StatisticPanel extends JPanel {
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         topPanel.add(refreshButton);
 
+        chartsTabs.addTab("Balken", new JPanel(new BorderLayout()));
+        chartsTabs.addTab("Kreis", new JPanel(new BorderLayout()));
+        chartsTabs.addTab("Linien", new JPanel(new BorderLayout()));
+        chartsTabs.addChangeListener(e -> showSelectedChart());
+
         add(topPanel, BorderLayout.NORTH);
         add(chartsTabs, BorderLayout.CENTER);
         refreshCharts();
 
     }
 
+    /** Berechnet die Werte neu und baut das sichtbare Diagramm neu auf. */
     public final void refreshCharts() {
-        chartsTabs.removeAll();
-        
-        List<Transaction> transactions = loadTransactions();
+        data = ChartData.collect(transactionService.getTransactions());
+        dataVersion = transactionService.getDataVersion();
+        renameCount = transactionService.getCategoryDictionary().renameCount();
+        showSelectedChart();
+    }
 
-        chartsTabs.addTab("Balken", createBarChart(transactions));
-        chartsTabs.addTab("Kreis", createPieChart(transactions));
-        chartsTabs.addTab("Linien", createLineChart(transactions));
+    /** Wie {@link #refreshCharts()}, aber nur, wenn sich Buchungen oder Kategorienamen geändert haben. */
+    public void refreshIfChanged() {
+        if (dataVersion != transactionService.getDataVersion() || renameCount != transactionService.getCategoryDictionary().renameCount()) {
+            refreshCharts();
+        }
+    }
 
-        revalidate();
-        repaint();
+    private void showSelectedChart() {
+        int tab = chartsTabs.getSelectedIndex();
+        if (tab < 0 || data == null || builtFrom[tab] == data) return;
+        JPanel container = (JPanel) chartsTabs.getComponentAt(tab);
+        container.removeAll();
+        container.add(createChart(tab, data), BorderLayout.CENTER);
+        builtFrom[tab] = data;
+        container.revalidate();
+        container.repaint();
     }
 
-    private List<Transaction> loadTransactions() {
-        try {
-            List<Transaction> transactions = transactionService.getTransactions();
-            if (transactions == null) return Collections.emptyList();
-            return new ArrayList<>(transactions);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Collections.emptyList();
+    private JComponent createChart(int tab, ChartData data) {
+        switch (tab) {
+            case BAR_TAB: return createBarChart(data.expensesByCategory);
+            case PIE_TAB: return createPieChart(data.expensesByCategory);
+            case LINE_TAB: return createLineChart(data);
+            default: throw new IllegalArgumentException("Tab " + tab);
         }
     }
 
-    private JComponent createBarChart(List<Transaction> transactions) {
+    private JComponent createBarChart(Map<String, Long> expensesByCategory) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        Map<String, BigDecimal> expensesByCategory = transactions.stream()
-            .filter(t -> t != null && t.getType() == TransactionType.Ausgaben)
-            .collect(Collectors.groupingBy(
-                t -> t.getCategory() != null ? t.getCategory() : "Unbekannt",
-                Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)
-            ));
         if (expensesByCategory.isEmpty()) {
             return emptyState("Keine Ausgaben vorhanden");
         }
 
         expensesByCategory.entrySet().stream()
-            .filter(e -> e.getValue() != null && e.getValue().compareTo(BigDecimal.ZERO) > 0)
-            .sorted((a,b) -> b.getValue().compareTo(a.getValue()))
-            .forEach(e -> dataset.addValue(e.getValue(), "Ausgaben", e.getKey()));
+            .filter(e -> e.getValue() > 0)
+            .sorted((a,b) -> Long.compare(b.getValue(), a.getValue()))
+            .forEach(e -> dataset.addValue(e.getValue() / 100.0, "Ausgaben", e.getKey()));
 
         if (dataset.getColumnCount() == 0) {
             return emptyState("Keine positiven Ausgabenwerte vorhanden");
@@ -121,23 +145,16 @@ public class StatisticPanel extends JPanel {
         return wrapChart(chart);
     }
 
-    private JComponent createPieChart(List<Transaction> transactions) {
+    private JComponent createPieChart(Map<String, Long> expensesByCategory) {
         DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
 
-        Map<String, BigDecimal> expensesByCategory = transactions.stream()
-                .filter(t -> t != null && t.getType() == TransactionType.Ausgaben)
-                .collect(Collectors.groupingBy(
-                        t -> (t.getCategory() != null ? t.getCategory() : "Unbekannt"),
-                        Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)
-                ));
-
         if (expensesByCategory.isEmpty()) {
             return emptyState("Keine Ausgaben-Daten vorhanden.");
         }
 
-        expensesByCategory.forEach((cat, amount) -> {
-            if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0) {
-                dataset.setValue(cat, amount.doubleValue());
+        expensesByCategory.forEach((cat, cents) -> {
+            if (cents > 0) {
+                dataset.setValue(cat, cents / 100.0);
             }
         });
 
@@ -155,40 +172,13 @@ public class StatisticPanel extends JPanel {
 
         return wrapChart(chart);
     }
-    private JComponent createLineChart(List<Transaction> transactions) {
-        List<Transaction> sorted = transactions.stream()
-                .filter(Objects::nonNull)
-                .filter(t -> t.getDate() != null)
-                .sorted(Comparator.comparing(Transaction::getDate))
-            .collect(Collectors.toList());
-
-        if (sorted.isEmpty()) {
+    private JComponent createLineChart(ChartData data) {
+        if (data.days.length == 0) {
             return emptyState("Keine Datumswerte vorhanden für den Verlauf.");
         }
 
+        // Die Punkte setzt BalanceDetail passend zu Zoom und Breite des Diagramms
         TimeSeries series = new TimeSeries("Kontostand");
-
-        BigDecimal balance = BigDecimal.ZERO;
-
-        
-        for (Transaction t : sorted) {
-            LocalDate date = t.getDate();
-            BigDecimal amount = safeAmount(t.getAmount());
-
-            if (t.getType() == TransactionType.Einnahmen) {
-                balance = balance.add(amount);
-            } else if (t.getType() == TransactionType.Ausgaben) {
-                balance = balance.subtract(amount);
-            }
-
-            Day day = new Day(date.getDayOfMonth(), date.getMonthValue(), date.getYear());
-            series.addOrUpdate(day, toDouble(balance));
-        }
-
-        if (series.getItemCount() == 0) {
-            return emptyState("Keine Datenpunkte für den Kontostand.");
-        }
-
         TimeSeriesCollection dataset = new TimeSeriesCollection(series);
 
         JFreeChart chart = ChartFactory.createTimeSeriesChart(
@@ -203,14 +193,17 @@ public class StatisticPanel extends JPanel {
 
         XYPlot plot = chart.getXYPlot();
         XYLineAndShapeRenderer renderer = (XYLineAndShapeRenderer) plot.getRenderer();
-
-        renderer.setDefaultShapesVisible(true);
         renderer.setDefaultLinesVisible(true);
 
-
-        return wrapChart(chart);
+        ChartPanel panel = wrapChart(chart);
+        BalanceDetail detail = new BalanceDetail(data, series, panel, renderer);
+        plot.getDomainAxis().addChangeListener(detail);
+        panel.addComponentListener(detail);
+        detail.resolve();
+        return panel;
     }
-    private JComponent wrapChart(JFreeChart chart) {
+
+    private ChartPanel wrapChart(JFreeChart chart) {
         ChartPanel panel = new ChartPanel(chart);
         panel.setMouseWheelEnabled(true);
         panel.setDomainZoomable(true);
@@ -226,15 +219,85 @@ public class StatisticPanel extends JPanel {
         return p;
     }
 
-    private BigDecimal safeAmount(BigDecimal value) {
-        return value != null ? value : BigDecimal.ZERO;
-    }
+    /**
+     * Löst den Kontoverlauf passend zur Anzeige auf: im sichtbaren Zeitraum höchstens ein
+     * Punkt je Pixel Breite, ausgedünnt mit {@link Downsampler#lttb}. Wird bei jedem Zoom
+     * und jeder Größenänderung neu berechnet; beim Hineinzoomen erscheinen so die Einzeltage.
+     */
+    private static final class BalanceDetail extends ComponentAdapter implements AxisChangeListener {
+        private static final int DEFAULT_WIDTH = 800;
+        // Bis zu dieser Punktzahl werden die einzelnen Tage zusätzlich als Punkte markiert
+        private static final int SHAPES_THRESHOLD = 120;
+
+        private final ChartData data;
+        private final TimeSeries series;
+        private final ChartPanel panel;
+        private final XYLineAndShapeRenderer renderer;
+        private int resolvedFrom = -1;
+        private int resolvedTo = -1;
+        private int resolvedWidth = -1;
+        private boolean updating;
+
+        BalanceDetail(ChartData data, TimeSeries series, ChartPanel panel, XYLineAndShapeRenderer renderer) {
+            this.data = data;
+            this.series = series;
+            this.panel = panel;
+            this.renderer = renderer;
+        }
 
-    private double toDouble(BigDecimal value) {
-        if (value == null) return 0.0;
-        return value.doubleValue();
-    }
-}
+        @Override
+        public void axisChanged(AxisChangeEvent event) {
+            resolve();
+        }
+
+        @Override
+        public void componentResized(ComponentEvent e) {
+            resolve();
+        }
 
+        void resolve() {
+            // Das Neubefüllen der Reihe ändert bei automatischem Bereich die Achse; das nicht erneut auflösen
+            if (updating) return;
+            int width = panel.getWidth() > 0 ? panel.getWidth() : DEFAULT_WIDTH;
+            int from = 0;
+            int to = data.days.length;
+            ValueAxis axis = panel.getChart().getXYPlot().getDomainAxis();
+            if (!axis.isAutoRange()) {
+                // Je einen Punkt links und rechts vom sichtbaren Bereich mitnehmen, damit die Linie bis zum Rand reicht
+                Range range = axis.getRange();
+                from = Math.max(0, firstIndexFrom(toEpochDay(range.getLowerBound())) - 1);
+                to = Math.min(data.days.length, firstIndexFrom(toEpochDay(range.getUpperBound()) + 1) + 1);
+            }
+            if (from == resolvedFrom && to == resolvedTo && width == resolvedWidth) return;
+            resolvedFrom = from;
+            resolvedTo = to;
+            resolvedWidth = width;
+
+            int[] points = Downsampler.lttb(data.days, data.balances, from, to, width);
+            updating = true;
+            try {
+                series.setNotify(false);
+                series.clear();
+                for (int index : points) {
+                    LocalDate date = LocalDate.ofEpochDay(data.days[index]);
+                    series.add(new Day(date.getDayOfMonth(), date.getMonthValue(), date.getYear()),
+                            data.balances[index] / 100.0, false);
+                }
+                renderer.setDefaultShapesVisible(points.length <= SHAPES_THRESHOLD);
+                series.setNotify(true);
+            } finally {
+                updating = false;
+            }
+        }
 
+        /** Erster Index, dessen Tag nicht vor day liegt (data.days.length, wenn keiner). */
+        private int firstIndexFrom(long day) {
+            int index = Arrays.binarySearch(data.days, (int) day);
+            return index >= 0 ? index : -index - 1;
+        }
 
+        private static long toEpochDay(double millis) {
+            return Instant.ofEpochMilli((long) millis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Suche über die Buchungstabellen, entprellt und im Hintergrund.
+ *
+ * Jede Eingabe startet den Timer neu; erst wenn {@link #DEBOUNCE_MILLIS} lang nichts mehr
+ * getippt wurde, wird im Hintergrund gesucht: über den unveränderlichen Stand des Services
+ * ({@link TransactionService#getTransactionsSnapshot()}) und die Slot-Nummern der Tabellenzeilen. Ergebnis sind die passenden Zeilen je Modell als BitSet und der Saldo der
+ * Treffer in Cent. Eine neue Suche bricht die laufende ab; veraltete Ergebnisse werden
+ * verworfen. Alle Methoden werden im EDT aufgerufen.
+ */
+final class TransactionSearch {
+    static final int DEBOUNCE_MILLIS = 200;
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy").withLocale(Locale.GERMANY);
+
+    private final TransactionService transactionService;
+    private final TransactionTableModel[] models;
+    private final Consumer<Result> onResult;
+    private final Timer debounceTimer;
+    private String query = "";
+    private SwingWorker<Result, Void> running;
+    private int generation;
+
+    TransactionSearch(TransactionService transactionService, Consumer<Result> onResult,
+            TransactionTableModel... models) {
+        this.transactionService = transactionService;
+        this.models = models;
+        this.onResult = onResult;
+        this.debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> start());
+        this.debounceTimer.setRepeats(false);
+    }
+
+    /**
+     * Merkt sich die neue Eingabe und sucht, sobald die Eingabe zur Ruhe kommt.
+     * Eine leere Eingabe meldet null als Ergebnis (kein Filter).
+     */
+    void queryChanged(String text) {
+        query = text == null ? "" : text.trim().toLowerCase();
+        debounceTimer.restart();
+    }
+
+    /** Wiederholt die aktuelle Suche entprellt, z.B. nachdem sich die Tabellen geändert haben. */
+    void refresh() {
+        if (!query.isEmpty()) {
+            debounceTimer.restart();
+        }
+    }
+
+    /** Bricht eine laufende Suche ab; ihr Ergebnis wird nicht mehr gemeldet. */
+    void cancel() {
+        debounceTimer.stop();
+        generation++;
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+        }
+    }
+
+    private void start() {
+        cancel();
+        if (query.isEmpty()) {
+            // Leere Suche braucht keinen Hintergrund-Thread
+            onResult.accept(null);
+            return;
+        }
+        int started = generation;
+        String needle = query;
+        // Schnappschuss im EDT. Zuerst der Stand des Services: er kompaktiert dabei, die Modelle
+        // nummerieren ihre Slots um; danach passen die Slot-Nummern der Zeilen zur Sicht
+        List<Transaction> transactions = transactionService.getTransactionsSnapshot();
+        int[][] rows = new int[models.length][];
+        int[] modCounts = new int[models.length];
+        for (int i = 0; i < models.length; i++) {
+            rows[i] = models[i].slotSnapshot();
+            modCounts[i] = models[i].getModCount();
+        }
+        SwingWorker<Result, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Result doInBackground() {
+                Matcher matcher = new Matcher(needle);
+                BitSet[] matches = new BitSet[rows.length];
+                long balanceCents = 0;
+                for (int m = 0; m < rows.length; m++) {
+                    matches[m] = new BitSet(rows[m].length);
+                    for (int row = 0; row < rows[m].length; row++) {
+                        if (row % CANCEL_CHECK_INTERVAL == 0 && isCancelled()) return null;
+                        Transaction t = transactions.get(rows[m][row]);
+                        if (matcher.matches(t)) {
+                            matches[m].set(row);
+                            balanceCents += t.getSignedAmountCents();
+                        }
+                    }
+                }
+                return new Result(needle, matches, modCounts, balanceCents);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || started != generation) return;
+                running = null;
+                try {
+                    onResult.accept(get());
+                } catch (Exception e) {
+                    System.err.println("Suche fehlgeschlagen: " + e.getMessage());
+                }
+            }
+        };
+        running = worker;
+        worker.execute();
+    }
+
+    /**
+     * Ergebnis einer Suche: passende Modellzeilen je Tabelle und ihr Saldo. Gilt nur,
+     * solange das jeweilige Modell seit dem Schnappschuss unverändert ist.
+     */
+    static final class Result {
+        final String query;
+        private final BitSet[] matches;
+        private final int[] modCounts;
+        final long balanceCents;
+
+        private Result(String query, BitSet[] matches, int[] modCounts, long balanceCents) {
+            this.query = query;
+            this.matches = matches;
+            this.modCounts = modCounts;
+            this.balanceCents = balanceCents;
+        }
+
+        /** Liefert die Treffer für das i-te Modell oder null, wenn es sich inzwischen geändert hat. */
+        BitSet matchesFor(int modelIndex, TransactionTableModel model) {
+            return model.getModCount() == modCounts[modelIndex] ? matches[modelIndex] : null;
+        }
+    }
+
+    /**
+     * Prüft eine Transaktion gegen den (kleingeschriebenen) Suchtext: Beschreibung, Kategorie
+     * und Typ, außerdem Betrag und Datum so, wie sie in der Tabelle angezeigt werden.
+     * Betrag und Datum werden nur formatiert, wenn der Suchtext überhaupt darin vorkommen kann.
+     */
+    static final class Matcher {
+        private final String needle;
+        private final boolean numeric;
+        private final boolean[] typeMatches = new boolean[TransactionType.values().length];
+
+        Matcher(String needle) {
+            this.needle = needle;
+            boolean onlyNumberChars = true;
+            for (int i = 0; i < needle.length() && onlyNumberChars; i++) {
+                char c = needle.charAt(i);
+                onlyNumberChars = Character.isDigit(c) || ".,-€ \u00A0".indexOf(c) >= 0;
+            }
+            this.numeric = onlyNumberChars;
+            for (TransactionType type : TransactionType.values()) {
+                typeMatches[type.ordinal()] = type.toString().toLowerCase().contains(needle);
+            }
+        }
+
+        boolean matches(Transaction t) {
+            if (containsIgnoreCase(t.getDescription(), needle)
+                    || containsIgnoreCase(t.getCategory(), needle)
+                    || typeMatches[t.getType().ordinal()]) {
+                return true;
+            }
+            return numeric && (Money.format(t.getAmountCents()).contains(needle)
+                    || t.getDate().format(DATE_FORMATTER).contains(needle));
+        }
+
+        private static boolean containsIgnoreCase(String text, String needle) {
+            if (text == null) return false;
+            int last = text.length() - needle.length();
+            for (int i = 0; i <= last; i++) {
+                if (text.regionMatches(true, i, needle, 0, needle.length())) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.TransactionListener;
+import de.euerteam.budgetplanner.service.TransactionService;
+
+/**
+ * Tabellenmodell für die Transaktionen eines Typs. Das Modell hält keine Kopie der Buchungen,
+ * sondern je Zeile nur die Slot-Nummer im Service (aufsteigend, also in Einfügereihenfolge);
+ * die Zellen liest es direkt aus dem Service. Formatiert wird erst im Renderer und damit nur
+ * für sichtbare Zeilen.
+ *
+ * Das Modell hört selbst auf den Service und folgt damit jeder Änderung, egal woher sie kommt.
+ * Ersetzen ist O(log n) über die Slot-Nummer, statt die Zeile per ID zu suchen.
+ */
+final class TransactionTableModel extends AbstractTableModel implements TransactionListener {
+    static final int DESCRIPTION = 0;
+    static final int AMOUNT = 1;
+    static final int TYPE = 2;
+    static final int DATE = 3;
+    static final int CATEGORY = 4;
+
+    private static final String[] COLUMN_NAMES = {"Beschreibung", "Betrag", "Typ", "Datum", "Kategorie"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Money.class, TransactionType.class, LocalDate.class, String.class};
+
+    private final TransactionService transactionService;
+    private final TransactionType type;
+    // Slot je Zeile, aufsteigend sortiert
+    private int[] slots = new int[64];
+    private int rowCount;
+    // Wird bei jeder Änderung erhöht, damit Suchergebnisse über Zeilennummern als veraltet erkannt werden
+    private int modCount;
+
+    TransactionTableModel(TransactionService transactionService, TransactionType type) {
+        this.transactionService = transactionService;
+        this.type = type;
+        reload();
+        transactionService.addListener(this);
+    }
+
+    Transaction getTransactionAt(int row) {
+        return transactionService.getTransactionAtSlot(slots[row]);
+    }
+
+    /** Slot-Nummern der aktuellen Zeilen, z.B. für eine Suche im Hintergrund. */
+    int[] slotSnapshot() {
+        return Arrays.copyOf(slots, rowCount);
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    @Override
+    public void transactionAdded(Transaction transaction) {
+        if (transaction.getType() != type) return;
+        int row = insert(transactionService.slotOf(transaction.getId()));
+        modCount++;
+        fireTableRowsInserted(row, row);
+    }
+
+    /** Hängt alle passenden Zeilen an und meldet sie mit einem einzigen Ereignis. */
+    @Override
+    public void transactionsAdded(List<Transaction> transactions) {
+        int first = rowCount;
+        for (Transaction t : transactions) {
+            if (t.getType() == type) {
+                // Neue Buchungen bekommen immer die höchsten Slots, landen also am Ende
+                first = Math.min(first, insert(transactionService.slotOf(t.getId())));
+            }
+        }
+        if (first == rowCount) return;
+        modCount++;
+        fireTableRowsInserted(first, rowCount - 1);
+    }
+
+    @Override
+    public void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        boolean wasHere = oldTransaction.getType() == type;
+        boolean isHere = newTransaction.getType() == type;
+        if (!wasHere && !isHere) return;
+        // Ein Update behält seinen Slot
+        int slot = transactionService.slotOf(newTransaction.getId());
+        modCount++;
+        if (wasHere && isHere) {
+            int row = rowOf(slot);
+            fireTableRowsUpdated(row, row);
+        } else if (wasHere) {
+            int row = rowOf(slot);
+            removeRow(row);
+            fireTableRowsDeleted(row, row);
+        } else {
+            int row = insert(slot);
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    @Override
+    public void transactionRemoved(Transaction transaction) {
+        if (transaction.getType() != type) return;
+        // Die ID ist im Service schon gelöscht; der einzige nicht mehr belegte Slot ist die Zeile
+        for (int row = 0; row < rowCount; row++) {
+            if (!transactionService.isLiveSlot(slots[row])) {
+                removeRow(row);
+                modCount++;
+                fireTableRowsDeleted(row, row);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void transactionsCleared() {
+        rowCount = 0;
+        modCount++;
+        fireTableDataChanged();
+    }
+
+    /** Gleiche Buchungen in gleicher Reihenfolge, nur mit neuen Slot-Nummern: kein Ereignis nötig. */
+    @Override
+    public void slotsCompacted() {
+        reload();
+    }
+
+    private void reload() {
+        rowCount = 0;
+        int slotCount = transactionService.getSlotCount();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (transactionService.isLiveSlot(slot) && transactionService.typeAt(slot) == type) {
+                append(slot);
+            }
+        }
+    }
+
+    /** Fügt einen Slot an seiner sortierten Stelle ein und liefert die Zeile. */
+    private int insert(int slot) {
+        if (rowCount == 0 || slots[rowCount - 1] < slot) {
+            append(slot);
+            return rowCount - 1;
+        }
+        int row = -Arrays.binarySearch(slots, 0, rowCount, slot) - 1;
+        if (rowCount == slots.length) slots = Arrays.copyOf(slots, rowCount * 2);
+        System.arraycopy(slots, row, slots, row + 1, rowCount - row);
+        slots[row] = slot;
+        rowCount++;
+        return row;
+    }
+
+    private void append(int slot) {
+        if (rowCount == slots.length) slots = Arrays.copyOf(slots, rowCount * 2);
+        slots[rowCount++] = slot;
+    }
+
+    private void removeRow(int row) {
+        System.arraycopy(slots, row + 1, slots, row, rowCount - row - 1);
+        rowCount--;
+    }
+
+    private int rowOf(int slot) {
+        return Arrays.binarySearch(slots, 0, rowCount, slot);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int slot = slots[row];
+        switch (column) {
+            case DESCRIPTION: return transactionService.descriptionAt(slot);
+            case AMOUNT: return Money.ofCents(transactionService.amountCentsAt(slot));
+            case TYPE: return type;
+            case DATE: return LocalDate.ofEpochDay(transactionService.epochDayAt(slot));
+            case CATEGORY: return transactionService.categoryAt(slot);
+            default: throw new IndexOutOfBoundsException("Spalte " + column);
+        }
+    }
+}
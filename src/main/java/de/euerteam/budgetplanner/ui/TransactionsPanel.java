@@ -8,14 +8,22 @@ import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.NumberFormat;
-import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Locale;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.accessibility.Accessible;
 import javax.swing.BorderFactory;
@@ -35,8 +43,10 @@ import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.ListCellRenderer;
 import javax.swing.RowFilter;
+import javax.swing.RowSorter;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -45,53 +55,32 @@ import javax.swing.event.PopupMenuListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.plaf.basic.BasicComboPopup;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
  
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
 import de.euerteam.budgetplanner.model.Transaction;
 import de.euerteam.budgetplanner.model.TransactionType;
 import de.euerteam.budgetplanner.persistence.CsvPersistence;
+import de.euerteam.budgetplanner.service.BudgetMonitor;
 import de.euerteam.budgetplanner.service.CategoryManager;
 import de.euerteam.budgetplanner.service.TransactionService;
 
 public class TransactionsPanel extends JPanel {
     private static final DateTimeFormatter TABLE_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy").withLocale(Locale.GERMANY);
     private final TransactionService transactionService;
-    private final DefaultTableModel incomeTableModel = new DefaultTableModel(
-        new Object[]{"Beschreibung", "Betrag", "Typ", "Datum", "Kategorie", "_OBJ_"}, 0
-    ){
-        @Override
-        public boolean isCellEditable(int row, int column) { return false; }
-    };
-
-    private final DefaultTableModel expenseTableModel = new DefaultTableModel(
-        new Object[]{"Beschreibung", "Betrag", "Typ", "Datum", "Kategorie", "_OBJ_"}, 0
-    ){
-        @Override
-        public boolean isCellEditable(int row, int column) { return false; }
-    };
+    // Die Modelle lesen direkt aus dem Service und folgen seinen Änderungen selbst
+    private final TransactionTableModel incomeTableModel;
+    private final TransactionTableModel expenseTableModel;
 
     private final JTextField searchField = new JTextField(20);
-    private final TableRowSorter<DefaultTableModel> incomeRowSorter = new TableRowSorter<>(incomeTableModel);
-    private final TableRowSorter<DefaultTableModel> expenseRowSorter = new TableRowSorter<>(expenseTableModel);
-
-    private final JTable incomeTable = new JTable(incomeTableModel);
-    private final JTable expenseTable = new JTable(expenseTableModel);
-    {
-        incomeTable.setRowSorter(incomeRowSorter);
-        expenseTable.setRowSorter(expenseRowSorter);
+    private final TransactionSearch search;
+    private final TableRowSorter<TransactionTableModel> incomeRowSorter;
+    private final TableRowSorter<TransactionTableModel> expenseRowSorter;
 
-        configureDateSorting(incomeRowSorter);
-        configureDateSorting(expenseRowSorter);
-
-        incomeTable.getColumnModel().getColumn(5).setMinWidth(0);
-        incomeTable.getColumnModel().getColumn(5).setMaxWidth(0);
-        incomeTable.getColumnModel().getColumn(5).setWidth(0);
-        expenseTable.getColumnModel().getColumn(5).setMinWidth(0);
-        expenseTable.getColumnModel().getColumn(5).setMaxWidth(0);
-        expenseTable.getColumnModel().getColumn(5).setWidth(0);
-    }
+    private final JTable incomeTable;
+    private final JTable expenseTable;
 
     private final JLabel balanceLabel = new JLabel("Monatliches Guthaben: 0,00 €");
     private final JTextField dateField = new JTextField(10);
@@ -100,6 +89,8 @@ public class TransactionsPanel extends JPanel {
     private final JComboBox<TransactionType> typeComboBox = new JComboBox<>(TransactionType.values());
     private final JComboBox<String> categoryComboBox = new JComboBox<>();
     private final CategoryManager categoryManager;
+    // Meldet Budgetschwellen für alle Änderungen am Service, beim Import gesammelt
+    private final BudgetMonitor budgetMonitor;
     private JScrollPane incomeScroll;
     private JScrollPane expenseScroll;
 
@@ -107,6 +98,20 @@ public class TransactionsPanel extends JPanel {
     public TransactionsPanel(TransactionService transactionService, CategoryManager categoryManager) {
         this.transactionService = transactionService;
         this.categoryManager = categoryManager;
+        this.incomeTableModel = new TransactionTableModel(transactionService, TransactionType.Einnahmen);
+        this.expenseTableModel = new TransactionTableModel(transactionService, TransactionType.Ausgaben);
+        this.search = new TransactionSearch(transactionService, this::applySearchResult, incomeTableModel, expenseTableModel);
+        this.incomeRowSorter = new TableRowSorter<>(incomeTableModel);
+        this.expenseRowSorter = new TableRowSorter<>(expenseTableModel);
+        this.incomeTable = new JTable(incomeTableModel);
+        this.expenseTable = new JTable(expenseTableModel);
+        incomeTable.setRowSorter(incomeRowSorter);
+        expenseTable.setRowSorter(expenseRowSorter);
+        configureDateSorting(incomeRowSorter);
+        configureDateSorting(expenseRowSorter);
+        this.budgetMonitor = new BudgetMonitor(transactionService);
+        // Erst nach der laufenden Änderung anzeigen, damit alle übrigen Listener sie schon gesehen haben
+        budgetMonitor.addListener(alerts -> SwingUtilities.invokeLater(() -> showBudgetAlerts(alerts)));
         setLayout(new BorderLayout());
 
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy").withLocale(Locale.GERMANY);
@@ -173,6 +178,17 @@ public class TransactionsPanel extends JPanel {
        controlsPanel.add(exportButton);
        exportButton.addActionListener(e -> exportToCSV());
 
+       JButton closePeriodButton = new JButton("Daueraufträge buchen");
+       closePeriodButton.setFocusable(false);
+       closePeriodButton.setToolTipText("Alle bis heute fälligen Daueraufträge als Buchungen übernehmen (Periodenabschluss)");
+       controlsPanel.add(closePeriodButton);
+       closePeriodButton.addActionListener(e -> materializeRecurrences());
+
+       JButton rulesButton = new JButton("Daueraufträge verwalten");
+       rulesButton.setFocusable(false);
+       controlsPanel.add(rulesButton);
+       rulesButton.addActionListener(e -> manageRecurrenceRules());
+
        JButton importButton = new JButton("Importieren");
        importButton.setFocusable(false);
        controlsPanel.add(importButton);
@@ -187,6 +203,8 @@ public class TransactionsPanel extends JPanel {
 
         installAmountRenderer(incomeTable);
         installAmountRenderer(expenseTable);
+        installDateRenderer(incomeTable);
+        installDateRenderer(expenseTable);
 
         // Bei Klick in eine Tabelle die Selektion der anderen aufheben
         incomeTable.getSelectionModel().addListSelectionListener(e -> {
@@ -231,14 +249,17 @@ public class TransactionsPanel extends JPanel {
 
         add(searchPanel, BorderLayout.SOUTH);
         
+        // Entprellt und im Hintergrund; nach Änderungen an den Tabellen wird die Suche wiederholt
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void insertUpdate(DocumentEvent e) {applySearchFilter(); }
+            public void insertUpdate(DocumentEvent e) {search.queryChanged(searchField.getText()); }
             @Override
-            public void removeUpdate (DocumentEvent e) {applySearchFilter(); }
+            public void removeUpdate (DocumentEvent e) {search.queryChanged(searchField.getText()); }
             @Override
-            public void changedUpdate (DocumentEvent e) {applySearchFilter(); }
+            public void changedUpdate (DocumentEvent e) {search.queryChanged(searchField.getText()); }
         });
+        incomeTableModel.addTableModelListener(e -> search.refresh());
+        expenseTableModel.addTableModelListener(e -> search.refresh());
 
         searchField.addActionListener(e -> incomeTable.requestFocusInWindow());
     }
@@ -268,10 +289,10 @@ private void installAmountRenderer(JTable table) {
             Component c = super.getTableCellRendererComponent(t, value, isSelected, hasFocus, row, column);
 
             if (!isSelected) {
-                Object typeObj = t.getValueAt(row, 2);
-                if (typeObj != null && typeObj.toString().equalsIgnoreCase("Einnahmen")) {
+                Object typeObj = t.getValueAt(row, TransactionTableModel.TYPE);
+                if (typeObj == TransactionType.Einnahmen) {
                     c.setForeground(new Color(0, 128, 0));
-                } else if (typeObj != null && typeObj.toString().equalsIgnoreCase("Ausgaben")) {
+                } else if (typeObj == TransactionType.Ausgaben) {
                     c.setForeground(Color.RED.darker());
                 } else {
                     c.setForeground(UIManager.getColor("Table.foreground"));
@@ -281,11 +302,28 @@ private void installAmountRenderer(JTable table) {
             setHorizontalAlignment(CENTER);
             return c;
         }
+
+        @Override
+        protected void setValue(Object value) {
+            // Erst hier formatieren, also nur für sichtbare Zellen
+            setText(value instanceof Money money ? money.format() : "");
+        }
     };
 
-    table.getColumnModel().getColumn(1).setCellRenderer(renderer);
+    table.getColumnModel().getColumn(TransactionTableModel.AMOUNT).setCellRenderer(renderer);
 }
 
+    private void installDateRenderer(JTable table) {
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value instanceof LocalDate date ? date.format(TABLE_DATE_FORMATTER) : "");
+            }
+        };
+        renderer.setHorizontalAlignment(SwingConstants.CENTER);
+        table.getColumnModel().getColumn(TransactionTableModel.DATE).setCellRenderer(renderer);
+    }
+
     private void showNewTransactionDialog() {
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy").withLocale(Locale.GERMANY);
         JTextField date = new JTextField(LocalDate.now().format(dateFormatter), 10);
@@ -323,7 +361,7 @@ private void installAmountRenderer(JTable table) {
         panel.add(new JLabel("Kategorie:")); panel.add(catPanel);
 
         final boolean[] isRecurring = new boolean[] { false };
-        final String[] recurFreq = new String[] { "MONTHLY" };
+        final RecurrenceRule.Frequency[] recurFreq = new RecurrenceRule.Frequency[] { RecurrenceRule.Frequency.MONTHLY };
         final LocalDate[] recurEndDate = new LocalDate[] { null };
         final Integer[] recurOccurrences = new Integer[] { null };
 
@@ -340,7 +378,8 @@ private void installAmountRenderer(JTable table) {
             int rr = JOptionPane.showConfirmDialog(this, rpanel, "Dauerauftrag", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
             if (rr != JOptionPane.OK_OPTION) return;
             isRecurring[0] = true;
-            recurFreq[0] = freqBox.getSelectedItem().toString().equals("Monatlich") ? "MONTHLY" : "YEARLY";
+            recurFreq[0] = freqBox.getSelectedItem().toString().equals("Monatlich")
+                    ? RecurrenceRule.Frequency.MONTHLY : RecurrenceRule.Frequency.YEARLY;
             String ed = endDateField.getText().trim();
             if (!ed.isEmpty()) {
                 try {
@@ -366,14 +405,7 @@ private void installAmountRenderer(JTable table) {
             String desc = description.getText().trim();
             TransactionType ttype = (TransactionType) type.getSelectedItem();
 
-            BigDecimal parsedAmount;
-            try {
-                Number parsed = currencyFormat.parse(amount.getText().trim());
-                parsedAmount = BigDecimal.valueOf(parsed.doubleValue());
-            } catch (ParseException pe) {
-                String cleaned = amount.getText().replaceAll("[^0-9,.-]", "").replace(',', '.').trim();
-                parsedAmount = new BigDecimal(cleaned);
-            }
+            Money parsedAmount = Money.parseGerman(amount.getText());
 
             Object sel = category.getSelectedItem();
             String cat;
@@ -383,43 +415,17 @@ private void installAmountRenderer(JTable table) {
                 throw new IllegalArgumentException("Keine Kategorie ausgewählt");
             }
 
-            Transaction newT = new Transaction(desc, parsedAmount, ttype, parsedDate, cat);
-            transactionService.addTransaction(newT);
-            addTransactionToTable(newT);
-
-            if (ttype == TransactionType.Ausgaben && !cat.isBlank()){
-                YearMonth month = YearMonth.from(parsedDate);
-                BigDecimal budget = transactionService.getBudgetForMonth(month, cat);
-                // Transaktion wurde bereits hinzugefügt, daher enthält getExpensesCategoryForMonth den neuen Betrag schon
-                BigDecimal newExpenseTotal = transactionService
-                        .getExpensesCategoryForMonth(month)
-                        .getOrDefault(cat, BigDecimal.ZERO);
-                if (budget.compareTo(BigDecimal.ZERO) > 0 && newExpenseTotal.compareTo(budget) > 0){
-                    NumberFormat warningFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
-                    JOptionPane.showMessageDialog(this,
-                        "Achtung: Budget für " + cat + " in " + month + " überschritten!\n"
-                        + "Budget: " + warningFormat.format(budget) + " | Neu: " + warningFormat.format(newExpenseTotal),
-                        "Budgetwarnung", JOptionPane.WARNING_MESSAGE);
-                }
-            }
-
             if (isRecurring[0]) {
-                // Sicherheitslimit: ohne Enddatum und ohne Wiederholungen max 120 Buchungen
-                int maxRecurring = (recurEndDate[0] == null && recurOccurrences[0] == null) ? 120 : Integer.MAX_VALUE;
-                LocalDate current = parsedDate;
-                int generated = 0;
-                while (generated < maxRecurring) {
-                    if (recurFreq[0].equals("MONTHLY")) current = current.plusMonths(1);
-                    else current = current.plusYears(1);
-
-                    if (recurEndDate[0] != null && current.isAfter(recurEndDate[0])) break;
-                    if (recurOccurrences[0] != null && generated >= recurOccurrences[0]) break;
-
-                    Transaction t = new Transaction(desc, parsedAmount, ttype, current, cat);
-                    transactionService.addTransaction(t);
-                    addTransactionToTable(t);
-                    generated++;
-                }
+                // Der Dauerauftrag bleibt eine Regel; gebucht werden nur die erste und alle bis heute fälligen
+                // Ausführungen, die übrigen erst beim Periodenabschluss
+                int count = recurOccurrences[0] == null ? 0 : recurOccurrences[0] + 1;
+                RecurrenceRule rule = new RecurrenceRule(desc, parsedAmount, ttype, cat, parsedDate, recurFreq[0],
+                        recurEndDate[0], count);
+                transactionService.putRecurrenceRule(rule);
+                LocalDate today = LocalDate.now();
+                transactionService.materializeRecurrence(rule.getId(), parsedDate.isAfter(today) ? parsedDate : today);
+            } else {
+                transactionService.addTransaction(new Transaction(desc, parsedAmount, ttype, parsedDate, cat));
             }
 
             updateBalance();
@@ -429,38 +435,52 @@ private void installAmountRenderer(JTable table) {
         }
     }
 
-    private void addTransactionToTable(Transaction t) {
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
-        String formattedAmount = currencyFormat.format(t.getAmount());
-        Object[] row = new Object[]{
-            t.getDescription(),
-            formattedAmount,
-            t.getType(),
-            t.getDate().format(TABLE_DATE_FORMATTER),
-            t.getCategory(),
-            t
-        };
-        if (t.getType() == TransactionType.Einnahmen) {
-            incomeTableModel.addRow(row);
-            incomeRowSorter.sort();
-        } else {
-            expenseTableModel.addRow(row);
-            expenseRowSorter.sort();
+    private void showBudgetAlerts(List<BudgetMonitor.BudgetAlert> alerts) {
+        StringBuilder message = new StringBuilder(alerts.size() == 1 ? "Budgetschwelle erreicht:\n"
+                : alerts.size() + " Budgetschwellen erreicht:\n");
+        for (BudgetMonitor.BudgetAlert alert : alerts) {
+            message.append("\n").append(alert.category()).append(" in ").append(alert.month())
+                    .append(": ").append(alert.percent()).append(" % (")
+                    .append(alert.spent().format()).append(" von ").append(alert.budget().format()).append(")");
         }
+        JOptionPane.showMessageDialog(this, message.toString(), "Budgetwarnung", JOptionPane.WARNING_MESSAGE);
     }
 
+    /** Periodenabschluss: bucht alle bis heute fälligen Ausführungen der Daueraufträge. */
+    private void materializeRecurrences() {
+        List<Transaction> booked = transactionService.materializeRecurrences(LocalDate.now());
+        updateBalance();
+        JOptionPane.showMessageDialog(this,
+                booked.isEmpty() ? "Keine fälligen Daueraufträge." : booked.size() + " Buchungen aus Daueraufträgen übernommen.",
+                "Daueraufträge", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /** Beenden und Löschen ändern nur Regeln; die Tabellen bleiben, der Saldo kann sich ändern. */
+    private void manageRecurrenceRules() {
+        new RecurrenceRulesDialog(this, transactionService).setVisible(true);
+        updateBalance();
+    }
+
+    /**
+     * Das Guthaben zählt wie Tabellen und Statistik nur gebuchte Transaktionen. Offene
+     * Ausführungen der Daueraufträge in diesem Monat werden getrennt genannt.
+     */
     private void updateBalance() {
         YearMonth currentMonth = YearMonth.now();
-        BigDecimal balance = transactionService.getMonthlyBalance(currentMonth);
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
-        balanceLabel.setText("Monatliches Guthaben: " + currencyFormat.format(balance));
+        Money balance = transactionService.getBookedMonthlyBalance(currentMonth);
+        Money pending = transactionService.getMonthlyBalance(currentMonth).minus(balance);
+        String text = "Monatliches Guthaben: " + balance.format();
+        if (pending.signum() != 0) {
+            text += " (offene Daueraufträge: " + pending.format() + ")";
+        }
+        balanceLabel.setText(text);
         updateBalanceColor(balance);
     }
 
     private void deleteTransaction(){
         int viewRow = incomeTable.getSelectedRow();
         JTable activeTable = null;
-        DefaultTableModel activeModel = null;
+        TransactionTableModel activeModel = null;
         if (viewRow >= 0) {
             activeTable = incomeTable;
             activeModel = incomeTableModel;
@@ -477,27 +497,21 @@ private void installAmountRenderer(JTable table) {
         }
 
         int modelRow = activeTable.convertRowIndexToModel(viewRow);
-        Object obj = activeModel.getValueAt(modelRow, 5);
-        if (!(obj instanceof Transaction t)) {
-            JOptionPane.showMessageDialog(this, "Transaktionsdaten konnten nicht gelesen werden.", "Fehler", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        Transaction t = activeModel.getTransactionAt(modelRow);
 
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
         DateTimeFormatter dateTimeFormatter = TABLE_DATE_FORMATTER;
         int confirm = JOptionPane.showConfirmDialog(
             this, 
             "Möchten Sie die folgende Transaktion wirklich löschen?\n" 
             + t.getDate().format(dateTimeFormatter) + " - "
             + t.getDescription() + " - "
-            + currencyFormat.format(t.getAmount()) + " - "
+            + t.getMoney().format() + " - "
             + t.getCategory(),
             "Transaktion löschen",
             JOptionPane.YES_NO_OPTION
         );
         if (confirm == JOptionPane.YES_OPTION) {
             transactionService.removeTransactionById(t.getId());
-            activeModel.removeRow(modelRow);
             updateBalance();
         }
     }
@@ -505,7 +519,7 @@ private void installAmountRenderer(JTable table) {
     private void editTransaction(){
         int viewRow = incomeTable.getSelectedRow();
         JTable activeTable = null;
-        DefaultTableModel activeModel = null;
+        TransactionTableModel activeModel = null;
         if (viewRow >= 0) {
             activeTable = incomeTable;
             activeModel = incomeTableModel;
@@ -522,11 +536,7 @@ private void installAmountRenderer(JTable table) {
         }
 
         int modelRow = activeTable.convertRowIndexToModel(viewRow);
-        Object obj = activeModel.getValueAt(modelRow, 5);
-        if (!(obj instanceof Transaction oldT)) {
-            JOptionPane.showMessageDialog(this, "Transaktionsdaten konnten nicht gelesen werden.", "Fehler", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        Transaction oldT = activeModel.getTransactionAt(modelRow);
 
         DateTimeFormatter dateTimeFormatter = TABLE_DATE_FORMATTER;
         NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
@@ -578,14 +588,7 @@ private void installAmountRenderer(JTable table) {
             String newDescription = description.getText().trim();
             TransactionType newType = (TransactionType) type.getSelectedItem();
 
-            BigDecimal newAmount;
-            try {
-                Number parsed = currencyFormat.parse(amount.getText().trim());
-                newAmount = BigDecimal.valueOf(parsed.doubleValue());
-            } catch (ParseException pe) {
-                String cleaned = amount.getText().replaceAll("[^0-9,.-]", "").replace(',', '.').trim();
-                newAmount = new BigDecimal(cleaned);
-            }
+            Money newAmount = Money.parseGerman(amount.getText());
 
             Object sel = category.getSelectedItem();
             String newCategory;
@@ -601,88 +604,51 @@ private void installAmountRenderer(JTable table) {
                 JOptionPane.showMessageDialog(this, "Transaktion konnte nicht aktualisiert werden.", "Fehler", JOptionPane.ERROR_MESSAGE);
             }
 
-            if (updatedTransaction.getType() == oldT.getType()) {
-                activeModel.setValueAt(updatedTransaction.getDescription(), modelRow, 0);
-                activeModel.setValueAt(currencyFormat.format(updatedTransaction.getAmount()), modelRow, 1);
-                activeModel.setValueAt(updatedTransaction.getType(), modelRow, 2);
-                activeModel.setValueAt(updatedTransaction.getDate().format(dateTimeFormatter), modelRow, 3);
-                activeModel.setValueAt(updatedTransaction.getCategory(), modelRow, 4);
-                activeModel.setValueAt(updatedTransaction, modelRow, 5);
-
-                if (activeTable == incomeTable) incomeRowSorter.sort();
-                else expenseRowSorter.sort();
-            } else {
-                activeModel.removeRow(modelRow);
-                addTransactionToTable(updatedTransaction);
-            }
-
             updateBalance();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Ungültige Eingabe: " + ex.getMessage(), "Fehler", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    private void applySearchFilter() {
-        String text = searchField.getText();
-        if (text == null || text.trim().isEmpty()) {
+    /**
+     * Übernimmt das Ergebnis der Hintergrundsuche: ein Filter, der nur im BitSet nachschlägt,
+     * und der Saldo der Treffer. null bedeutet: keine Suche, alle Zeilen anzeigen.
+     */
+    private void applySearchResult(TransactionSearch.Result result) {
+        if (result == null) {
             incomeRowSorter.setRowFilter(null);
             expenseRowSorter.setRowFilter(null);
             updateBalance();
             return;
         }
-        
-        String query = text.trim().toLowerCase();
-        RowFilter<DefaultTableModel,Integer> rf = new RowFilter<DefaultTableModel,Integer>() {
-            @Override
-            public boolean include(RowFilter.Entry<? extends DefaultTableModel, ? extends Integer> entry) {
-                for (int col = 0; col <= 4; col++) {
-                    Object value = entry.getValue(col);
-                    if (value != null && value.toString().toLowerCase().contains(query)) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-        };
-        incomeRowSorter.setRowFilter(rf);
-        expenseRowSorter.setRowFilter(rf);
-        updateSearchBalance();
+        TransactionSearch.Matcher matcher = new TransactionSearch.Matcher(result.query);
+        incomeRowSorter.setRowFilter(searchFilter(result, 0, matcher));
+        expenseRowSorter.setRowFilter(searchFilter(result, 1, matcher));
+        Money balance = Money.ofCents(result.balanceCents);
+        balanceLabel.setText("Guthaben (Suchergebnis): " + balance.format());
+        updateBalanceColor(balance);
     }
 
-    private void updateSearchBalance() {
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
-        BigDecimal balance = BigDecimal.ZERO;
-        JTable[] tables = new JTable[]{incomeTable, expenseTable};
-        for (JTable t : tables) {
-            for (int viewRow = 0; viewRow < t.getRowCount(); viewRow++) {
-                Object amountObj = t.getValueAt(viewRow, 1);
-                Object typeObj = t.getValueAt(viewRow, 2);
-
-                BigDecimal amount;
-                try {
-                    Number parsed = currencyFormat.parse(amountObj.toString().trim());
-                    amount = BigDecimal.valueOf(parsed.doubleValue());
-                } catch (ParseException e) {
-                    String cleaned = amountObj.toString().replaceAll("[^0-9,.-]", "").replace(',', '.').trim();
-                    amount = new BigDecimal(cleaned);
-                }
-
-                TransactionType type = (TransactionType) typeObj;
-                if (type == TransactionType.Einnahmen) {
-                    balance = balance.add(amount);
-                } else if (type == TransactionType.Ausgaben) {
-                    balance = balance.subtract(amount);
+    private static RowFilter<TransactionTableModel, Integer> searchFilter(TransactionSearch.Result result,
+            int modelIndex, TransactionSearch.Matcher matcher) {
+        return new RowFilter<TransactionTableModel, Integer>() {
+            @Override
+            public boolean include(RowFilter.Entry<? extends TransactionTableModel, ? extends Integer> entry) {
+                TransactionTableModel model = entry.getModel();
+                BitSet matches = result.matchesFor(modelIndex, model);
+                if (matches != null) {
+                    return matches.get(entry.getIdentifier());
                 }
+                // Tabelle hat sich seit der Suche geändert: direkt prüfen, bis die neue Suche fertig ist
+                return matcher.matches(model.getTransactionAt(entry.getIdentifier()));
             }
-        }
-        balanceLabel.setText("Guthaben (Suchergebnis): " + currencyFormat.format(balance));
-        updateBalanceColor(balance);
+        };
     }
 
-    private void updateBalanceColor(BigDecimal balance) {
-        if (balance.compareTo(BigDecimal.ZERO) > 0) {
+    private void updateBalanceColor(Money balance) {
+        if (balance.signum() > 0) {
             balanceLabel.setForeground(new Color(0, 128, 0));
-        } else if (balance.compareTo(BigDecimal.ZERO) < 0) {
+        } else if (balance.signum() < 0) {
             balanceLabel.setForeground(Color.RED);
         } else {
             balanceLabel.setForeground(UIManager.getColor("Label.foreground"));
@@ -690,87 +656,187 @@ private void installAmountRenderer(JTable table) {
     }
 
     private void exportToCSV() {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("CSV-Datei exportieren");
-            fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Dateien (*.csv)", "csv"));
-            fileChooser.setSelectedFile(new java.io.File("Transaktionen.csv"));
-
-            int returnValue = fileChooser.showSaveDialog(this);
-            if (returnValue != JFileChooser.APPROVE_OPTION) {
-                return;
-            }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("CSV-Datei exportieren");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Dateien (*.csv)", "csv"));
+        fileChooser.setSelectedFile(new java.io.File("Transaktionen.csv"));
+
+        int returnValue = fileChooser.showSaveDialog(this);
+        if (returnValue != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
 
-            java.io.File selectedFile = fileChooser.getSelectedFile();
-            String filePath = selectedFile.getAbsolutePath();
+        java.io.File selectedFile = fileChooser.getSelectedFile();
+        String path = selectedFile.getAbsolutePath();
+        final String filePath = path.toLowerCase().endsWith(".csv") ? path : path + ".csv";
 
-            if (!filePath.toLowerCase().endsWith(".csv")) {
-                filePath += ".csv";
+        // Der Service ist nicht threadsicher: im EDT nur die eingefrorene Sicht holen (beim
+        // spaltenweisen Speicher ohne Kopie), gelesen und geschrieben wird im Hintergrund
+        List<Transaction> transactions = transactionService.getTransactionsSnapshot();
+        ProgressDialog[] dialog = new ProgressDialog[1];
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                CsvPersistence.exportToCSV(transactions, filePath, dialog[0]::update);
+                return null;
             }
 
-            CsvPersistence.exportToCSV(transactionService.getTransactions(), filePath);
-            JOptionPane.showMessageDialog(this, "Transaktionen erfolgreich exportiert nach:\n" + filePath, "Erfolg", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Fehler beim Export: " + ex.getMessage(), "Fehler", JOptionPane.ERROR_MESSAGE);
-        }
+            @Override
+            protected void done() {
+                dialog[0].dispose();
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, "Transaktionen erfolgreich exportiert nach:\n" + filePath, "Erfolg", JOptionPane.INFORMATION_MESSAGE);
+                } catch (CancellationException ex) {
+                    // Eine halbe Datei ist wertlos
+                    deleteQuietly(filePath);
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, "Export abgebrochen.", "Abgebrochen", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, "Fehler beim Export: " + causeMessage(ex), "Fehler", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        dialog[0] = new ProgressDialog(this, "CSV-Export", "Exportiere " + transactions.size() + " Transaktionen …",
+                () -> worker.cancel(true));
+        dialog[0].setTotalRows(transactions.size());
+        worker.execute();
+        dialog[0].setVisible(true);
     }
 
     private void importFromCSV() {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("CSV-Datei importieren");
-            fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Dateien (*.csv)", "csv"));
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("CSV-Datei importieren");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Dateien (*.csv)", "csv"));
 
-            int returnValue = fileChooser.showOpenDialog(this);
-            if (returnValue != JFileChooser.APPROVE_OPTION) {
-                return;
-            }
+        int returnValue = fileChooser.showOpenDialog(this);
+        if (returnValue != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
 
-            java.io.File selectedFile = fileChooser.getSelectedFile();
-            String filePath = selectedFile.getAbsolutePath();
+        java.io.File selectedFile = fileChooser.getSelectedFile();
+        String filePath = selectedFile.getAbsolutePath();
 
-            java.util.List<Transaction> importedTransactions = CsvPersistence.importFromCSV(filePath);
+        int confirm = JOptionPane.showConfirmDialog(
+            this,
+            "Möchten Sie die vorhandenen Transaktionen ersetzen oder die importierten Transaktionen hinzufügen?\n\n" +
+            "Ja = Ersetzen, Nein = Hinzufügen",
+            "Transaktionen importieren",
+            JOptionPane.YES_NO_CANCEL_OPTION
+        );
 
-            int confirm = JOptionPane.showConfirmDialog(
-                this,
-                "Möchten Sie die vorhandenen Transaktionen ersetzen oder die importierten Transaktionen hinzufügen?\n\n" +
-                "Ja = Ersetzen, Nein = Hinzufügen",
-                "Transaktionen importieren",
-                JOptionPane.YES_NO_CANCEL_OPTION
-            );
+        if (confirm == JOptionPane.CANCEL_OPTION || confirm == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
 
-            if (confirm == JOptionPane.CANCEL_OPTION) {
-                return;
+        // Die Datei wird im Hintergrund parallel geparst. Jeder Abschnitt wird im EDT in
+        // Service und Tabellen übernommen; der Hintergrund-Thread wartet darauf, damit nie
+        // mehr als ein Abschnitt auf die Übernahme wartet. Nach cancel() übernimmt kein
+        // Abschnitt mehr etwas: done() läuft ebenfalls im EDT, die Meldung stimmt also.
+        // Beim Ersetzen werden die Abschnitte im Hintergrund gesammelt und erst nach dem
+        // vollständigen Lesen in einem Schritt getauscht; Abbruch oder Fehler lassen die
+        // vorhandenen Transaktionen unverändert.
+        boolean replace = confirm == JOptionPane.YES_OPTION;
+        List<Transaction> staged = new ArrayList<>();
+        int[] applied = {0};
+        ProgressDialog[] dialog = new ProgressDialog[1];
+        List<? extends RowSorter.SortKey> incomeSortKeys = incomeRowSorter.getSortKeys();
+        List<? extends RowSorter.SortKey> expenseSortKeys = expenseRowSorter.getSortKeys();
+        // Ohne Sortierschlüssel kostet jeder Abschnitt nur das Anhängen; sortiert wird einmal am Ende
+        incomeRowSorter.setSortKeys(null);
+        expenseRowSorter.setSortKeys(null);
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                if (replace) {
+                    int count = CsvPersistence.importFromCSVParallel(filePath, staged::addAll, dialog[0]::update);
+                    runInEventThread(() -> {
+                        if (isCancelled()) return;
+                        transactionService.setTransactions(staged);
+                        updateBalance();
+                        applied[0] = staged.size();
+                    });
+                    return count;
+                }
+                return CsvPersistence.importFromCSVParallel(filePath, chunk -> runInEventThread(() -> {
+                    if (isCancelled()) return;
+                    applyImportedChunk(chunk);
+                    applied[0] += chunk.size();
+                }), dialog[0]::update);
             }
 
-            if (confirm == JOptionPane.YES_OPTION) {
-                transactionService.setTransactions(importedTransactions);
-                incomeTableModel.setRowCount(0);
-                expenseTableModel.setRowCount(0);
-            } else {
-                for (Transaction t : importedTransactions) {
-                    transactionService.addTransaction(t);
+            @Override
+            protected void done() {
+                dialog[0].dispose();
+                incomeRowSorter.setSortKeys(incomeSortKeys);
+                expenseRowSorter.setSortKeys(expenseSortKeys);
+                try {
+                    int importedCount = get();
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, "Erfolgreich " + importedCount + " Transaktionen importiert", "Erfolg", JOptionPane.INFORMATION_MESSAGE);
+                } catch (CancellationException ex) {
+                    String message = replace ? "Import abgebrochen. Die vorhandenen Transaktionen sind unverändert."
+                            : "Import abgebrochen. Bereits übernommen: " + applied[0] + " Transaktionen";
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, message, "Abgebrochen", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    String kept = replace ? "\nDie vorhandenen Transaktionen sind unverändert."
+                            : "\nBereits übernommen: " + applied[0] + " Transaktionen";
+                    JOptionPane.showMessageDialog(TransactionsPanel.this, "Fehler beim Import: " + causeMessage(ex) + kept, "Fehler", JOptionPane.ERROR_MESSAGE);
                 }
+                budgetMonitor.endBatch();
             }
+        };
+        // Budgetwarnungen aller Abschnitte erscheinen gesammelt nach dem Import
+        budgetMonitor.beginBatch();
+        dialog[0] = new ProgressDialog(this, "CSV-Import", "Importiere " + selectedFile.getName() + " …",
+                () -> worker.cancel(true));
+        worker.execute();
+        dialog[0].setVisible(true);
+    }
 
-            for (Transaction t : importedTransactions) {
-                addTransactionToTable(t);
-            }
+    /**
+     * Übernimmt einen importierten Abschnitt in den Service. Bereits vorhandene IDs werden
+     * überschrieben; die Tabellen folgen über ihre Listener (neue Zeilen gesammelt, ersetzte
+     * Zeilen über ihren Slot).
+     */
+    private void applyImportedChunk(List<Transaction> chunk) {
+        transactionService.addTransactions(chunk);
+        updateBalance();
+    }
 
-            updateBalance();
-            JOptionPane.showMessageDialog(this, "Erfolgreich " + importedTransactions.size() + " Transaktionen importiert", "Erfolg", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Fehler beim Import: " + ex.getMessage(), "Fehler", JOptionPane.ERROR_MESSAGE);
+    /**
+     * Führt eine Aktion im EDT aus und wartet darauf. Ein Abbruch des wartenden Threads
+     * wird als {@link InterruptedIOException} gemeldet.
+     */
+    private static void runInEventThread(Runnable action) {
+        try {
+            SwingUtilities.invokeAndWait(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Import abgebrochen"));
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static String causeMessage(Exception ex) {
+        Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof UncheckedIOException unchecked) cause = unchecked.getCause();
+        return cause.getMessage();
+    }
+
+    private static void deleteQuietly(String filePath) {
+        try {
+            Files.deleteIfExists(Path.of(filePath));
+        } catch (IOException e) {
+            System.err.println("Unvollständige Datei konnte nicht gelöscht werden: " + e.getMessage());
         }
     }
 
     private void configureDateSorting(TableRowSorter<? extends TableModel> sorter){
-        sorter.setComparator(3, (left, right) -> {
-            LocalDate firstDate = LocalDate.parse(left.toString(), TABLE_DATE_FORMATTER);
-            LocalDate secondDate = LocalDate.parse(right.toString(), TABLE_DATE_FORMATTER);
-            return firstDate.compareTo(secondDate);
-        });
-        sorter.setSortKeys(List.of(new javax.swing.RowSorter.SortKey(3, javax.swing.SortOrder.ASCENDING)));
+        // Die Spalte enthält LocalDate, sortiert wird also direkt nach dem Datum
+        sorter.setSortKeys(List.of(new javax.swing.RowSorter.SortKey(TransactionTableModel.DATE, javax.swing.SortOrder.ASCENDING)));
         sorter.setSortsOnUpdates(true);
     }
 
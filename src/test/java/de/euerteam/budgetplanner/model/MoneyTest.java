@@ -0,0 +1,53 @@
+package de.euerteam.budgetplanner.model;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests für Parsen und Formatieren von Geldbeträgen.
+ */
+public class MoneyTest extends TestCase {
+
+    public void testFormatMatchesGermanCurrencyFormat() {
+        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
+        long[] samples = {0, 1, -1, 99, 100, 123456, -123456, 100000000, 123456789012L};
+        for (long cents : samples) {
+            assertEquals(currencyFormat.format(BigDecimal.valueOf(cents, 2)), Money.ofCents(cents).format());
+        }
+    }
+
+    public void testParseCsvFormat() {
+        assertEquals(123456, Money.parse("1234.56").getCents());
+        assertEquals(-700, Money.parse("-7").getCents());
+        assertEquals(50, Money.parse("0.5").getCents());
+        assertEquals(1235, Money.parse("12.345").getCents());
+        assertEquals(1000000000, Money.parse("1.0E+7").getCents());
+    }
+
+    public void testParseCsvRejectsGarbage() {
+        try {
+            Money.parse("12a");
+            fail("NumberFormatException erwartet");
+        } catch (NumberFormatException expected) {
+            // ok
+        }
+    }
+
+    public void testParseGermanText() {
+        assertEquals(123456, Money.parseGerman("1.234,56 €").getCents());
+        assertEquals(123456, Money.parseGerman("1.234,56 €").getCents());
+        assertEquals(-1250, Money.parseGerman("-12,5").getCents());
+        assertEquals(1250, Money.parseGerman("12.50").getCents());
+        assertEquals(123400, Money.parseGerman("1.234").getCents());
+    }
+
+    public void testRoundTripThroughCsvText() {
+        Money amount = Money.ofCents(-98765);
+        assertEquals("-987.65", amount.toPlainString());
+        assertEquals(amount, Money.parse(amount.toPlainString()));
+        assertEquals(amount, Money.parseGerman(amount.format()));
+    }
+}
@@ -0,0 +1,42 @@
+package de.euerteam.budgetplanner.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests für das Expandieren von Daueraufträgen.
+ */
+public class RecurrenceRuleTest extends TestCase {
+
+    public void testMonthEndsAreComputedFromTheStart() {
+        RecurrenceRule rule = new RecurrenceRule("Miete", Money.ofCents(80000), TransactionType.Ausgaben, "Wohnen",
+                LocalDate.of(2024, 1, 31), RecurrenceRule.Frequency.MONTHLY, null, 0);
+
+        List<Transaction> spring = rule.expand(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 30));
+
+        assertEquals(3, spring.size());
+        assertEquals(LocalDate.of(2024, 2, 29), spring.get(0).getDate());
+        assertEquals(LocalDate.of(2024, 3, 31), spring.get(1).getDate());
+        assertEquals(LocalDate.of(2024, 4, 30), spring.get(2).getDate());
+        // Gleiche Ausführung, gleiche ID
+        assertEquals(rule.occurrence(1).getId(), spring.get(0).getId());
+        assertEquals(3, rule.countBetween(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 30)));
+        assertTrue(rule.isUnbounded());
+    }
+
+    public void testCountEndAndMaterializedBoundsLimitTheExpansion() {
+        RecurrenceRule rule = new RecurrenceRule("Versicherung", Money.ofCents(12000), TransactionType.Ausgaben,
+                "Versicherungen", LocalDate.of(2020, 6, 15), RecurrenceRule.Frequency.YEARLY, LocalDate.of(2030, 1, 1), 5);
+
+        assertEquals(5, rule.countBetween(null, null));
+        assertEquals(LocalDate.of(2024, 6, 15), rule.expand(null, null).get(4).getDate());
+        assertTrue(rule.endsBefore(LocalDate.of(2024, 6, 16)));
+
+        RecurrenceRule booked = rule.withMaterializedUntil(LocalDate.of(2022, 6, 15));
+        assertEquals(2, booked.countBetween(null, null));
+        assertEquals(LocalDate.of(2023, 6, 15), booked.expand(LocalDate.of(2000, 1, 1), null).get(0).getDate());
+        assertEquals(0, booked.countBetween(LocalDate.of(2024, 6, 16), LocalDate.of(2029, 1, 1)));
+    }
+}
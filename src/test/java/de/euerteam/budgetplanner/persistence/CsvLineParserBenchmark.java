@@ -0,0 +1,58 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.Transaction;
+
+/**
+ * Mikro-Benchmark für den CSV-Zeilen-Parser: misst die pro Zeile allokierten Bytes. Übrig
+ * bleiben sollen nur Transaction, UUID, Money, LocalDate und die Beschreibung (zusammen etwa
+ * 160 Bytes); der frühere Parser lag mit StringBuilder, Liste, Array und getrimmten Kopien
+ * weit darüber.
+ *
+ * Läuft nicht mit den Unit-Tests, da das Ergebnis von JVM und JIT abhängt. Aufruf von Hand:
+ * {@code java -cp target/classes:target/test-classes
+ * de.euerteam.budgetplanner.persistence.CsvLineParserBenchmark [Zeilen]}
+ */
+public final class CsvLineParserBenchmark {
+
+    private CsvLineParserBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Allokationsmessung wird von dieser JVM nicht unterstützt");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String[] lines = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            lines[i] = new UUID(i, i * 31L) + ";Eintrag " + (i % 100) + ";" + i + ".99;Ausgaben;2024-03-"
+                    + (10 + i % 20) + ";Kategorie " + (i % 8);
+        }
+        CsvLineParser parser = new CsvLineParser();
+        Transaction[] results = new Transaction[rows];
+        // Aufwärmen, damit der JIT die Hilfsobjekte wegoptimieren kann
+        for (int round = 0; round < 3; round++) {
+            parseAll(parser, lines, results);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        parseAll(parser, lines, results);
+        long nanos = System.nanoTime() - start;
+        long perRow = (threads.getThreadAllocatedBytes(threadId) - before) / rows;
+
+        System.out.printf("%d Zeilen: %d Bytes und %d ns pro Zeile%n", rows, perRow, nanos / rows);
+    }
+
+    private static void parseAll(CsvLineParser parser, String[] lines, Transaction[] results) {
+        for (int i = 0; i < lines.length; i++) {
+            results[i] = parser.parse(lines[i], 0, lines[i].length());
+        }
+    }
+}
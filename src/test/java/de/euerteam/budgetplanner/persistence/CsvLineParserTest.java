@@ -0,0 +1,74 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import junit.framework.TestCase;
+
+/**
+ * Tests für den allokationsarmen CSV-Zeilen-Parser.
+ */
+public class CsvLineParserTest extends TestCase {
+
+    private final CsvLineParser parser = new CsvLineParser();
+
+    public void testDecodesAllFields() {
+        Transaction t = parse("0f8fad5b-d9cb-469f-a165-70867728950e; Brot ;3.5;Ausgaben;2024-02-29; Lebensmittel");
+
+        assertEquals(UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e"), t.getId());
+        assertEquals("Brot", t.getDescription());
+        assertEquals(Money.ofCents(350), t.getMoney());
+        assertEquals(TransactionType.Ausgaben, t.getType());
+        assertEquals(LocalDate.of(2024, 2, 29), t.getDate());
+        assertEquals("Lebensmittel", t.getCategory());
+    }
+
+    public void testQuotedFieldsAndFallbacks() {
+        // Anführungszeichen werden wie bisher verworfen, Sonderformate gehen den langsamen Weg
+        Transaction t = parse("\"0F8FAD5B-D9CB-469F-A165-70867728950E\";\"Miete; \"\"Januar\"\"\";1.0E+3;\"Einnahmen\";2024-01-01;\"A;B\"");
+
+        assertEquals(UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e"), t.getId());
+        assertEquals("Miete; Januar", t.getDescription());
+        assertEquals(Money.ofCents(100000), t.getMoney());
+        assertEquals(TransactionType.Einnahmen, t.getType());
+        assertEquals("A;B", t.getCategory());
+    }
+
+    public void testRejectsInvalidLines() {
+        assertInvalid("kaputt");
+        assertInvalid("0f8fad5b-d9cb-469f-a165-70867728950e;Brot;3.5;Sonstiges;2024-01-01;X");
+        assertInvalid("0f8fad5b-d9cb-469f-a165-70867728950e;Brot;3.5;Ausgaben;2024-02-30;X");
+        assertInvalid("0f8fad5b-d9cb-469f-a165-7086772895zz;Brot;3.5;Ausgaben;2024-01-01;X");
+    }
+
+    public void testParserCanBeReusedAcrossLines() {
+        // Der Parser hält Puffer zwischen den Zeilen; keine Zeile darf Reste der vorherigen sehen
+        for (int i = 0; i < 100; i++) {
+            String description = i % 2 == 0 ? "Eintrag " + i : "E" + i;
+            Transaction t = parse(new UUID(i, i * 31L) + ";" + description + ";" + i + ".99;Ausgaben;2024-03-"
+                    + (10 + i % 20) + ";Kategorie " + (i % 8));
+
+            assertEquals(new UUID(i, i * 31L), t.getId());
+            assertEquals(description, t.getDescription());
+            assertEquals(Money.ofCents(i * 100L + 99), t.getMoney());
+            assertEquals(LocalDate.of(2024, 3, 10 + i % 20), t.getDate());
+            assertEquals("Kategorie " + (i % 8), t.getCategory());
+        }
+    }
+
+    private Transaction parse(String line) {
+        return parser.parse(line, 0, line.length());
+    }
+
+    private void assertInvalid(String line) {
+        try {
+            parse(line);
+            fail("Zeile sollte abgelehnt werden: " + line);
+        } catch (RuntimeException expected) {
+            // erwartet
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import junit.framework.TestCase;
+
+/**
+ * Tests für den CSV-Export und den blockweisen und parallelen Import.
+ */
+public class CsvPersistenceTest extends TestCase {
+
+    private static final String CSV = "ID;Description;Amount;Type;Date;Category\n"
+            + "00000000-0000-0000-0000-000000000001;Brot;3.50;Ausgaben;2024-01-05;Lebensmittel\n"
+            + "\n"
+            + "kaputt\n"
+            + "00000000-0000-0000-0000-000000000002;\"Miete; Januar\";800.00;Ausgaben;2024-01-01;Miete\n"
+            + "00000000-0000-0000-0000-000000000003;Gehalt;2500;Einnahmen;2024-01-28;\n";
+
+    public void testBatchesSkipHeaderAndInvalidLines() throws IOException {
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+
+        int count = CsvPersistence.importFromCSV(new BufferedReader(new StringReader(CSV)), 2, batch -> {
+            batchSizes.add(batch.size());
+            for (Transaction t : batch) {
+                descriptions.add(t.getDescription());
+            }
+        });
+
+        assertEquals(3, count);
+        assertEquals(List.of(2, 1), batchSizes);
+        assertEquals(List.of("Brot", "Miete; Januar", "Gehalt"), descriptions);
+    }
+
+    public void testParallelImportKeepsFileOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("ID;Description;Amount;Type;Date;Category\r\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(new UUID(0, i)).append(";Eintrag ").append(i).append(" äöü;")
+                    .append(i).append(".25;Ausgaben;2024-01-01;Miete")
+                    .append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 50 == 0) csv.append("kaputt\n\n");
+        }
+        Path file = Files.createTempFile("import", ".csv");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            List<Transaction> sequential = CsvPersistence.importFromCSV(file.toString());
+            List<Transaction> parallel = new ArrayList<>();
+
+            // Kleine Abschnitte, damit viele Grenzen mitten in Zeilen landen
+            int count = CsvPersistence.importFromCSVParallel(file, 97, pool, parallel::addAll);
+
+            assertEquals(500, count);
+            assertEquals(sequential.size(), parallel.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i).getId(), parallel.get(i).getId());
+                assertEquals(sequential.get(i).getDescription(), parallel.get(i).getDescription());
+                assertEquals(sequential.get(i).getMoney(), parallel.get(i).getMoney());
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    public void testParallelImportReportsProgressAndStopsWhenInterrupted() throws IOException {
+        StringBuilder csv = new StringBuilder("ID;Description;Amount;Type;Date;Category\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(new UUID(0, i)).append(";Eintrag ").append(i).append(";1.00;Ausgaben;2024-01-01;Miete\n");
+        }
+        Path file = Files.createTempFile("import", ".csv");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            long size = Files.size(file);
+            List<long[]> updates = new ArrayList<>();
+
+            CsvPersistence.importFromCSVParallel(file, 512, pool, chunk -> { },
+                    (rows, bytes, totalBytes) -> updates.add(new long[] {rows, bytes, totalBytes}));
+
+            assertTrue(updates.size() > 1);
+            long[] last = updates.get(updates.size() - 1);
+            assertEquals(200, last[0]);
+            assertEquals(size, last[1]);
+            assertEquals(size, last[2]);
+
+            List<Transaction> received = new ArrayList<>();
+            try {
+                CsvPersistence.importFromCSVParallel(file, 512, pool, chunk -> {
+                    received.addAll(chunk);
+                    Thread.currentThread().interrupt();
+                });
+                fail("Abbruch erwartet");
+            } catch (InterruptedIOException expected) {
+                // Nach dem ersten Abschnitt ist Schluss
+            } finally {
+                Thread.interrupted();
+            }
+            assertTrue(received.size() > 0 && received.size() < 200);
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    public void testExportWritesSameFormatAsBefore() throws IOException {
+        Transaction plain = new Transaction(new UUID(0x0123456789abcdefL, 0xfedcba9876543210L), "Brot",
+                Money.ofCents(-5), TransactionType.Ausgaben, LocalDate.of(2024, 1, 5), "Lebensmittel");
+        Transaction quoted = new Transaction(new UUID(1, 2), "Miete; \"Jan\" €\uD83D\uDE00",
+                Money.ofCents(123456789), TransactionType.Einnahmen, LocalDate.of(987, 12, 31), "A;B");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CsvPersistence.exportToCSV(List.of(plain, quoted), out);
+
+        String nl = System.lineSeparator();
+        assertEquals("ID;Description;Amount;Type;Date;Category" + nl
+                + "01234567-89ab-cdef-fedc-ba9876543210;Brot;-0.05;Ausgaben;2024-01-05;Lebensmittel" + nl
+                + "00000000-0000-0001-0000-000000000002;\"Miete; \"\"Jan\"\" €\uD83D\uDE00\";1234567.89;Einnahmen;0987-12-31;\"A;B\"" + nl,
+                out.toString(StandardCharsets.UTF_8));
+    }
+}
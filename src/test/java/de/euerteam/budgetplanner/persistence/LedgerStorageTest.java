@@ -0,0 +1,273 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.CategoryManager;
+import de.euerteam.budgetplanner.service.TransactionService;
+import junit.framework.TestCase;
+
+/**
+ * Tests für Snapshot plus Journal: Änderungen überstehen einen Absturz ohne close().
+ */
+public class LedgerStorageTest extends TestCase {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("ledger");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    public void testJournalIsReplayedAfterCrash() throws IOException {
+        TransactionService service = new TransactionService();
+        LedgerStorage storage = LedgerStorage.open(directory, service, new CategoryManager());
+        Transaction bread = expense("Brot", 350);
+        Transaction rent = expense("Miete", 80000);
+        service.addTransaction(bread);
+        service.addTransaction(rent);
+        service.updateTransaction(new Transaction(bread.getId(), "Brötchen", Money.ofCents(420),
+                TransactionType.Ausgaben, bread.getDate(), "Lebensmittel"));
+        service.removeTransactionById(rent.getId());
+        service.setMonthlyBudget(JANUARY, "Lebensmittel", Money.ofCents(10000));
+        storage.flush();
+        // Kein close(): simuliert einen Absturz; ein angerissener letzter Eintrag wird ignoriert
+        Files.write(directory.resolve("ledger.journal"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        TransactionService recovered = new TransactionService();
+        LedgerStorage reopened = LedgerStorage.open(directory, recovered, new CategoryManager());
+
+        assertEquals(1, recovered.getTransactions().size());
+        assertEquals("Brötchen", recovered.getTransactionById(bread.getId()).getDescription());
+        assertEquals(Money.ofCents(-420), recovered.getMonthlyBalance(JANUARY));
+        assertEquals(Money.ofCents(10000), recovered.getBudgetForMonth(JANUARY, "Lebensmittel"));
+
+        // Nach dem Abschneiden des kaputten Endes wird normal weitergeschrieben
+        recovered.addTransaction(expense("Käse", 500));
+        reopened.flush();
+        TransactionService again = new TransactionService();
+        LedgerStorage.open(directory, again, new CategoryManager());
+        assertEquals(2, again.getTransactions().size());
+    }
+
+    public void testCompactionWritesSnapshotAndKeepsLaterChanges() throws IOException {
+        TransactionService service = new TransactionService();
+        LedgerStorage storage = LedgerStorage.open(directory, service, new CategoryManager(), 1024);
+        for (int i = 0; i < 200; i++) {
+            service.addTransaction(expense("Eintrag " + i, 100 + i));
+        }
+        storage.close();
+
+        assertTrue(Files.exists(directory.resolve("ledger.bpsnap")));
+        assertFalse(Files.exists(directory.resolve("ledger.journal")));
+        assertFalse(Files.exists(directory.resolve("ledger.journal.old")));
+
+        TransactionService reloaded = new TransactionService();
+        LedgerStorage.open(directory, reloaded, new CategoryManager()).close();
+        assertEquals(200, reloaded.getTransactions().size());
+        assertEquals("Eintrag 199", reloaded.getTransactions().get(199).getDescription());
+    }
+
+    public void testRecurrenceRulesSurviveJournalAndSnapshot() throws IOException {
+        TransactionService service = new TransactionService();
+        LedgerStorage storage = LedgerStorage.open(directory, service, new CategoryManager());
+        RecurrenceRule rule = new RecurrenceRule("Miete", Money.ofCents(80000), TransactionType.Ausgaben, "Wohnen",
+                JANUARY.atDay(1), RecurrenceRule.Frequency.MONTHLY, null, 0);
+        service.putRecurrenceRule(rule);
+        service.materializeRecurrence(rule.getId(), JANUARY.atEndOfMonth());
+        storage.flush();
+
+        // Wiederherstellung nur aus dem Journal
+        TransactionService recovered = new TransactionService();
+        LedgerStorage reopened = LedgerStorage.open(directory, recovered, new CategoryManager());
+        assertEquals(1, recovered.getTransactions().size());
+        assertEquals(JANUARY.atEndOfMonth(), recovered.getRecurrenceRules().iterator().next().getMaterializedUntil());
+        assertEquals(Money.ofCents(-80000), recovered.getMonthlyBalance(JANUARY.plusMonths(1)));
+        reopened.close();
+
+        // Und aus dem Snapshot
+        TransactionService reloaded = new TransactionService();
+        LedgerStorage.open(directory, reloaded, new CategoryManager()).close();
+        assertEquals(1, reloaded.getRecurrenceRules().size());
+        assertEquals(Money.ofCents(-160000), reloaded.getNetFlow(JANUARY.atDay(1), JANUARY.plusMonths(1).atEndOfMonth()));
+    }
+
+    public void testFailedSnapshotIsReportedAndRetried() throws IOException {
+        TransactionService service = new TransactionService();
+        LedgerStorage storage = LedgerStorage.open(directory, service, new CategoryManager());
+        List<IOException> failures = new ArrayList<>();
+        storage.setFailureListener(failures::add);
+        service.addTransaction(expense("Brot", 350));
+        // Ein Verzeichnis an Stelle des Snapshots lässt das Ersetzen scheitern
+        Path blocker = Files.createDirectories(directory.resolve("ledger.bpsnap"));
+        Files.createFile(blocker.resolve("belegt"));
+
+        storage.compact();
+        storage.awaitCompaction();
+        assertEquals(1, failures.size());
+        assertTrue(Files.exists(directory.resolve("ledger.journal.old")));
+
+        Files.delete(blocker.resolve("belegt"));
+        Files.delete(blocker);
+        service.addTransaction(expense("Käse", 500));
+        storage.compact();
+        storage.awaitCompaction();
+        assertEquals(1, failures.size());
+        assertFalse(Files.exists(directory.resolve("ledger.journal.old")));
+        storage.flush();
+        // Der Snapshot enthält auch das laufende Journal; es wird nicht noch einmal wiederholt
+        assertEquals(0, Files.size(directory.resolve("ledger.journal")));
+
+        // Snapshot plus weitergeführtes Journal ergeben den vollständigen Stand
+        TransactionService recovered = new TransactionService();
+        LedgerStorage.open(directory, recovered, new CategoryManager());
+        assertEquals(2, recovered.getTransactions().size());
+    }
+
+    public void testJournalFailureIsReportedOnceAndSnapshotSavesOnClose() throws IOException {
+        // Schreiben nach /dev/full scheitert mit "No space left on device"
+        Path full = Path.of("/dev/full");
+        if (!Files.isWritable(full)) return;
+        Files.createSymbolicLink(directory.resolve("ledger.journal"), full);
+        TransactionService service = new TransactionService();
+        LedgerStorage storage = LedgerStorage.open(directory, service, new CategoryManager(), 1024);
+        List<IOException> failures = new ArrayList<>();
+        storage.setFailureListener(failures::add);
+
+        service.addTransaction(expense("Brot", 350));
+        try {
+            storage.flush();
+            fail("Schreibfehler erwartet");
+        } catch (IOException expected) {
+            // erwartet
+        }
+        for (int i = 0; i < 200; i++) {
+            service.addTransaction(expense("Eintrag " + i, 100 + i));
+        }
+        assertEquals(1, failures.size());
+        storage.close();
+
+        TransactionService reloaded = new TransactionService();
+        LedgerStorage.open(directory, reloaded, new CategoryManager()).close();
+        assertEquals(201, reloaded.getTransactions().size());
+    }
+
+    public void testReplayedRenameOnNewerSnapshotMergesCategories() throws IOException {
+        TransactionService service = new TransactionService();
+        CategoryManager categories = new CategoryManager(service.getCategoryDictionary());
+        LedgerStorage storage = LedgerStorage.open(directory, service, categories);
+        Transaction bread = expense("Brot", 350);
+        service.addTransaction(bread);
+        service.setMonthlyBudget(JANUARY, "Lebensmittel", Money.ofCents(10000));
+        assertTrue(categories.renameCategory("Lebensmittel", "Essen"));
+        storage.flush();
+        byte[] journal = Files.readAllBytes(directory.resolve("ledger.journal"));
+        storage.close();
+        // Ein Journal, das der Snapshot schon enthält, wird noch einmal darauf wiederholt
+        Files.write(directory.resolve("ledger.journal"), journal);
+
+        TransactionService recovered = new TransactionService();
+        CategoryManager recoveredCategories = new CategoryManager(recovered.getCategoryDictionary());
+        LedgerStorage.open(directory, recovered, recoveredCategories);
+        assertEquals("Essen", recovered.getTransactionById(bread.getId()).getCategory());
+        assertEquals(Money.ofCents(10000), recovered.getBudgetForMonth(JANUARY, "Essen"));
+        assertFalse(recoveredCategories.getCategories().contains("Lebensmittel"));
+        assertTrue(recovered.filterByCategory("Lebensmittel").isEmpty());
+    }
+
+    public void testCategoryAndClearEventsAlsoTriggerCompaction() throws IOException {
+        TransactionService service = new TransactionService();
+        CategoryManager categories = new CategoryManager(service.getCategoryDictionary());
+        LedgerStorage storage = LedgerStorage.open(directory, service, categories, 1024);
+        for (int i = 0; i < 20; i++) {
+            categories.addCategory("Kategorie " + i);
+            service.clearBudgets();
+        }
+        storage.awaitCompaction();
+
+        assertTrue(Files.exists(directory.resolve("ledger.bpsnap")));
+    }
+
+    public void testCategoryChangesAreJournaled() throws IOException {
+        TransactionService service = new TransactionService();
+        CategoryManager categories = new CategoryManager(service.getCategoryDictionary());
+        LedgerStorage storage = LedgerStorage.open(directory, service, categories);
+        Transaction bread = expense("Brot", 350);
+        service.addTransaction(bread);
+        categories.addCategory("Haustier");
+        categories.removeCategory("Bildung");
+        assertTrue(categories.renameCategory("Lebensmittel", "Essen"));
+        storage.flush();
+
+        TransactionService recovered = new TransactionService();
+        CategoryManager recoveredCategories = new CategoryManager(recovered.getCategoryDictionary());
+        LedgerStorage.open(directory, recovered, recoveredCategories);
+        List<String> names = recoveredCategories.getCategories();
+        assertTrue(names.contains("Haustier"));
+        assertTrue(names.contains("Essen"));
+        assertFalse(names.contains("Bildung"));
+        assertFalse(names.contains("Lebensmittel"));
+        assertEquals("Essen", recovered.getTransactionById(bread.getId()).getCategory());
+    }
+
+    public void testFileStoreStaysSourceOfTruthAndKeepsRenames() throws IOException {
+        CategoryManager categories = new CategoryManager();
+        MappedTransactionRepository repository = new MappedTransactionRepository(directory.resolve("transactions"),
+                categories.getDictionary());
+        TransactionService service = new TransactionService(repository);
+        LedgerStorage storage = LedgerStorage.open(directory, service, categories);
+        Transaction bread = expense("Brot", 350);
+        service.addTransaction(bread);
+        assertTrue(categories.renameCategory("Lebensmittel", "Essen"));
+        storage.close();
+        repository.close();
+
+        // Der Snapshot enthält die Buchungen nicht; ohne Datei-Speicher lässt er sich nicht öffnen
+        try {
+            LedgerStorage.open(directory, new TransactionService(), new CategoryManager());
+            fail("Snapshot ohne Buchungen in einen Heap-Speicher geladen");
+        } catch (IOException expected) {
+            // erwartet
+        }
+
+        CategoryManager reopenedCategories = new CategoryManager();
+        repository = new MappedTransactionRepository(directory.resolve("transactions"),
+                reopenedCategories.getDictionary());
+        TransactionService reopened = new TransactionService(repository);
+        LedgerStorage.open(directory, reopened, reopenedCategories).close();
+        assertEquals(1, reopened.getTransactions().size());
+        assertEquals("Essen", reopened.getTransactionById(bread.getId()).getCategory());
+        assertTrue(reopenedCategories.getCategories().contains("Essen"));
+        assertFalse(reopenedCategories.getCategories().contains("Lebensmittel"));
+        repository.close();
+    }
+
+    private static Transaction expense(String description, long cents) {
+        return new Transaction(UUID.randomUUID(), description, Money.ofCents(cents), TransactionType.Ausgaben,
+                LocalDate.of(2024, 1, 10), "Lebensmittel");
+    }
+}
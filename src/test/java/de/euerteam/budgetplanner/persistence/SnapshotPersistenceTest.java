@@ -0,0 +1,87 @@
+package de.euerteam.budgetplanner.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.CategoryManager;
+import de.euerteam.budgetplanner.service.TransactionService;
+import junit.framework.TestCase;
+
+/**
+ * Tests für den binären Snapshot.
+ */
+public class SnapshotPersistenceTest extends TestCase {
+
+    private Path file;
+
+    @Override
+    protected void setUp() throws IOException {
+        file = Files.createTempFile("ledger", ".bpsnap");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    public void testRoundTripKeepsTransactionsBudgetsAndCategories() throws IOException {
+        String category = "Snapshot-" + UUID.randomUUID();
+        TransactionService service = new TransactionService();
+        CategoryManager categories = new CategoryManager();
+        categories.addCategory(category);
+        Transaction rent = new Transaction(UUID.randomUUID(), "Miete äöü", Money.ofCents(80000),
+                TransactionType.Ausgaben, LocalDate.of(2024, 1, 1), category);
+        Transaction salary = new Transaction(UUID.randomUUID(), "Gehalt", Money.ofCents(250000),
+                TransactionType.Einnahmen, LocalDate.of(2024, 1, 28), (String) null);
+        service.addTransaction(rent);
+        service.addTransaction(salary);
+        service.setMonthlyBudget(YearMonth.of(2024, 1), category, Money.ofCents(90000));
+
+        SnapshotPersistence.save(file, service, categories);
+
+        TransactionService loaded = new TransactionService();
+        CategoryManager loadedCategories = new CategoryManager();
+        loaded.addTransaction(new Transaction("Alt", Money.ofCents(1), TransactionType.Ausgaben, LocalDate.now(), "Miete"));
+        SnapshotPersistence.load(file, loaded, loadedCategories);
+
+        List<Transaction> transactions = loaded.getTransactions();
+        assertEquals(2, transactions.size());
+        assertEquals(rent.getId(), transactions.get(0).getId());
+        assertEquals("Miete äöü", transactions.get(0).getDescription());
+        assertEquals(category, transactions.get(0).getCategory());
+        assertEquals(Money.ofCents(80000), transactions.get(0).getMoney());
+        assertEquals(LocalDate.of(2024, 1, 1), transactions.get(0).getDate());
+        assertNull(transactions.get(1).getCategory());
+        assertEquals(TransactionType.Einnahmen, transactions.get(1).getType());
+        assertEquals(Money.ofCents(90000), loaded.getBudgetForMonth(YearMonth.of(2024, 1), category));
+        assertEquals(Money.ofCents(170000), loaded.getMonthlyBalance(YearMonth.of(2024, 1)));
+        assertEquals(categories.getCategories(), loadedCategories.getCategories());
+    }
+
+    public void testCorruptFileIsRejectedWithoutChanges() throws IOException {
+        TransactionService service = new TransactionService();
+        CategoryManager categories = new CategoryManager();
+        service.addTransaction(new Transaction("Brot", Money.ofCents(350), TransactionType.Ausgaben,
+                LocalDate.of(2024, 1, 5), "Lebensmittel"));
+        SnapshotPersistence.save(file, service, categories);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(file, bytes);
+
+        TransactionService loaded = new TransactionService();
+        try {
+            SnapshotPersistence.load(file, loaded, new CategoryManager());
+            fail("Beschädigter Snapshot sollte abgelehnt werden");
+        } catch (IOException expected) {
+            assertTrue(loaded.getTransactions().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.euerteam.budgetplanner.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.persistence.ListTransactionRepository;
+import junit.framework.TestCase;
+
+/**
+ * Tests für die Schwellenmeldungen des BudgetMonitors.
+ */
+public class BudgetMonitorTest extends TestCase {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+
+    private TransactionService service;
+    private BudgetMonitor monitor;
+    private final List<List<BudgetMonitor.BudgetAlert>> received = new ArrayList<>();
+
+    @Override
+    protected void setUp() {
+        service = new TransactionService(new ListTransactionRepository());
+        service.setMonthlyBudget(JANUARY, "Lebensmittel", Money.parse("100"));
+        service.addTransaction(expense("Vorrat", "50", JANUARY.atDay(2), "Lebensmittel"));
+        monitor = new BudgetMonitor(service);
+        monitor.addListener(received::add);
+    }
+
+    public void testEachThresholdIsReportedOnceWhenCrossed() {
+        service.addTransaction(expense("Markt", "20", JANUARY.atDay(3), "Lebensmittel"));
+        assertTrue(received.isEmpty());
+
+        Transaction bakery = expense("Bäcker", "15", JANUARY.atDay(4), "Lebensmittel");
+        service.addTransaction(bakery);
+        assertEquals(1, received.size());
+        BudgetMonitor.BudgetAlert alert = received.get(0).get(0);
+        assertEquals(80, alert.percent());
+        assertEquals("Lebensmittel", alert.category());
+        assertEquals(Money.parse("85"), alert.spent());
+
+        // Darunter und wieder darüber: erneut melden; gleiche Stufe bleibt still
+        service.removeTransactionById(bakery.getId());
+        service.addTransaction(expense("Kiosk", "1", JANUARY.atDay(5), "Lebensmittel"));
+        assertEquals(1, received.size());
+        service.addTransaction(bakery);
+        assertEquals(2, received.size());
+        // Anderer Monat ohne Budget und Einnahmen zählen nicht
+        service.addTransaction(expense("Markt", "500", FEBRUARY.atDay(1), "Lebensmittel"));
+        service.addTransaction(new Transaction("Gehalt", new BigDecimal("900"), TransactionType.Einnahmen,
+                JANUARY.atDay(6), "Lebensmittel"));
+        assertEquals(2, received.size());
+
+        // Budget senken meldet die nun überschrittene Stufe
+        service.setMonthlyBudget(JANUARY, "Lebensmittel", Money.parse("80"));
+        assertEquals(3, received.size());
+        assertEquals(100, received.get(2).get(0).percent());
+    }
+
+    public void testBulkOperationsAreCoalesced() {
+        service.setMonthlyBudget(FEBRUARY, "Lebensmittel", Money.parse("10"));
+        service.addTransactions(List.of(
+                expense("A", "40", JANUARY.atDay(3), "Lebensmittel"),
+                expense("B", "40", JANUARY.atDay(4), "Lebensmittel"),
+                expense("C", "20", FEBRUARY.atDay(1), "Lebensmittel")));
+        assertEquals(1, received.size());
+        // Januar über 80 und 100 %, Februar über 80 und 100 %
+        assertEquals(4, received.get(0).size());
+
+        monitor.beginBatch();
+        service.setMonthlyBudget(JANUARY, "Wohnen", Money.parse("500"));
+        service.addTransaction(expense("Miete", "450", JANUARY.atDay(1), "Wohnen"));
+        service.addTransaction(expense("Nebenkosten", "60", JANUARY.atDay(1), "Wohnen"));
+        assertEquals(1, received.size());
+        monitor.endBatch();
+        assertEquals(2, received.size());
+        assertEquals(2, received.get(1).size());
+    }
+
+    public void testMaterializingRecurrenceDoesNotReportTwice() {
+        service.setMonthlyBudget(FEBRUARY, "Lebensmittel", Money.parse("100"));
+        service.putRecurrenceRule(new RecurrenceRule("Abo", Money.parse("90"), TransactionType.Ausgaben, "Lebensmittel",
+                JANUARY.atDay(15), RecurrenceRule.Frequency.MONTHLY, null, 0));
+        // Januar: 50 + 90, Februar: 90
+        assertEquals(1, received.size());
+        assertEquals(3, received.get(0).size());
+
+        service.materializeRecurrences(LocalDate.of(2024, 2, 29));
+        assertEquals(1, received.size());
+    }
+
+    private static Transaction expense(String description, String amount, LocalDate date, String category) {
+        return new Transaction(description, new BigDecimal(amount), TransactionType.Ausgaben, date, category);
+    }
+}
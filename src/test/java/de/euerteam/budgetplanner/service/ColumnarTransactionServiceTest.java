@@ -0,0 +1,49 @@
+package de.euerteam.budgetplanner.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.persistence.ColumnarTransactionRepository;
+import de.euerteam.budgetplanner.persistence.IndexedQuery;
+import de.euerteam.budgetplanner.persistence.TransactionRepository;
+
+/**
+ * Führt die TransactionService-Tests mit dem Spaltenspeicher aus.
+ */
+public class ColumnarTransactionServiceTest extends TransactionServiceTest {
+
+    @Override
+    protected TransactionRepository createRepository() {
+        // Kleine Startkapazität, damit Wachstum und ID-Tabelle mitgetestet werden
+        return new ColumnarTransactionRepository(new CategoryDictionary(), 4);
+    }
+
+    public void testPlannerPicksMostSelectiveIndex() {
+        TransactionService service = new TransactionService(createRepository());
+        List<Transaction> transactions = new ArrayList<>();
+        for (int day = 1; day <= 28; day++) {
+            LocalDate date = LocalDate.of(2024, 3, day);
+            transactions.add(new Transaction("Einkauf " + day, Money.ofCents(1000 + day), TransactionType.Ausgaben,
+                    date, "Lebensmittel"));
+            transactions.add(new Transaction("Bahn", Money.ofCents(300), TransactionType.Ausgaben,
+                    date.minusYears(1), day == 1 ? "Reise" : "Mobilität"));
+        }
+        service.addTransactions(transactions);
+
+        TransactionQuery march = TransactionQuery.all().inMonth(YearMonth.of(2024, 3));
+        assertEquals(IndexedQuery.BY_MONTH, service.chooseIndex(march));
+        assertEquals(IndexedQuery.BY_CATEGORY, service.chooseIndex(TransactionQuery.all().inCategories("Reise")));
+        assertEquals(IndexedQuery.TEXT, service.chooseIndex(march.containing("kauf 2")));
+        // Typ und Betrag sind nicht indiziert
+        assertNull(service.chooseIndex(TransactionQuery.all().ofType(TransactionType.Ausgaben)));
+
+        assertEquals(10, service.find(march.containing("kauf 2")).size());
+        assertTrue(service.find(march.inCategories("Reise")).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package de.euerteam.budgetplanner.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.persistence.MappedTransactionRepository;
+import de.euerteam.budgetplanner.persistence.TransactionRepository;
+
+/**
+ * Führt die TransactionService-Tests mit dem gemappten Speicher aus.
+ */
+public class MappedTransactionServiceTest extends TransactionServiceTest {
+
+    private Path directory;
+    private MappedTransactionRepository repository;
+
+    @Override
+    protected TransactionRepository createRepository() {
+        try {
+            directory = Files.createTempDirectory("repository");
+            repository = new MappedTransactionRepository(directory.resolve("ledger"));
+            return repository;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        repository.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    public void testReopenKeepsTransactionsWithoutParsing() throws IOException {
+        TransactionService service = new TransactionService(repository);
+        Transaction kept = new Transaction(UUID.randomUUID(), "Miete", Money.ofCents(80000),
+                TransactionType.Ausgaben, LocalDate.of(2024, 1, 1), "Miete");
+        Transaction removed = new Transaction(UUID.randomUUID(), "Kino", Money.ofCents(1200),
+                TransactionType.Ausgaben, LocalDate.of(2024, 1, 2), (String) null);
+        service.addTransaction(kept);
+        service.addTransaction(removed);
+        service.removeTransactionById(removed.getId());
+        repository.close();
+
+        repository = new MappedTransactionRepository(directory.resolve("ledger"));
+        TransactionService reopened = new TransactionService(repository);
+
+        assertEquals(1, reopened.getTransactions().size());
+        Transaction t = reopened.getTransactionById(kept.getId());
+        assertEquals("Miete", t.getDescription());
+        assertEquals("Miete", t.getCategory());
+        assertEquals(Money.ofCents(-80000), reopened.getMonthlyBalance(YearMonth.of(2024, 1)));
+        assertNull(reopened.getTransactionById(removed.getId()));
+    }
+
+    public void testRenamedCategoryIsKeptAfterReopen() throws IOException {
+        CategoryManager categories = new CategoryManager(repository.categories());
+        TransactionService service = new TransactionService(repository);
+        Transaction rent = new Transaction(UUID.randomUUID(), "Miete", Money.ofCents(80000),
+                TransactionType.Ausgaben, LocalDate.of(2024, 1, 1), "Miete");
+        service.addTransaction(rent);
+        assertTrue(categories.renameCategory("Miete", "Wohnen"));
+        repository.close();
+
+        repository = new MappedTransactionRepository(directory.resolve("ledger"));
+        TransactionService reopened = new TransactionService(repository);
+        assertEquals("Wohnen", reopened.getTransactionById(rent.getId()).getCategory());
+        assertEquals(1, reopened.filterByCategory("Wohnen").size());
+        assertTrue(reopened.filterByCategory("Miete").isEmpty());
+    }
+
+    public void testSnapshotReadsFromFileAndSurvivesCompactionAndClear() {
+        TransactionService service = new TransactionService(repository);
+        List<Transaction> original = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            original.add(new Transaction(UUID.randomUUID(), "Eintrag " + i, Money.ofCents(100 + i),
+                    TransactionType.Ausgaben, LocalDate.of(2024, 1, 1 + i), "Lebensmittel"));
+        }
+        service.addTransactions(original);
+        List<Transaction> snapshot = service.getTransactionsSnapshot();
+
+        // Mehr als die Hälfte löschen kompaktiert und verschiebt Datensätze im Bereich der Sicht
+        for (int i = 0; i < 6; i++) {
+            service.removeTransactionById(original.get(i).getId());
+        }
+        assertEquals(4, service.getSlotCount());
+        // Ersetzen beginnt die Datei von vorn
+        service.setTransactions(List.of(new Transaction(UUID.randomUUID(), "Neu", Money.ofCents(1),
+                TransactionType.Einnahmen, LocalDate.of(2025, 1, 1), null)));
+
+        assertEquals(10, snapshot.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(original.get(i).getId(), snapshot.get(i).getId());
+            assertEquals(100 + i, snapshot.get(i).getAmountCents());
+            assertEquals("Eintrag " + i, snapshot.get(i).getDescription());
+            assertEquals("Lebensmittel", snapshot.get(i).getCategory());
+        }
+        assertEquals("Neu", service.getTransactions().get(0).getDescription());
+    }
+}
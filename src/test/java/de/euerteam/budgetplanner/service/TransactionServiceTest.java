@@ -0,0 +1,449 @@
+package de.euerteam.budgetplanner.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+
+import de.euerteam.budgetplanner.model.CategoryDictionary;
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.RecurrenceRule;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.persistence.ListTransactionRepository;
+import de.euerteam.budgetplanner.persistence.TransactionRepository;
+import junit.framework.TestCase;
+
+/**
+ * Tests für den ID-Index und die Monatsaggregate im TransactionService.
+ * Unterklassen führen dieselben Tests mit einer anderen Speicher-Engine aus.
+ */
+public class TransactionServiceTest extends TestCase {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+
+    private TransactionService service;
+
+    @Override
+    protected void setUp() {
+        service = new TransactionService(createRepository());
+    }
+
+    protected TransactionRepository createRepository() {
+        return new ListTransactionRepository();
+    }
+
+    public void testLookupByIdAfterAdd() {
+        Transaction t = expense("Brot", "3.50", JANUARY.atDay(5), "Lebensmittel");
+        service.addTransaction(t);
+
+        assertSameTransaction(t, service.getTransactionById(t.getId()));
+        assertNull(service.getTransactionById(UUID.randomUUID()));
+    }
+
+    public void testUpdateKeepsPositionAndMovesMonth() {
+        Transaction a = expense("A", "10", JANUARY.atDay(1), "Miete");
+        Transaction b = expense("B", "20", JANUARY.atDay(2), "Miete");
+        Transaction c = expense("C", "30", JANUARY.atDay(3), "Miete");
+        service.addTransaction(a);
+        service.addTransaction(b);
+        service.addTransaction(c);
+
+        Transaction movedB = new Transaction(b.getId(), "B2", new BigDecimal("25"), TransactionType.Ausgaben,
+                FEBRUARY.atDay(2), "Miete");
+        assertTrue(service.updateTransaction(movedB));
+
+        assertTransactions(List.of(a, movedB, c), service.getTransactions());
+        assertEquals(2, service.getTransactionsForMonth(JANUARY).size());
+        assertTransactions(List.of(movedB), service.getTransactionsForMonth(FEBRUARY));
+        assertAmount("-40", service.getMonthlyBalance(JANUARY));
+        assertAmount("-25", service.getMonthlyBalance(FEBRUARY));
+    }
+
+    public void testUpdateUnknownIdReturnsFalse() {
+        service.addTransaction(expense("A", "10", JANUARY.atDay(1), "Miete"));
+
+        assertFalse(service.updateTransaction(expense("X", "1", JANUARY.atDay(1), "Miete")));
+        assertEquals(1, service.getTransactions().size());
+    }
+
+    public void testRemoveKeepsOrderOfRemaining() {
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Transaction t = income("T" + i, "1", JANUARY.atDay(i + 1));
+            added.add(t);
+            service.addTransaction(t);
+        }
+
+        UUID third = added.get(3).getId();
+        UUID seventh = added.get(7).getId();
+        assertTrue(service.removeTransactionById(third));
+        assertTrue(service.removeTransactionById(seventh));
+        assertFalse(service.removeTransactionById(seventh));
+
+        added.remove(7);
+        added.remove(3);
+        assertTransactions(added, service.getTransactions());
+        assertNull(service.getTransactionById(third));
+        assertAmount("8", service.getMonthlyBalance(JANUARY));
+    }
+
+    public void testMixedAddUpdateRemoveKeepsIndexConsistent() {
+        List<Transaction> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Transaction t = expense("T" + i, String.valueOf(i), JANUARY.atDay(1 + i % 28), "Abos");
+            expected.add(t);
+            service.addTransaction(t);
+        }
+
+        // Jede dritte löschen, jede fünfte der verbleibenden ändern; löst mehrfaches Kompaktieren aus
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            if (i % 3 == 0) {
+                UUID id = expected.remove(i).getId();
+                assertTrue(service.removeTransactionById(id));
+                assertNull(service.getTransactionById(id));
+                assertFalse(service.removeTransactionById(id));
+            }
+        }
+        for (int i = 0; i < expected.size(); i += 5) {
+            Transaction old = expected.get(i);
+            Transaction updated = new Transaction(old.getId(), old.getDescription(), BigDecimal.ONE,
+                    TransactionType.Ausgaben, FEBRUARY.atDay(1), "Abos");
+            assertTrue(service.updateTransaction(updated));
+            expected.set(i, updated);
+        }
+        Transaction late = income("Gehalt", "1000", FEBRUARY.atDay(28));
+        service.addTransaction(late);
+        expected.add(late);
+
+        assertTransactions(expected, service.getTransactions());
+        for (Transaction t : expected) {
+            assertSameTransaction(t, service.getTransactionById(t.getId()));
+        }
+
+        BigDecimal januaryExpenses = BigDecimal.ZERO;
+        BigDecimal februaryBalance = BigDecimal.ZERO;
+        for (Transaction t : expected) {
+            if (YearMonth.from(t.getDate()).equals(JANUARY)) {
+                januaryExpenses = januaryExpenses.add(t.getAmount());
+            } else if (t.getType() == TransactionType.Einnahmen) {
+                februaryBalance = februaryBalance.add(t.getAmount());
+            } else {
+                februaryBalance = februaryBalance.subtract(t.getAmount());
+            }
+        }
+        assertAmount(januaryExpenses.toPlainString(), service.getExpenseForMonth(JANUARY, "Abos"));
+        assertAmount(februaryBalance.toPlainString(), service.getMonthlyBalance(FEBRUARY));
+    }
+
+    public void testRemoveEverythingAfterGrowth() {
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Transaction t = income("T" + i, "1", JANUARY.atDay(1));
+            added.add(t);
+            service.addTransaction(t);
+        }
+        for (Transaction t : added) {
+            assertTrue(service.removeTransactionById(t.getId()));
+            assertNull(service.getTransactionById(t.getId()));
+            assertFalse(service.removeTransactionById(t.getId()));
+        }
+
+        assertTrue(service.getTransactions().isEmpty());
+        assertTrue(service.getTransactionsForMonth(JANUARY).isEmpty());
+        assertAmount("0", service.getMonthlyBalance(JANUARY));
+    }
+
+    public void testAddWithExistingIdReplacesTransaction() {
+        Transaction original = expense("Kino", "12", JANUARY.atDay(10), "Unterhaltung");
+        service.addTransaction(original);
+        Transaction again = new Transaction(original.getId(), "Kino", new BigDecimal("15"),
+                TransactionType.Ausgaben, JANUARY.atDay(10), "Unterhaltung");
+        service.addTransaction(again);
+
+        assertTransactions(List.of(again), service.getTransactions());
+        assertAmount("15", service.getExpenseForMonth(JANUARY, "Unterhaltung"));
+    }
+
+    public void testSetTransactionsRebuildsIndex() {
+        Transaction old = expense("Alt", "5", JANUARY.atDay(1), "Abos");
+        service.addTransaction(old);
+        Transaction replacement = income("Neu", "7", FEBRUARY.atDay(1));
+        service.setTransactions(List.of(replacement));
+
+        assertNull(service.getTransactionById(old.getId()));
+        assertSameTransaction(replacement, service.getTransactionById(replacement.getId()));
+        assertAmount("0", service.getMonthlyBalance(JANUARY));
+        assertAmount("7", service.getMonthlyBalance(FEBRUARY));
+    }
+
+    public void testRenamedCategoryKeepsExpensesAndBudgets() {
+        String oldName = "Reisen";
+        String newName = "Urlaub";
+        CategoryManager categories = new CategoryManager(service.getCategoryDictionary());
+        categories.addCategory(oldName);
+        Transaction t = expense("Hotel", "120", JANUARY.atDay(3), oldName);
+        service.addTransaction(t);
+        service.setMonthlyBudget(JANUARY, oldName, Money.parse("100"));
+
+        assertTrue(categories.renameCategory(oldName, newName));
+
+        assertEquals(newName, service.getTransactionById(t.getId()).getCategory());
+        assertAmount("120", service.getExpenseForMonth(JANUARY, newName));
+        assertAmount("100", service.getBudgetForMonth(JANUARY, newName));
+        assertAmount("120", service.getExpensesCategoryForMonth(JANUARY).get(newName));
+        assertEquals(1, service.filterByCategory(newName).size());
+        assertTrue(categories.getCategories().contains(newName));
+        assertFalse(categories.getCategories().contains(oldName));
+    }
+
+    public void testTransactionsSnapshotIgnoresLaterChanges() {
+        Transaction bread = expense("Brot", "2", JANUARY.atDay(1), "Lebensmittel");
+        Transaction rent = expense("Miete", "800", JANUARY.atDay(1), "Wohnen");
+        service.addTransactions(List.of(bread, rent));
+        List<Transaction> snapshot = service.getTransactionsSnapshot();
+
+        service.updateTransaction(bread.withCategory("Bäcker"));
+        service.removeTransactionById(rent.getId());
+        service.addTransaction(expense("Kino", "12", JANUARY.atDay(2), "Freizeit"));
+
+        assertEquals(2, snapshot.size());
+        assertEquals("Lebensmittel", snapshot.get(0).getCategory());
+        assertEquals("Wohnen", snapshot.get(1).getCategory());
+        assertEquals(80000, snapshot.get(1).getAmountCents());
+    }
+
+    public void testUnusedCategoryIdIsFreedAndReused() {
+        CategoryDictionary dictionary = service.getCategoryDictionary();
+        Transaction typo = expense("Brot", "2", JANUARY.atDay(1), "Lebensmitel");
+        service.addTransaction(typo);
+        int id = dictionary.find("Lebensmitel");
+        assertTrue(id >= 0);
+
+        // Korrigiert: die falsch geschriebene Kategorie hat keinen Verwender mehr
+        service.updateTransaction(typo.withCategory("Lebensmittel"));
+        assertEquals(CategoryDictionary.NONE, dictionary.find("Lebensmitel"));
+        service.setMonthlyBudget(JANUARY, "Drogerie", Money.parse("30"));
+        assertEquals(id, dictionary.find("Drogerie"));
+
+        service.clearBudgets();
+        service.setTransactions(List.of());
+        assertNull(dictionary.nameOf(id));
+        assertEquals(CategoryDictionary.NONE, dictionary.find("Lebensmittel"));
+    }
+
+    public void testSearchFindsSubstringsAfterUpdateAndRemove() {
+        Transaction a = expense("Wocheneinkauf REWE", "40", JANUARY.atDay(1), "Lebensmittel");
+        Transaction b = expense("Kino", "12", JANUARY.atDay(2), "Unterhaltung");
+        Transaction c = expense("Rewe to go", "5", JANUARY.atDay(3), "Lebensmittel");
+        service.addTransaction(a);
+        service.addTransaction(b);
+        service.addTransaction(c);
+
+        assertTransactions(List.of(a, c), service.searchTransactions("rewe"));
+        assertTransactions(List.of(b), service.searchTransactions("ki"));
+
+        Transaction renamedA = new Transaction(a.getId(), "Wochenmarkt", new BigDecimal("40"), TransactionType.Ausgaben,
+                JANUARY.atDay(1), "Lebensmittel");
+        service.updateTransaction(renamedA);
+        service.removeTransactionById(c.getId());
+
+        assertTrue(service.searchTransactions("rewe").isEmpty());
+        assertTransactions(List.of(renamedA), service.searchTransactions("MARKT"));
+        assertTransactions(List.of(renamedA), service.searchText("ebens"));
+        assertTransactions(List.of(b), service.searchText("unterhalt"));
+    }
+
+    public void testAddTransactionsReportsBatchInOrder() {
+        Transaction a = expense("Miete", "800", JANUARY.atDay(1), "Wohnen");
+        Transaction b = income("Gehalt", "2000", JANUARY.atDay(2));
+        Transaction aAgain = new Transaction(a.getId(), "Miete", new BigDecimal("850"), TransactionType.Ausgaben,
+                JANUARY.atDay(1), "Wohnen");
+        Transaction c = expense("Strom", "60", FEBRUARY.atDay(3), "Wohnen");
+        List<String> events = new ArrayList<>();
+        service.addListener(new TransactionListener() {
+            @Override
+            public void transactionsAdded(List<Transaction> transactions) {
+                events.add("added " + transactions.size());
+            }
+
+            @Override
+            public void transactionUpdated(Transaction oldTransaction, Transaction newTransaction) {
+                events.add("updated");
+            }
+        });
+
+        service.addTransactions(List.of(a, b, aAgain, c));
+
+        // Die doppelte ID ersetzt die erste Buchung; die Listener sehen die Reihenfolge der Eingabe
+        assertEquals(List.of("added 2", "updated", "added 1"), events);
+        assertEquals(3, service.getTransactions().size());
+        assertAmount("1150", service.getMonthlyBalance(JANUARY));
+        assertEquals(1, service.getTransactionsForMonth(FEBRUARY).size());
+    }
+
+    public void testQueryCombinesPredicatesAndAggregates() {
+        Transaction rent = expense("Miete Januar", "800", JANUARY.atDay(1), "Wohnen");
+        Transaction salary = income("Gehalt", "2000", JANUARY.atDay(2));
+        Transaction food = expense("Wocheneinkauf", "45.50", JANUARY.atDay(9), "Lebensmittel");
+        Transaction power = expense("Strom", "60", FEBRUARY.atDay(3), "Wohnen");
+        Transaction cinema = expense("Kino", "12", FEBRUARY.atDay(4), "Freizeit");
+        service.addTransactions(List.of(rent, salary, food, power, cinema));
+        service.removeTransactionById(cinema.getId());
+
+        TransactionQuery expenses = TransactionQuery.all().ofType(TransactionType.Ausgaben);
+        assertTransactions(List.of(rent, power), service.find(expenses.inCategories("Wohnen", "Unbekannt")));
+        assertTransactions(List.of(food), service.find(expenses.inMonth(JANUARY).amountBetween(null, Money.parse("100"))));
+        assertTransactions(List.of(rent, power), service.find(TransactionQuery.all().containing("WOHN")));
+        assertTransactions(List.of(salary), service.find(TransactionQuery.all()
+                .between(JANUARY.atDay(2), FEBRUARY.atDay(2)).containing("gehalt")));
+
+        QueryTotals january = service.aggregate(TransactionQuery.all().inMonth(JANUARY));
+        assertEquals(3, january.getCount());
+        assertAmount("845.50", january.getExpenses());
+        assertAmount("1154.50", january.getBalance());
+
+        SortedMap<YearMonth, QueryTotals> byMonth = service.aggregateByMonth(expenses);
+        assertEquals(List.of(JANUARY, FEBRUARY), new ArrayList<>(byMonth.keySet()));
+        assertAmount("60", byMonth.get(FEBRUARY).getExpenses());
+
+        Map<String, QueryTotals> byCategory = service.aggregateByCategory(expenses);
+        assertEquals(2, byCategory.size());
+        assertAmount("860", byCategory.get("Wohnen").getExpenses());
+        assertEquals(1, byCategory.get("Lebensmittel").getCount());
+    }
+
+    public void testBalanceAsOfAndNetFlowFollowMutations() {
+        Transaction salary = income("Gehalt", "2000", JANUARY.atDay(1));
+        Transaction rent = expense("Miete", "800", JANUARY.atDay(3), "Wohnen");
+        // Weit auseinanderliegende Tage lassen den Tagesindex nach beiden Seiten wachsen
+        Transaction old = expense("Altlast", "100", LocalDate.of(1990, 6, 1), "Sonstiges");
+        Transaction future = income("Erbe", "5000", LocalDate.of(2090, 1, 1));
+        service.addTransactions(List.of(salary, rent, old, future));
+
+        assertAmount("0", service.getBalanceAsOf(LocalDate.of(1990, 5, 31)));
+        assertAmount("-100", service.getBalanceAsOf(JANUARY.atDay(2).minusMonths(1)));
+        assertAmount("1900", service.getBalanceAsOf(JANUARY.atDay(2)));
+        assertAmount("1100", service.getBalanceAsOf(FEBRUARY.atDay(1)));
+        assertAmount("1200", service.getNetFlow(JANUARY.atDay(1), JANUARY.atEndOfMonth()));
+
+        service.updateTransaction(new Transaction(rent.getId(), "Miete", new BigDecimal("850"), TransactionType.Ausgaben,
+                FEBRUARY.atDay(1), "Wohnen"));
+        service.removeTransactionById(salary.getId());
+
+        assertAmount("-100", service.getBalanceAsOf(JANUARY.atEndOfMonth()));
+        assertAmount("-850", service.getNetFlow(JANUARY.atDay(1), FEBRUARY.atEndOfMonth()));
+        assertAmount("4050", service.getBalanceAsOf(LocalDate.of(2100, 1, 1)));
+
+        QueryTotals expenses = service.aggregate(TransactionQuery.all()
+                .between(LocalDate.of(1990, 1, 1), FEBRUARY.atEndOfMonth()).ofType(TransactionType.Ausgaben));
+        assertEquals(2, expenses.getCount());
+        assertAmount("950", expenses.getExpenses());
+        assertAmount("0", expenses.getIncome());
+    }
+
+    public void testOutlierDatesKeepDayTotalsSparse() {
+        // Tippfehler wie 01.01.0001 oder 9999 dürfen den Tagesindex nicht über Jahrtausende aufblähen
+        service.addTransactions(List.of(
+                expense("Tippfehler", "10", LocalDate.of(1, 1, 1), null),
+                income("Gehalt", "2000", JANUARY.atDay(15)),
+                expense("Tippfehler", "5", LocalDate.of(9999, 12, 31), null)));
+
+        assertAmount("0", service.getBalanceAsOf(LocalDate.of(1, 1, 1).minusDays(1)));
+        assertAmount("-10", service.getBalanceAsOf(LocalDate.of(1, 1, 1)));
+        assertAmount("1990", service.getBalanceAsOf(JANUARY.atEndOfMonth()));
+        assertAmount("1985", service.getBalanceAsOf(LocalDate.MAX));
+        assertAmount("2000", service.getNetFlow(LocalDate.of(2, 1, 1), LocalDate.of(9999, 1, 1)));
+    }
+
+    public void testRecurrenceRuleIsExpandedOnlyInTheAskedWindow() {
+        RecurrenceRule rent = new RecurrenceRule("Miete", Money.parse("800"), TransactionType.Ausgaben, "Wohnen",
+                JANUARY.atDay(1), RecurrenceRule.Frequency.MONTHLY, null, 0);
+        service.addTransaction(income("Gehalt", "2000", JANUARY.atDay(2)));
+        service.putRecurrenceRule(rent);
+
+        assertEquals(1, service.getTransactions().size());
+        assertAmount("1200", service.getMonthlyBalance(JANUARY));
+        assertAmount("800", service.getExpenseForMonth(FEBRUARY, "Wohnen"));
+        assertAmount("400", service.getBalanceAsOf(FEBRUARY.atDay(1)));
+        assertEquals(2, service.getTransactionsForMonth(JANUARY).size());
+        TransactionQuery firstQuarter = TransactionQuery.all().between(JANUARY.atDay(1), LocalDate.of(2024, 3, 31));
+        assertEquals(3, service.find(firstQuarter.inCategories("Wohnen")).size());
+        assertAmount("2400", service.aggregate(firstQuarter).getExpenses());
+        assertAmount("2400", service.aggregateByCategory(firstQuarter.containing("miet")).get("Wohnen").getExpenses());
+        // Nach oben offen: ein unbegrenzter Dauerauftrag trägt nichts bei
+        assertEquals(1, service.find(TransactionQuery.all()).size());
+
+        // Regel ändern statt Kopien: betrifft alle künftigen Monate auf einmal
+        service.putRecurrenceRule(new RecurrenceRule(rent.getId(), "Miete", Money.parse("850"), TransactionType.Ausgaben,
+                rent.getCategory(), rent.getStart(), rent.getFrequency(), null, 0, null));
+        assertAmount("850", service.getExpenseForMonth(FEBRUARY, "Wohnen"));
+
+        List<Transaction> booked = service.materializeRecurrences(FEBRUARY.atEndOfMonth());
+        assertEquals(2, booked.size());
+        assertEquals(3, service.getTransactions().size());
+        assertAmount("850", service.getExpenseForMonth(FEBRUARY, "Wohnen"));
+        assertAmount("-550", service.getBalanceAsOf(LocalDate.of(2024, 3, 1)));
+        assertTrue(service.materializeRecurrences(FEBRUARY.atEndOfMonth()).isEmpty());
+        assertEquals(1, service.getRecurrenceRules().size());
+    }
+
+    public void testStoppedRecurrenceRuleEndsAndBookedBalanceExcludesPending() {
+        RecurrenceRule rent = new RecurrenceRule("Miete", Money.parse("800"), TransactionType.Ausgaben, "Wohnen",
+                JANUARY.atDay(1), RecurrenceRule.Frequency.MONTHLY, null, 0);
+        service.addTransaction(income("Gehalt", "2000", JANUARY.atDay(2)));
+        service.putRecurrenceRule(rent);
+        assertAmount("2000", service.getBookedMonthlyBalance(JANUARY));
+        assertAmount("1200", service.getMonthlyBalance(JANUARY));
+
+        // Unbegrenzt, ohne Anzahl: nach dem Beenden bleibt nur Januar offen
+        assertTrue(service.stopRecurrenceRule(rent.getId(), JANUARY.atEndOfMonth()));
+        assertAmount("0", service.getExpenseForMonth(FEBRUARY, "Wohnen"));
+        assertEquals(1, service.materializeRecurrences(LocalDate.of(2024, 6, 30)).size());
+        assertTrue(service.getRecurrenceRules().isEmpty());
+        assertAmount("1200", service.getBookedMonthlyBalance(JANUARY));
+
+        // Ohne offene Ausführung verschwindet der Dauerauftrag sofort
+        RecurrenceRule later = new RecurrenceRule("Abo", Money.parse("10"), TransactionType.Ausgaben, "Abos",
+                FEBRUARY.atDay(1), RecurrenceRule.Frequency.MONTHLY, null, 0);
+        service.putRecurrenceRule(later);
+        assertTrue(service.stopRecurrenceRule(later.getId(), JANUARY.atEndOfMonth()));
+        assertTrue(service.getRecurrenceRules().isEmpty());
+        assertFalse(service.stopRecurrenceRule(later.getId(), JANUARY.atEndOfMonth()));
+    }
+
+    private static Transaction expense(String description, String amount, LocalDate date, String category) {
+        return new Transaction(description, new BigDecimal(amount), TransactionType.Ausgaben, date, category);
+    }
+
+    private static Transaction income(String description, String amount, LocalDate date) {
+        return new Transaction(description, new BigDecimal(amount), TransactionType.Einnahmen, date, "Gehalt");
+    }
+
+    private static void assertAmount(String expected, Money actual) {
+        assertEquals(Money.parse(expected), actual);
+    }
+
+    private static void assertTransactions(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameTransaction(expected.get(i), actual.get(i));
+        }
+    }
+
+    // Speicher-Engines dürfen Transaktionen neu materialisieren, daher Feldvergleich statt Identität
+    private static void assertSameTransaction(Transaction expected, Transaction actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getMoney(), actual.getMoney());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getCategory(), actual.getCategory());
+    }
+}
@@ -0,0 +1,41 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import junit.framework.TestCase;
+
+/**
+ * Tests für die gemeinsame Aggregation der Statistik-Diagramme.
+ */
+public class ChartDataTest extends TestCase {
+
+    public void testCollectsCategoriesAndDailyBalanceInOnePass() {
+        LocalDate first = LocalDate.of(2024, 5, 1);
+        ChartData data = ChartData.collect(List.of(
+                transaction("Gehalt", 200000, TransactionType.Einnahmen, first.plusDays(2), "Gehalt"),
+                transaction("Miete", 80000, TransactionType.Ausgaben, first, "Wohnen"),
+                transaction("Strom", 6000, TransactionType.Ausgaben, first.plusDays(2), "Wohnen"),
+                transaction("Bargeld", 2000, TransactionType.Ausgaben, first.minusYears(60), null)));
+
+        assertEquals(Long.valueOf(86000), data.expensesByCategory.get("Wohnen"));
+        assertEquals(Long.valueOf(2000), data.expensesByCategory.get("Unbekannt"));
+        assertNull(data.expensesByCategory.get("Gehalt"));
+
+        // Tage vor 1970 haben negative Epoch-Days und müssen trotzdem zuerst kommen
+        assertEquals(3, data.days.length);
+        assertEquals(first.minusYears(60).toEpochDay(), data.days[0]);
+        assertEquals(first.plusDays(2).toEpochDay(), data.days[2]);
+        assertEquals(-2000, data.balances[0]);
+        assertEquals(-82000, data.balances[1]);
+        assertEquals(112000, data.balances[2]);
+    }
+
+    private static Transaction transaction(String description, long cents, TransactionType type, LocalDate date,
+            String category) {
+        return new Transaction(description, Money.ofCents(cents), type, date, category);
+    }
+}
@@ -0,0 +1,41 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests für das Ausdünnen des Kontoverlaufs.
+ */
+public class DownsamplerTest extends TestCase {
+
+    public void testShortRangeIsKeptCompletely() {
+        int[] x = {1, 2, 3, 4, 5};
+        long[] y = {0, 10, 5, 7, 3};
+
+        assertTrue(Arrays.equals(new int[] {1, 2, 3}, Downsampler.lttb(x, y, 1, 4, 10)));
+    }
+
+    public void testKeepsEndpointsAndSpikes() {
+        int count = 10_000;
+        int[] x = new int[count];
+        long[] y = new long[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i;
+            y[i] = i % 2;
+        }
+        y[4321] = 1_000_000;
+        y[7000] = -1_000_000;
+
+        int[] selected = Downsampler.lttb(x, y, 0, count, 200);
+
+        assertEquals(200, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(count - 1, selected[selected.length - 1]);
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i] > selected[i - 1]);
+        }
+        assertTrue(Arrays.binarySearch(selected, 4321) >= 0);
+        assertTrue(Arrays.binarySearch(selected, 7000) >= 0);
+    }
+}
@@ -0,0 +1,30 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.time.LocalDate;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import junit.framework.TestCase;
+
+/**
+ * Tests für den Suchvergleich der Buchungstabellen.
+ */
+public class TransactionSearchTest extends TestCase {
+
+    private final Transaction rent = new Transaction("Miete März", Money.ofCents(123456), TransactionType.Ausgaben,
+            LocalDate.of(2024, 3, 1), "Wohnen");
+
+    public void testMatchesTextColumnsIgnoringCase() {
+        assertTrue(new TransactionSearch.Matcher("märz").matches(rent));
+        assertTrue(new TransactionSearch.Matcher("wohn").matches(rent));
+        assertTrue(new TransactionSearch.Matcher("ausgab").matches(rent));
+        assertFalse(new TransactionSearch.Matcher("gehalt").matches(rent));
+    }
+
+    public void testMatchesAmountAndDateAsDisplayed() {
+        assertTrue(new TransactionSearch.Matcher("1.234,56").matches(rent));
+        assertTrue(new TransactionSearch.Matcher("01.03.2024").matches(rent));
+        assertFalse(new TransactionSearch.Matcher("1234.56").matches(rent));
+    }
+}
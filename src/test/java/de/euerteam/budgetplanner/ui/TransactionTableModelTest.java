@@ -0,0 +1,90 @@
+package de.euerteam.budgetplanner.ui;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import de.euerteam.budgetplanner.model.Money;
+import de.euerteam.budgetplanner.model.Transaction;
+import de.euerteam.budgetplanner.model.TransactionType;
+import de.euerteam.budgetplanner.service.TransactionService;
+import junit.framework.TestCase;
+
+/**
+ * Tests für das Tabellenmodell der Buchungen.
+ */
+public class TransactionTableModelTest extends TestCase {
+
+    public void testCellsReturnRawValuesOfTheTransaction() {
+        TransactionService service = new TransactionService();
+        TransactionTableModel model = new TransactionTableModel(service, TransactionType.Ausgaben);
+        Transaction rent = new Transaction("Miete", Money.ofCents(80000), TransactionType.Ausgaben,
+                LocalDate.of(2024, 3, 1), "Wohnen");
+        service.addTransaction(rent);
+        service.addTransaction(new Transaction("Gehalt", Money.ofCents(300000), TransactionType.Einnahmen,
+                LocalDate.of(2024, 3, 1), null));
+
+        assertEquals(1, model.getRowCount());
+        assertEquals(rent, model.getTransactionAt(0));
+        assertEquals("Miete", model.getValueAt(0, TransactionTableModel.DESCRIPTION));
+        assertEquals(Money.ofCents(80000), model.getValueAt(0, TransactionTableModel.AMOUNT));
+        assertEquals(LocalDate.of(2024, 3, 1), model.getValueAt(0, TransactionTableModel.DATE));
+        assertEquals(LocalDate.class, model.getColumnClass(TransactionTableModel.DATE));
+    }
+
+    public void testReplaceAndRemoveFireRowEvents() {
+        TransactionService service = new TransactionService();
+        Transaction first = new Transaction("Kino", Money.ofCents(1200), TransactionType.Ausgaben,
+                LocalDate.of(2024, 3, 2), "Freizeit");
+        Transaction second = new Transaction("Bahn", Money.ofCents(300), TransactionType.Ausgaben,
+                LocalDate.of(2024, 3, 3), "Mobilität");
+        service.setTransactions(List.of(first, second));
+        TransactionTableModel model = new TransactionTableModel(service, TransactionType.Ausgaben);
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+
+        Transaction updated = new Transaction(second.getId(), "Bahn", Money.ofCents(450), TransactionType.Ausgaben,
+                LocalDate.of(2024, 3, 3), "Mobilität");
+        service.updateTransaction(updated);
+        service.removeTransactionById(first.getId());
+
+        assertEquals(1, model.getRowCount());
+        assertEquals(updated, model.getTransactionAt(0));
+        assertEquals(Money.ofCents(450), model.getValueAt(0, TransactionTableModel.AMOUNT));
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(TableModelEvent.DELETE, events.get(1).getType());
+        assertEquals(0, events.get(1).getFirstRow());
+    }
+
+    public void testTypeChangeMovesRowAndCompactionKeepsRows() {
+        TransactionService service = new TransactionService();
+        TransactionTableModel income = new TransactionTableModel(service, TransactionType.Einnahmen);
+        TransactionTableModel expenses = new TransactionTableModel(service, TransactionType.Ausgaben);
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            added.add(new Transaction("B" + i, Money.ofCents(100 + i), TransactionType.Ausgaben,
+                    LocalDate.of(2024, 1, 1 + i), null));
+        }
+        service.addTransactions(added);
+        Transaction moved = added.get(4);
+        service.updateTransaction(new Transaction(moved.getId(), "Erstattung", moved.getMoney(),
+                TransactionType.Einnahmen, moved.getDate(), null));
+
+        assertEquals(1, income.getRowCount());
+        assertEquals("Erstattung", income.getValueAt(0, TransactionTableModel.DESCRIPTION));
+        assertEquals(5, expenses.getRowCount());
+
+        service.removeTransactionById(added.get(0).getId());
+        service.removeTransactionById(added.get(1).getId());
+        // Kompaktiert und nummeriert die Slots um
+        service.getTransactionsSnapshot();
+
+        assertEquals(3, expenses.getRowCount());
+        assertEquals("B2", expenses.getValueAt(0, TransactionTableModel.DESCRIPTION));
+        assertEquals("B5", expenses.getValueAt(2, TransactionTableModel.DESCRIPTION));
+        assertEquals("Erstattung", income.getValueAt(0, TransactionTableModel.DESCRIPTION));
+    }
+}